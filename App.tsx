@@ -47,6 +47,15 @@ export default function App() {
     initializeApp();
   }, []);
 
+  // Refresh the list when native code reports a fire, snooze, dismiss or reschedule
+  useEffect(() => {
+    const subscription = ProductionAlarmManager.addAlarmEventListener(events => {
+      console.log('🔔 Alarm events:', events);
+      loadAlarms();
+    });
+    return () => subscription.remove();
+  }, []);
+
   const initializeApp = async () => {
     try {
       // Check if native module is ready
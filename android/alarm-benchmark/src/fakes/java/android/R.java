@@ -0,0 +1,14 @@
+package android;
+
+/** JVM compile stub: the platform resource IDs the alarm code names. */
+public final class R {
+    private R() {}
+
+    public static final class drawable {
+        public static final int ic_lock_idle_alarm = 0x01080028;
+        public static final int ic_menu_close_clear_cancel = 0x01080038;
+        public static final int ic_popup_reminder = 0x01080049;
+
+        private drawable() {}
+    }
+}
@@ -0,0 +1,60 @@
+package android.app;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+import android.view.Window;
+
+/** JVM compile stub: activities are never created in the JVM build. */
+public class Activity extends Context {
+    public Activity() {
+        super(null);
+    }
+
+    protected void onCreate(Bundle savedInstanceState) {
+    }
+
+    protected void onNewIntent(Intent intent) {
+    }
+
+    protected void onDestroy() {
+    }
+
+    public void onBackPressed() {
+    }
+
+    public Intent getIntent() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void setIntent(Intent newIntent) {
+    }
+
+    public Window getWindow() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void setContentView(int layoutResID) {
+    }
+
+    public <T extends View> T findViewById(int id) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void setShowWhenLocked(boolean showWhenLocked) {
+    }
+
+    public void setTurnScreenOn(boolean turnScreenOn) {
+    }
+
+    public void reportFullyDrawn() {
+    }
+
+    public boolean isFinishing() {
+        return true;
+    }
+
+    public void finish() {
+    }
+}
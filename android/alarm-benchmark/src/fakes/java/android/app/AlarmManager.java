@@ -0,0 +1,142 @@
+package android.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JVM fake: records every call and keeps one pending alarm per
+ * {@link PendingIntent}, replacing it on re-set and dropping it on
+ * {@link #cancel}, as the platform does. Exact calls throw
+ * {@link SecurityException} while the exact alarm permission is revoked.
+ * Nothing ever fires; tests deliver the broadcast themselves.
+ */
+public class AlarmManager {
+    public static final int RTC_WAKEUP = 0;
+    public static final int RTC = 1;
+    public static final String ACTION_SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED =
+        "android.app.action.SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED";
+
+    /** JVM fake only: one set call, also the pending alarm it left behind. */
+    public static final class Call {
+        public final String method;
+        public final long triggerAtMillis;
+        public final long windowLengthMillis;
+        public final PendingIntent operation;
+        public final AlarmClockInfo alarmClock;
+
+        Call(String method, long triggerAtMillis, long windowLengthMillis, PendingIntent operation,
+             AlarmClockInfo alarmClock) {
+            this.method = method;
+            this.triggerAtMillis = triggerAtMillis;
+            this.windowLengthMillis = windowLengthMillis;
+            this.operation = operation;
+            this.alarmClock = alarmClock;
+        }
+
+        @Override
+        public String toString() {
+            return method + "@" + triggerAtMillis + " " + operation.getIntent().getAction();
+        }
+    }
+
+    public static final class AlarmClockInfo {
+        private final long triggerTime;
+        private final PendingIntent showIntent;
+
+        public AlarmClockInfo(long triggerTime, PendingIntent showIntent) {
+            this.triggerTime = triggerTime;
+            this.showIntent = showIntent;
+        }
+
+        public long getTriggerTime() {
+            return triggerTime;
+        }
+
+        public PendingIntent getShowIntent() {
+            return showIntent;
+        }
+    }
+
+    private final List<Call> calls = new ArrayList<>();
+    private final List<PendingIntent> cancels = new ArrayList<>();
+    private final Map<PendingIntent, Call> pending = new LinkedHashMap<>();
+    private boolean canScheduleExactAlarms = true;
+
+    public void setAlarmClock(AlarmClockInfo info, PendingIntent operation) {
+        checkExact();
+        record(new Call("setAlarmClock", info.getTriggerTime(), 0, operation, info));
+    }
+
+    public void setExactAndAllowWhileIdle(int type, long triggerAtMillis, PendingIntent operation) {
+        checkExact();
+        record(new Call("setExactAndAllowWhileIdle", triggerAtMillis, 0, operation, null));
+    }
+
+    public void setExact(int type, long triggerAtMillis, PendingIntent operation) {
+        checkExact();
+        record(new Call("setExact", triggerAtMillis, 0, operation, null));
+    }
+
+    public void setWindow(int type, long windowStartMillis, long windowLengthMillis, PendingIntent operation) {
+        record(new Call("setWindow", windowStartMillis, windowLengthMillis, operation, null));
+    }
+
+    public void setAndAllowWhileIdle(int type, long triggerAtMillis, PendingIntent operation) {
+        record(new Call("setAndAllowWhileIdle", triggerAtMillis, 0, operation, null));
+    }
+
+    public synchronized void cancel(PendingIntent operation) {
+        cancels.add(operation);
+        pending.remove(operation);
+    }
+
+    public synchronized boolean canScheduleExactAlarms() {
+        return canScheduleExactAlarms;
+    }
+
+    /** JVM fake only: whether the exact alarm permission is granted. */
+    public synchronized void setCanScheduleExactAlarms(boolean granted) {
+        canScheduleExactAlarms = granted;
+    }
+
+    /** JVM fake only: every set call so far, oldest first. */
+    public synchronized List<Call> getCalls() {
+        return new ArrayList<>(calls);
+    }
+
+    /** JVM fake only: every PendingIntent passed to {@link #cancel}, oldest first. */
+    public synchronized List<PendingIntent> getCancels() {
+        return new ArrayList<>(cancels);
+    }
+
+    /** JVM fake only: the alarms still set, in the order they were first set. */
+    public synchronized List<Call> getPending() {
+        return Collections.unmodifiableList(new ArrayList<>(pending.values()));
+    }
+
+    /** JVM fake only: the pending alarm for {@code operation}, or null. */
+    public synchronized Call getPending(PendingIntent operation) {
+        return pending.get(operation);
+    }
+
+    /** JVM fake only: forgets calls and pending alarms, as after a reboot. */
+    public synchronized void reset() {
+        calls.clear();
+        cancels.clear();
+        pending.clear();
+    }
+
+    private synchronized void checkExact() {
+        if (!canScheduleExactAlarms) {
+            throw new SecurityException("Caller needs SCHEDULE_EXACT_ALARM to set exact alarms");
+        }
+    }
+
+    private synchronized void record(Call call) {
+        calls.add(call);
+        pending.put(call.operation, call);
+    }
+}
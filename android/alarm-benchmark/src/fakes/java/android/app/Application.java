@@ -0,0 +1,14 @@
+package android.app;
+
+import android.content.Context;
+
+/** JVM fake: the process name is the JVM's. */
+public class Application extends Context {
+    public Application() {
+        super(null);
+    }
+
+    public static String getProcessName() {
+        return System.getProperty("alarm.process.name", "com.adil_kunnanthodi.autoriseapp");
+    }
+}
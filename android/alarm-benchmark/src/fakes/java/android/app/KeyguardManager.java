@@ -0,0 +1,10 @@
+package android.app;
+
+/** JVM compile stub: there is no keyguard in the JVM build. */
+public class KeyguardManager {
+    public void requestDismissKeyguard(Activity activity, KeyguardDismissCallback callback) {
+    }
+
+    public abstract static class KeyguardDismissCallback {
+    }
+}
@@ -0,0 +1,5 @@
+package android.app;
+
+/** JVM compile stub: notifications are never shown in the JVM build. */
+public class Notification {
+}
@@ -0,0 +1,25 @@
+package android.app;
+
+import android.media.AudioAttributes;
+import android.net.Uri;
+
+/** JVM compile stub: notifications are never shown in the JVM build. */
+public final class NotificationChannel {
+    public NotificationChannel(String id, CharSequence name, int importance) {
+    }
+
+    public void setDescription(String description) {
+    }
+
+    public void enableVibration(boolean vibration) {
+    }
+
+    public void setSound(Uri sound, AudioAttributes audioAttributes) {
+    }
+
+    public void setBypassDnd(boolean bypassDnd) {
+    }
+
+    public void setLockscreenVisibility(int lockscreenVisibility) {
+    }
+}
@@ -0,0 +1,13 @@
+package android.app;
+
+/** JVM compile stub: notifications are never shown in the JVM build. */
+public class NotificationManager {
+    public static final int IMPORTANCE_HIGH = 4;
+
+    public void createNotificationChannel(NotificationChannel channel) {
+    }
+
+    public boolean canUseFullScreenIntent() {
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package android.app;
+
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * JVM fake: a token for an intent. Like the platform, two PendingIntents
+ * are equal when their kind, request code and {@link Intent#filterEquals}
+ * match, whatever their extras.
+ */
+public final class PendingIntent {
+    public static final int FLAG_ONE_SHOT = 1 << 30;
+    public static final int FLAG_NO_CREATE = 1 << 29;
+    public static final int FLAG_CANCEL_CURRENT = 1 << 28;
+    public static final int FLAG_UPDATE_CURRENT = 1 << 27;
+    public static final int FLAG_IMMUTABLE = 1 << 26;
+
+    private static final int KIND_BROADCAST = 1;
+    private static final int KIND_ACTIVITY = 2;
+    private static final int KIND_SERVICE = 4;
+
+    private final int kind;
+    private final int requestCode;
+    private final Intent intent;
+
+    private PendingIntent(int kind, int requestCode, Intent intent) {
+        this.kind = kind;
+        this.requestCode = requestCode;
+        this.intent = intent;
+    }
+
+    public static PendingIntent getBroadcast(Context context, int requestCode, Intent intent, int flags) {
+        return new PendingIntent(KIND_BROADCAST, requestCode, intent);
+    }
+
+    public static PendingIntent getActivity(Context context, int requestCode, Intent intent, int flags) {
+        return new PendingIntent(KIND_ACTIVITY, requestCode, intent);
+    }
+
+    public static PendingIntent getService(Context context, int requestCode, Intent intent, int flags) {
+        return new PendingIntent(KIND_SERVICE, requestCode, intent);
+    }
+
+    /** JVM fake only: the intent this token was created with. */
+    public Intent getIntent() {
+        return intent;
+    }
+
+    public int getRequestCode() {
+        return requestCode;
+    }
+
+    public void cancel() {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PendingIntent)) {
+            return false;
+        }
+        PendingIntent other = (PendingIntent) o;
+        return kind == other.kind && requestCode == other.requestCode && intent.filterEquals(other.intent);
+    }
+
+    @Override
+    public int hashCode() {
+        return (kind * 31 + requestCode) * 31 + intent.filterHashCode();
+    }
+}
@@ -0,0 +1,40 @@
+package android.app;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.IBinder;
+
+/** JVM compile stub: the alarm service is never started in the JVM build. */
+public abstract class Service extends Context {
+    public static final int START_NOT_STICKY = 2;
+    public static final int START_STICKY = 1;
+    public static final int STOP_FOREGROUND_REMOVE = 1;
+
+    public Service() {
+        super(null);
+    }
+
+    public void onCreate() {
+    }
+
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_STICKY;
+    }
+
+    public void onDestroy() {
+    }
+
+    public abstract IBinder onBind(Intent intent);
+
+    public final void startForeground(int id, Notification notification) {
+    }
+
+    public final void stopForeground(boolean removeNotification) {
+    }
+
+    public final void stopForeground(int flags) {
+    }
+
+    public final void stopSelf() {
+    }
+}
@@ -0,0 +1,33 @@
+package android.content;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JVM fake: {@link #goAsync} hands out a {@link PendingResult} that tests
+ * can wait on with {@link #awaitFinished} after calling
+ * {@link #onReceive} directly.
+ */
+public abstract class BroadcastReceiver {
+    private PendingResult pendingResult;
+
+    public abstract void onReceive(Context context, Intent intent);
+
+    public final PendingResult goAsync() {
+        pendingResult = new PendingResult();
+        return pendingResult;
+    }
+
+    /** Waits for the last {@link #goAsync} result to finish; true if it did in time. */
+    public final boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        return pendingResult == null || pendingResult.finished.await(timeout, unit);
+    }
+
+    public static class PendingResult {
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        public final void finish() {
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package android.content;
+
+import java.util.Objects;
+
+/** JVM fake: a package and class name pair. */
+public final class ComponentName {
+    private final String packageName;
+    private final String className;
+
+    public ComponentName(String packageName, String className) {
+        this.packageName = packageName;
+        this.className = className;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ComponentName)) {
+            return false;
+        }
+        ComponentName other = (ComponentName) o;
+        return Objects.equals(packageName, other.packageName) && Objects.equals(className, other.className);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(packageName, className);
+    }
+}
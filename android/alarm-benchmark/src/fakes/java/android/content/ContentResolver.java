@@ -0,0 +1,37 @@
+package android.content;
+
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/** JVM fake: opens {@code file:} URIs as local files. */
+public class ContentResolver {
+    public final InputStream openInputStream(Uri uri) throws FileNotFoundException {
+        return new FileInputStream(file(uri));
+    }
+
+    public final OutputStream openOutputStream(Uri uri) throws FileNotFoundException {
+        return new FileOutputStream(file(uri));
+    }
+
+    public final OutputStream openOutputStream(Uri uri, String mode) throws FileNotFoundException {
+        return new FileOutputStream(file(uri), mode.contains("a"));
+    }
+
+    public final AssetFileDescriptor openAssetFileDescriptor(Uri uri, String mode) throws FileNotFoundException {
+        throw new FileNotFoundException("No asset file descriptors in the JVM build: " + uri);
+    }
+
+    private static File file(Uri uri) throws FileNotFoundException {
+        if (!"file".equals(uri.getScheme())) {
+            throw new FileNotFoundException("Only file: URIs are available in the JVM build: " + uri);
+        }
+        return new File(uri.getPath());
+    }
+}
@@ -0,0 +1,151 @@
+package android.content;
+
+import android.app.AlarmManager;
+import android.app.KeyguardManager;
+import android.app.NotificationManager;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.media.AudioManager;
+import android.os.PowerManager;
+import android.os.Vibrator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JVM fake: an application context rooted at a scratch directory, with
+ * {@code files/}, {@code cache/} and file-backed shared preferences.
+ * System services are fakes created on first use; started services and
+ * sent broadcasts are only recorded.
+ */
+public class Context {
+    public static final int MODE_PRIVATE = 0;
+    public static final String ALARM_SERVICE = "alarm";
+    public static final String AUDIO_SERVICE = "audio";
+    public static final String KEYGUARD_SERVICE = "keyguard";
+    public static final String NOTIFICATION_SERVICE = "notification";
+    public static final String POWER_SERVICE = "power";
+    public static final String VIBRATOR_SERVICE = "vibrator";
+    public static final int RECEIVER_EXPORTED = 0x2;
+    public static final int RECEIVER_NOT_EXPORTED = 0x4;
+
+    private final File dataDir;
+    private final Map<String, FileSharedPreferences> prefs = new HashMap<>();
+    private final Map<String, Object> services = new HashMap<>();
+    private final List<Intent> startedServices = new ArrayList<>();
+    private final List<Intent> sentBroadcasts = new ArrayList<>();
+
+    public Context(File dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public String getPackageName() {
+        return "com.adil_kunnanthodi.autoriseapp";
+    }
+
+    public File getFilesDir() {
+        return dir("files");
+    }
+
+    public File getCacheDir() {
+        return dir("cache");
+    }
+
+    public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+        return prefs.computeIfAbsent(name,
+            n -> new FileSharedPreferences(new File(dir("shared_prefs"), n + ".properties")));
+    }
+
+    public synchronized Object getSystemService(String name) {
+        return services.computeIfAbsent(name, n -> {
+            switch (n) {
+                case ALARM_SERVICE: return new AlarmManager();
+                case AUDIO_SERVICE: return new AudioManager();
+                case KEYGUARD_SERVICE: return new KeyguardManager();
+                case NOTIFICATION_SERVICE: return new NotificationManager();
+                case POWER_SERVICE: return new PowerManager();
+                case VIBRATOR_SERVICE: return new Vibrator();
+                default: return null;
+            }
+        });
+    }
+
+    public <T> T getSystemService(Class<T> serviceClass) {
+        if (serviceClass == NotificationManager.class) {
+            return serviceClass.cast(getSystemService(NOTIFICATION_SERVICE));
+        }
+        throw new IllegalArgumentException("No fake for " + serviceClass.getName());
+    }
+
+    public PackageManager getPackageManager() {
+        return new PackageManager();
+    }
+
+    public ContentResolver getContentResolver() {
+        return new ContentResolver();
+    }
+
+    public Resources getResources() {
+        return new Resources();
+    }
+
+    public final String getString(int resId) {
+        return getResources().getString(resId);
+    }
+
+    public final String getString(int resId, Object... formatArgs) {
+        return getResources().getString(resId, formatArgs);
+    }
+
+    public ComponentName startService(Intent service) {
+        return recordStart(service);
+    }
+
+    public ComponentName startForegroundService(Intent service) {
+        return recordStart(service);
+    }
+
+    public boolean stopService(Intent service) {
+        return false;
+    }
+
+    public synchronized void sendBroadcast(Intent intent) {
+        sentBroadcasts.add(intent);
+    }
+
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+        return null;
+    }
+
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter, int flags) {
+        return null;
+    }
+
+    /** JVM fake only: services started so far, oldest first. */
+    public synchronized List<Intent> getStartedServices() {
+        return new ArrayList<>(startedServices);
+    }
+
+    /** JVM fake only: broadcasts sent so far, oldest first. */
+    public synchronized List<Intent> getSentBroadcasts() {
+        return new ArrayList<>(sentBroadcasts);
+    }
+
+    private synchronized ComponentName recordStart(Intent service) {
+        startedServices.add(service);
+        return service.getComponent();
+    }
+
+    private File dir(String name) {
+        File dir = new File(dataDir, name);
+        dir.mkdirs();
+        return dir;
+    }
+}
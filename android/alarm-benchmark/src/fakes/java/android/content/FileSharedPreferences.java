@@ -0,0 +1,149 @@
+package android.content;
+
+import android.util.AtomicFile;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * In-memory preferences that, like the platform implementation, rewrite
+ * the whole file on every commit, so prefs-path benchmarks pay a
+ * comparable serialization cost. {@link Editor#apply} writes
+ * synchronously too.
+ */
+final class FileSharedPreferences implements SharedPreferences {
+    private final AtomicFile file;
+    private final Map<String, Object> values = new HashMap<>();
+
+    FileSharedPreferences(File file) {
+        this.file = new AtomicFile(file);
+    }
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        return new HashMap<>(values);
+    }
+
+    @Override
+    public synchronized String getString(String key, String defValue) {
+        Object value = values.get(key);
+        return value instanceof String ? (String) value : defValue;
+    }
+
+    @Override
+    public synchronized int getInt(String key, int defValue) {
+        Object value = values.get(key);
+        return value instanceof Integer ? (Integer) value : defValue;
+    }
+
+    @Override
+    public synchronized long getLong(String key, long defValue) {
+        Object value = values.get(key);
+        return value instanceof Long ? (Long) value : defValue;
+    }
+
+    @Override
+    public synchronized boolean getBoolean(String key, boolean defValue) {
+        Object value = values.get(key);
+        return value instanceof Boolean ? (Boolean) value : defValue;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new EditorImpl();
+    }
+
+    private synchronized boolean commit(Map<String, Object> changes, boolean clear) {
+        if (clear) {
+            values.clear();
+        }
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                values.remove(change.getKey());
+            } else {
+                values.put(change.getKey(), change.getValue());
+            }
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            OutputStream out = new BufferedOutputStream(fos);
+            properties.store(out, null);
+            out.flush();
+            file.finishWrite(fos);
+            return true;
+        } catch (IOException e) {
+            if (fos != null) {
+                file.failWrite(fos);
+            }
+            return false;
+        }
+    }
+
+    private final class EditorImpl implements Editor {
+        // A null value marks a removal
+        private final Map<String, Object> changes = new HashMap<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            return FileSharedPreferences.this.commit(changes, clear);
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+    }
+}
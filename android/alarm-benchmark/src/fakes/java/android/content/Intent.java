@@ -0,0 +1,165 @@
+package android.content;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * JVM fake: an action, a target class or package, flags and a map of
+ * extras. {@link #filterEquals} compares what the platform compares when
+ * matching PendingIntents; extras are ignored.
+ */
+public class Intent {
+    public static final String ACTION_BOOT_COMPLETED = "android.intent.action.BOOT_COMPLETED";
+    public static final String ACTION_MY_PACKAGE_REPLACED = "android.intent.action.MY_PACKAGE_REPLACED";
+    public static final String ACTION_TIMEZONE_CHANGED = "android.intent.action.TIMEZONE_CHANGED";
+    public static final String ACTION_TIME_CHANGED = "android.intent.action.TIME_SET";
+    public static final String ACTION_DATE_CHANGED = "android.intent.action.DATE_CHANGED";
+
+    public static final int FLAG_ACTIVITY_NEW_TASK = 0x10000000;
+    public static final int FLAG_ACTIVITY_CLEAR_TOP = 0x04000000;
+    public static final int FLAG_ACTIVITY_SINGLE_TOP = 0x20000000;
+    public static final int FLAG_ACTIVITY_NO_USER_ACTION = 0x00040000;
+    public static final int FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS = 0x00800000;
+
+    private String action;
+    private String packageName;
+    private ComponentName component;
+    private int flags;
+    private final Map<String, Object> extras = new HashMap<>();
+
+    public Intent() {
+    }
+
+    public Intent(String action) {
+        this.action = action;
+    }
+
+    public Intent(Context packageContext, Class<?> cls) {
+        this.component = new ComponentName(packageContext.getPackageName(), cls.getName());
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Intent setAction(String action) {
+        this.action = action;
+        return this;
+    }
+
+    public String getPackage() {
+        return packageName;
+    }
+
+    public Intent setPackage(String packageName) {
+        this.packageName = packageName;
+        return this;
+    }
+
+    public ComponentName getComponent() {
+        return component;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public Intent setFlags(int flags) {
+        this.flags = flags;
+        return this;
+    }
+
+    public Intent addFlags(int flags) {
+        this.flags |= flags;
+        return this;
+    }
+
+    public boolean hasExtra(String name) {
+        return extras.containsKey(name);
+    }
+
+    public Intent putExtra(String name, String value) {
+        return put(name, value);
+    }
+
+    public Intent putExtra(String name, int value) {
+        return put(name, value);
+    }
+
+    public Intent putExtra(String name, long value) {
+        return put(name, value);
+    }
+
+    public Intent putExtra(String name, float value) {
+        return put(name, value);
+    }
+
+    public Intent putExtra(String name, boolean value) {
+        return put(name, value);
+    }
+
+    public Intent putExtra(String name, String[] value) {
+        return put(name, value);
+    }
+
+    public Intent putExtra(String name, int[] value) {
+        return put(name, value);
+    }
+
+    public Intent putExtra(String name, long[] value) {
+        return put(name, value);
+    }
+
+    public String getStringExtra(String name) {
+        return (String) extras.get(name);
+    }
+
+    public int getIntExtra(String name, int defaultValue) {
+        Object value = extras.get(name);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    public long getLongExtra(String name, long defaultValue) {
+        Object value = extras.get(name);
+        return value instanceof Long ? (Long) value : defaultValue;
+    }
+
+    public float getFloatExtra(String name, float defaultValue) {
+        Object value = extras.get(name);
+        return value instanceof Float ? (Float) value : defaultValue;
+    }
+
+    public boolean getBooleanExtra(String name, boolean defaultValue) {
+        Object value = extras.get(name);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    public String[] getStringArrayExtra(String name) {
+        return (String[]) extras.get(name);
+    }
+
+    public int[] getIntArrayExtra(String name) {
+        return (int[]) extras.get(name);
+    }
+
+    public long[] getLongArrayExtra(String name) {
+        return (long[]) extras.get(name);
+    }
+
+    public boolean filterEquals(Intent other) {
+        return other != null
+            && Objects.equals(action, other.action)
+            && Objects.equals(packageName, other.packageName)
+            && Objects.equals(component, other.component);
+    }
+
+    public int filterHashCode() {
+        return Objects.hash(action, packageName, component);
+    }
+
+    private Intent put(String name, Object value) {
+        extras.put(name, value);
+        return this;
+    }
+}
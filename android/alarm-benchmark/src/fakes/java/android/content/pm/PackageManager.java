@@ -0,0 +1,10 @@
+package android.content.pm;
+
+import android.content.Intent;
+
+/** JVM fake: every package is launchable through a plain launch intent. */
+public class PackageManager {
+    public Intent getLaunchIntentForPackage(String packageName) {
+        return new Intent("android.intent.action.MAIN").setPackage(packageName);
+    }
+}
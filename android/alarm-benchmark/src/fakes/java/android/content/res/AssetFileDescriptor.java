@@ -0,0 +1,36 @@
+package android.content.res;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/** JVM compile stub: neither {@link Resources} nor the fake {@code ContentResolver} opens one. */
+public class AssetFileDescriptor implements Closeable {
+    private AssetFileDescriptor() {
+    }
+
+    public FileDescriptor getFileDescriptor() {
+        throw new UnsupportedOperationException();
+    }
+
+    public long getStartOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    public long getLength() {
+        throw new UnsupportedOperationException();
+    }
+
+    public long getDeclaredLength() {
+        throw new UnsupportedOperationException();
+    }
+
+    public FileInputStream createInputStream() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+    }
+}
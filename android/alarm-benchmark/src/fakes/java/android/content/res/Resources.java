@@ -0,0 +1,26 @@
+package android.content.res;
+
+/** JVM fake: there are no bundled resources, so every lookup misses. */
+public class Resources {
+    public int getIdentifier(String name, String defType, String defPackage) {
+        return 0;
+    }
+
+    public AssetFileDescriptor openRawResourceFd(int id) {
+        throw new NotFoundException("Resource ID #0x" + Integer.toHexString(id));
+    }
+
+    public String getString(int id) {
+        throw new NotFoundException("String resource ID #0x" + Integer.toHexString(id));
+    }
+
+    public String getString(int id, Object... formatArgs) {
+        return getString(id);
+    }
+
+    public static class NotFoundException extends RuntimeException {
+        public NotFoundException(String name) {
+            super(name);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package android.media;
+
+/** JVM compile stub: nothing plays audio in the JVM build. */
+public final class AudioAttributes {
+    public static final int USAGE_ALARM = 4;
+    public static final int CONTENT_TYPE_SONIFICATION = 4;
+    public static final int FLAG_AUDIBILITY_ENFORCED = 0x1;
+
+    private AudioAttributes() {}
+
+    public static class Builder {
+        public Builder setUsage(int usage) {
+            return this;
+        }
+
+        public Builder setContentType(int contentType) {
+            return this;
+        }
+
+        public Builder setFlags(int flags) {
+            return this;
+        }
+
+        public AudioAttributes build() {
+            return new AudioAttributes();
+        }
+    }
+}
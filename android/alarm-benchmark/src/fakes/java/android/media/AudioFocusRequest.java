@@ -0,0 +1,23 @@
+package android.media;
+
+/** JVM compile stub: nothing plays audio in the JVM build. */
+public final class AudioFocusRequest {
+    private AudioFocusRequest() {}
+
+    public static final class Builder {
+        public Builder(int focusGain) {
+        }
+
+        public Builder setAudioAttributes(AudioAttributes attributes) {
+            return this;
+        }
+
+        public Builder setOnAudioFocusChangeListener(AudioManager.OnAudioFocusChangeListener listener) {
+            return this;
+        }
+
+        public AudioFocusRequest build() {
+            return new AudioFocusRequest();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package android.media;
+
+/** JVM compile stub: nothing plays audio in the JVM build. */
+public final class AudioFormat {
+    public static final int ENCODING_PCM_16BIT = 2;
+    public static final int CHANNEL_OUT_MONO = 0x4;
+    public static final int CHANNEL_OUT_STEREO = 0xc;
+
+    private AudioFormat() {}
+
+    public static class Builder {
+        public Builder setEncoding(int encoding) {
+            return this;
+        }
+
+        public Builder setSampleRate(int sampleRate) {
+            return this;
+        }
+
+        public Builder setChannelMask(int channelMask) {
+            return this;
+        }
+
+        public AudioFormat build() {
+            return new AudioFormat();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package android.media;
+
+/** JVM fake: audio focus is always granted. */
+public class AudioManager {
+    public static final int STREAM_ALARM = 4;
+    public static final int AUDIOFOCUS_GAIN = 1;
+    public static final int AUDIOFOCUS_GAIN_TRANSIENT = 2;
+    public static final int AUDIOFOCUS_LOSS = -1;
+    public static final int AUDIOFOCUS_LOSS_TRANSIENT = -2;
+    public static final int AUDIOFOCUS_REQUEST_GRANTED = 1;
+
+    public interface OnAudioFocusChangeListener {
+        void onAudioFocusChange(int focusChange);
+    }
+
+    public int requestAudioFocus(AudioFocusRequest focusRequest) {
+        return AUDIOFOCUS_REQUEST_GRANTED;
+    }
+
+    public int requestAudioFocus(OnAudioFocusChangeListener listener, int streamType, int durationHint) {
+        return AUDIOFOCUS_REQUEST_GRANTED;
+    }
+
+    public int abandonAudioFocusRequest(AudioFocusRequest focusRequest) {
+        return AUDIOFOCUS_REQUEST_GRANTED;
+    }
+
+    public int abandonAudioFocus(OnAudioFocusChangeListener listener) {
+        return AUDIOFOCUS_REQUEST_GRANTED;
+    }
+}
@@ -0,0 +1,79 @@
+package android.media;
+
+import java.nio.ByteBuffer;
+
+/** JVM compile stub: tracks never initialize, so callers fall back. */
+public class AudioTrack {
+    public static final int MODE_STREAM = 1;
+    public static final int STATE_UNINITIALIZED = 0;
+    public static final int STATE_INITIALIZED = 1;
+    public static final int WRITE_BLOCKING = 0;
+
+    public interface OnPlaybackPositionUpdateListener {
+        void onMarkerReached(AudioTrack track);
+
+        void onPeriodicNotification(AudioTrack track);
+    }
+
+    private AudioTrack() {}
+
+    public static int getMinBufferSize(int sampleRateInHz, int channelConfig, int audioFormat) {
+        return 4096;
+    }
+
+    public int getState() {
+        return STATE_UNINITIALIZED;
+    }
+
+    public void setVolume(float gain) {
+    }
+
+    public int setNotificationMarkerPosition(int markerInFrames) {
+        return 0;
+    }
+
+    public void setPlaybackPositionUpdateListener(OnPlaybackPositionUpdateListener listener,
+                                                  android.os.Handler handler) {
+    }
+
+    public void play() {
+    }
+
+    public int write(ByteBuffer audioData, int sizeInBytes, int writeMode) {
+        return 0;
+    }
+
+    public void pause() {
+    }
+
+    public void flush() {
+    }
+
+    public void stop() {
+    }
+
+    public void release() {
+    }
+
+    public static class Builder {
+        public Builder setAudioAttributes(AudioAttributes attributes) {
+            return this;
+        }
+
+        public Builder setAudioFormat(AudioFormat format) {
+            return this;
+        }
+
+        public Builder setTransferMode(int mode) {
+            return this;
+        }
+
+        public Builder setBufferSizeInBytes(int bufferSizeInBytes) {
+            return this;
+        }
+
+        public AudioTrack build() {
+            return new AudioTrack();
+        }
+    }
+}
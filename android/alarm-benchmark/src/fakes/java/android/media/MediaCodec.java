@@ -0,0 +1,61 @@
+package android.media;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** JVM compile stub: there are no codecs, so decoding fails with an IOException. */
+public final class MediaCodec {
+    public static final int BUFFER_FLAG_END_OF_STREAM = 4;
+    public static final int INFO_OUTPUT_FORMAT_CHANGED = -2;
+
+    public static final class BufferInfo {
+        public int flags;
+        public int offset;
+        public long presentationTimeUs;
+        public int size;
+    }
+
+    private MediaCodec() {}
+
+    public static MediaCodec createDecoderByType(String type) throws IOException {
+        throw new IOException("No " + type + " decoder in the JVM build");
+    }
+
+    public void configure(MediaFormat format, Object surface, Object crypto, int flags) {
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+    }
+
+    public void release() {
+    }
+
+    public int dequeueInputBuffer(long timeoutUs) {
+        return -1;
+    }
+
+    public ByteBuffer getInputBuffer(int index) {
+        return null;
+    }
+
+    public void queueInputBuffer(int index, int offset, int size, long presentationTimeUs, int flags) {
+    }
+
+    public int dequeueOutputBuffer(BufferInfo info, long timeoutUs) {
+        return -1;
+    }
+
+    public ByteBuffer getOutputBuffer(int index) {
+        return null;
+    }
+
+    public void releaseOutputBuffer(int index, boolean render) {
+    }
+
+    public MediaFormat getOutputFormat() {
+        return new MediaFormat();
+    }
+}
@@ -0,0 +1,38 @@
+package android.media;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** JVM compile stub: every source fails to open. */
+public final class MediaExtractor {
+    public void setDataSource(FileDescriptor fd, long offset, long length) throws IOException {
+        throw new IOException("MediaExtractor is not available in the JVM build");
+    }
+
+    public int getTrackCount() {
+        return 0;
+    }
+
+    public MediaFormat getTrackFormat(int index) {
+        throw new IllegalArgumentException();
+    }
+
+    public void selectTrack(int index) {
+    }
+
+    public int readSampleData(ByteBuffer byteBuf, int offset) {
+        return -1;
+    }
+
+    public long getSampleTime() {
+        return -1;
+    }
+
+    public boolean advance() {
+        return false;
+    }
+
+    public void release() {
+    }
+}
@@ -0,0 +1,26 @@
+package android.media;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** JVM compile stub: a key-value bag, empty unless a test fills it. */
+public final class MediaFormat {
+    public static final String KEY_MIME = "mime";
+    public static final String KEY_SAMPLE_RATE = "sample-rate";
+    public static final String KEY_CHANNEL_COUNT = "channel-count";
+    public static final String KEY_PCM_ENCODING = "pcm-encoding";
+
+    private final Map<String, Object> values = new HashMap<>();
+
+    public boolean containsKey(String name) {
+        return values.containsKey(name);
+    }
+
+    public String getString(String name) {
+        return (String) values.get(name);
+    }
+
+    public int getInteger(String name) {
+        return (Integer) values.get(name);
+    }
+}
@@ -0,0 +1,61 @@
+package android.media;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+
+/** JVM compile stub: every data source fails, so playback falls through to the next stage. */
+public class MediaPlayer {
+    public interface OnPreparedListener {
+        void onPrepared(MediaPlayer mp);
+    }
+
+    public interface OnErrorListener {
+        boolean onError(MediaPlayer mp, int what, int extra);
+    }
+
+    public void setAudioAttributes(AudioAttributes attributes) {
+    }
+
+    public void setLooping(boolean looping) {
+    }
+
+    public void setVolume(float leftVolume, float rightVolume) {
+    }
+
+    public void setOnPreparedListener(OnPreparedListener listener) {
+    }
+
+    public void setOnErrorListener(OnErrorListener listener) {
+    }
+
+    public void setDataSource(Context context, Uri uri) throws IOException {
+        throw unavailable();
+    }
+
+    public void setDataSource(FileDescriptor fd) throws IOException {
+        throw unavailable();
+    }
+
+    public void setDataSource(FileDescriptor fd, long offset, long length) throws IOException {
+        throw unavailable();
+    }
+
+    public void prepareAsync() {
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+    }
+
+    public void release() {
+    }
+
+    private static IOException unavailable() {
+        return new IOException("MediaPlayer is not available in the JVM build");
+    }
+}
@@ -0,0 +1,13 @@
+package android.media;
+
+import android.net.Uri;
+
+/** JVM compile stub: there are no system ringtones. */
+public class RingtoneManager {
+    public static final int TYPE_NOTIFICATION = 2;
+    public static final int TYPE_ALARM = 4;
+
+    public static Uri getDefaultUri(int type) {
+        return null;
+    }
+}
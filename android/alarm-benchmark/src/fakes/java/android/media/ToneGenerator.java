@@ -0,0 +1,20 @@
+package android.media;
+
+/** JVM compile stub: tones are silent. */
+public class ToneGenerator {
+    public static final int MAX_VOLUME = 100;
+    public static final int TONE_CDMA_EMERGENCY_RINGBACK = 92;
+
+    public ToneGenerator(int streamType, int volume) {
+    }
+
+    public boolean startTone(int toneType) {
+        return true;
+    }
+
+    public void stopTone() {
+    }
+
+    public void release() {
+    }
+}
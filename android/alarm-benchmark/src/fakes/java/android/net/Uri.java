@@ -0,0 +1,34 @@
+package android.net;
+
+import java.net.URI;
+
+/** JVM fake over {@link java.net.URI}. */
+public final class Uri {
+    private final URI uri;
+
+    private Uri(URI uri) {
+        this.uri = uri;
+    }
+
+    public static Uri parse(String uriString) {
+        return new Uri(URI.create(uriString));
+    }
+
+    public String getScheme() {
+        return uri.getScheme();
+    }
+
+    public String getPath() {
+        return uri.getPath();
+    }
+
+    public String getLastPathSegment() {
+        String path = uri.getPath();
+        return path == null ? null : path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String toString() {
+        return uri.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package android.os;
+
+/**
+ * JVM fake: reports the API level in {@code -Dalarm.sdk.int}, or 34 (the
+ * app's target) by default.
+ */
+public final class Build {
+    private Build() {}
+
+    public static final class VERSION {
+        public static final int SDK_INT = Integer.getInteger("alarm.sdk.int", VERSION_CODES.UPSIDE_DOWN_CAKE);
+
+        private VERSION() {}
+    }
+
+    public static final class VERSION_CODES {
+        public static final int M = 23;
+        public static final int O = 26;
+        public static final int O_MR1 = 27;
+        public static final int P = 28;
+        public static final int Q = 29;
+        public static final int S = 31;
+        public static final int TIRAMISU = 33;
+        public static final int UPSIDE_DOWN_CAKE = 34;
+
+        private VERSION_CODES() {}
+    }
+}
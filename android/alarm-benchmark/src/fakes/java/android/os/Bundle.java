@@ -0,0 +1,5 @@
+package android.os;
+
+/** JVM compile stub: activities are never created in the JVM build. */
+public final class Bundle {
+}
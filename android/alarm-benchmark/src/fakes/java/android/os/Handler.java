@@ -0,0 +1,48 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/** JVM fake: posts onto its {@link Looper}'s queue; callbacks can be removed until they run. */
+public class Handler {
+    private final Looper looper;
+    private final Map<Runnable, List<Future<?>>> pending = new HashMap<>();
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    public final boolean post(Runnable r) {
+        return postDelayed(r, 0);
+    }
+
+    public final synchronized boolean postDelayed(Runnable r, long delayMillis) {
+        List<Future<?>> futures = pending.computeIfAbsent(r, k -> new ArrayList<>());
+        futures.removeIf(Future::isDone);
+        futures.add(looper.queue().schedule(r, Math.max(0, delayMillis), TimeUnit.MILLISECONDS));
+        return true;
+    }
+
+    public final synchronized void removeCallbacks(Runnable r) {
+        List<Future<?>> futures = pending.remove(r);
+        if (futures != null) {
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    public final synchronized void removeCallbacksAndMessages(Object token) {
+        for (Runnable r : new ArrayList<>(pending.keySet())) {
+            removeCallbacks(r);
+        }
+    }
+}
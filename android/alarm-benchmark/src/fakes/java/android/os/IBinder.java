@@ -0,0 +1,5 @@
+package android.os;
+
+/** JVM compile stub: nothing binds to the alarm service. */
+public interface IBinder {
+}
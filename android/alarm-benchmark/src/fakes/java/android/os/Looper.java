@@ -0,0 +1,40 @@
+package android.os;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * JVM fake: the main looper is a single daemon thread with a scheduled
+ * queue, so main-thread-only code has a thread to be confined to.
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper();
+
+    private final ScheduledExecutorService queue;
+    private volatile Thread thread;
+
+    private Looper() {
+        queue = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread t = new Thread(runnable, "main");
+            t.setDaemon(true);
+            thread = t;
+            return t;
+        });
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public static Looper myLooper() {
+        return Thread.currentThread() == MAIN.thread ? MAIN : null;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    ScheduledExecutorService queue() {
+        return queue;
+    }
+}
@@ -0,0 +1,41 @@
+package android.os;
+
+/** JVM fake: wake locks only count whether they are held. */
+public class PowerManager {
+    public static final int PARTIAL_WAKE_LOCK = 1;
+
+    public WakeLock newWakeLock(int levelAndFlags, String tag) {
+        return new WakeLock();
+    }
+
+    public static final class WakeLock {
+        private int count;
+        private boolean referenceCounted = true;
+
+        WakeLock() {
+        }
+
+        public synchronized void setReferenceCounted(boolean value) {
+            referenceCounted = value;
+        }
+
+        public synchronized void acquire() {
+            count = referenceCounted ? count + 1 : 1;
+        }
+
+        public synchronized void acquire(long timeout) {
+            acquire();
+        }
+
+        public synchronized void release() {
+            if (count == 0) {
+                throw new RuntimeException("WakeLock under-locked");
+            }
+            count = referenceCounted ? count - 1 : 0;
+        }
+
+        public synchronized boolean isHeld() {
+            return count > 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package android.os;
+
+/** JVM fake: monotonic clocks backed by {@link System#nanoTime()}. */
+public final class SystemClock {
+    private SystemClock() {}
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime();
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    public static long uptimeMillis() {
+        return elapsedRealtime();
+    }
+}
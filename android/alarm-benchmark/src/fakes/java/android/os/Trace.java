@@ -0,0 +1,12 @@
+package android.os;
+
+/** JVM fake: tracing is a no-op. */
+public final class Trace {
+    private Trace() {}
+
+    public static void beginSection(String sectionName) {
+    }
+
+    public static void endSection() {
+    }
+}
@@ -0,0 +1,10 @@
+package android.os;
+
+/** JVM compile stub: the fake {@link Vibrator} never vibrates. */
+public final class VibrationEffect {
+    private VibrationEffect() {}
+
+    public static VibrationEffect createWaveform(long[] timings, int repeat) {
+        return new VibrationEffect();
+    }
+}
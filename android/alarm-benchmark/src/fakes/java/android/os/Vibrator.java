@@ -0,0 +1,17 @@
+package android.os;
+
+/** JVM fake: a device without a vibrator. */
+public class Vibrator {
+    public boolean hasVibrator() {
+        return false;
+    }
+
+    public void vibrate(long[] pattern, int repeat) {
+    }
+
+    public void vibrate(VibrationEffect effect) {
+    }
+
+    public void cancel() {
+    }
+}
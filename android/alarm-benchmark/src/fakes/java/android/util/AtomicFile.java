@@ -0,0 +1,65 @@
+package android.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * JVM fake: writes go to {@code <name>.new} and are renamed over the base
+ * file on {@link #finishWrite}, like the platform class without its
+ * legacy backup-file recovery.
+ */
+public class AtomicFile {
+    private final File baseName;
+    private final File newName;
+
+    public AtomicFile(File baseName) {
+        this.baseName = baseName;
+        this.newName = new File(baseName.getPath() + ".new");
+    }
+
+    public File getBaseFile() {
+        return baseName;
+    }
+
+    public void delete() {
+        baseName.delete();
+        newName.delete();
+    }
+
+    public FileOutputStream startWrite() throws IOException {
+        File parent = newName.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        return new FileOutputStream(newName);
+    }
+
+    public void finishWrite(FileOutputStream str) {
+        try {
+            str.getFD().sync();
+            str.close();
+            Files.move(newName.toPath(), baseName.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.e("AtomicFile", "Failed to commit " + baseName, e);
+        }
+    }
+
+    public void failWrite(FileOutputStream str) {
+        try {
+            str.close();
+        } catch (IOException e) {
+            // Nothing more to clean up than the temp file
+        }
+        newName.delete();
+    }
+
+    public FileInputStream openRead() throws FileNotFoundException {
+        return new FileInputStream(baseName);
+    }
+}
@@ -0,0 +1,71 @@
+package android.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * JVM compile stub. Only the legacy JSON store migration and alarm import
+ * read JSON, and the JVM build never seeds that store or imports, so
+ * every read fails loudly.
+ */
+public final class JsonReader implements Closeable {
+    public JsonReader(Reader in) {
+    }
+
+    public void beginArray() throws IOException {
+        throw unsupported();
+    }
+
+    public void endArray() throws IOException {
+        throw unsupported();
+    }
+
+    public void beginObject() throws IOException {
+        throw unsupported();
+    }
+
+    public void endObject() throws IOException {
+        throw unsupported();
+    }
+
+    public boolean hasNext() throws IOException {
+        throw unsupported();
+    }
+
+    public JsonToken peek() throws IOException {
+        throw unsupported();
+    }
+
+    public String nextName() throws IOException {
+        throw unsupported();
+    }
+
+    public String nextString() throws IOException {
+        throw unsupported();
+    }
+
+    public int nextInt() throws IOException {
+        throw unsupported();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        throw unsupported();
+    }
+
+    public long nextLong() throws IOException {
+        throw unsupported();
+    }
+
+    public void skipValue() throws IOException {
+        throw unsupported();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("JsonReader is not available in the JVM benchmark build");
+    }
+}
@@ -0,0 +1,54 @@
+package android.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * JVM compile stub. Only alarm export writes JSON, which the JVM build
+ * never runs, so every write fails loudly.
+ */
+public final class JsonWriter implements Closeable {
+    public JsonWriter(Writer out) {
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        throw unsupported();
+    }
+
+    public JsonWriter endArray() throws IOException {
+        throw unsupported();
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        throw unsupported();
+    }
+
+    public JsonWriter endObject() throws IOException {
+        throw unsupported();
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        throw unsupported();
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        throw unsupported();
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        throw unsupported();
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        throw unsupported();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("JsonWriter is not available in the JVM build");
+    }
+}
@@ -0,0 +1,47 @@
+package android.util;
+
+/**
+ * JVM fake: warnings and errors go to stderr; debug and info output is
+ * dropped unless {@code -Dalarm.benchmark.verbose=true}.
+ */
+public final class Log {
+    private static final boolean VERBOSE = Boolean.getBoolean("alarm.benchmark.verbose");
+
+    private Log() {}
+
+    public static int d(String tag, String msg) {
+        return verbose("D", tag, msg);
+    }
+
+    public static int i(String tag, String msg) {
+        return verbose("I", tag, msg);
+    }
+
+    public static int w(String tag, String msg) {
+        return print("W", tag, msg, null);
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        return print("W", tag, msg, tr);
+    }
+
+    public static int e(String tag, String msg) {
+        return print("E", tag, msg, null);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return print("E", tag, msg, tr);
+    }
+
+    private static int verbose(String level, String tag, String msg) {
+        return VERBOSE ? print(level, tag, msg, null) : 0;
+    }
+
+    private static int print(String level, String tag, String msg, Throwable tr) {
+        System.err.println(level + "/" + tag + ": " + msg);
+        if (tr != null) {
+            tr.printStackTrace();
+        }
+        return 0;
+    }
+}
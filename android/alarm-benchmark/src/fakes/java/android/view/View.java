@@ -0,0 +1,34 @@
+package android.view;
+
+/** JVM compile stub: there are no views in the JVM build. */
+public class View {
+    public static final int VISIBLE = 0;
+    public static final int GONE = 8;
+    public static final int SYSTEM_UI_FLAG_LAYOUT_STABLE = 0x100;
+    public static final int SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION = 0x200;
+    public static final int SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN = 0x400;
+    public static final int SYSTEM_UI_FLAG_HIDE_NAVIGATION = 0x2;
+    public static final int SYSTEM_UI_FLAG_FULLSCREEN = 0x4;
+    public static final int SYSTEM_UI_FLAG_IMMERSIVE_STICKY = 0x1000;
+
+    public interface OnClickListener {
+        void onClick(View v);
+    }
+
+    public void setOnClickListener(OnClickListener listener) {
+    }
+
+    public void setVisibility(int visibility) {
+    }
+
+    public void setSystemUiVisibility(int visibility) {
+    }
+
+    public ViewTreeObserver getViewTreeObserver() {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean post(Runnable action) {
+        throw new UnsupportedOperationException();
+    }
+}
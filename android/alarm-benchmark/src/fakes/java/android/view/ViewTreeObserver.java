@@ -0,0 +1,20 @@
+package android.view;
+
+/** JVM compile stub: there are no views in the JVM build. */
+public final class ViewTreeObserver {
+    private ViewTreeObserver() {}
+
+    public interface OnDrawListener {
+        void onDraw();
+    }
+
+    public void addOnDrawListener(OnDrawListener listener) {
+    }
+
+    public void removeOnDrawListener(OnDrawListener victim) {
+    }
+
+    public boolean isAlive() {
+        return false;
+    }
+}
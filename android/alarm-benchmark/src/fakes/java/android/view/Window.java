@@ -0,0 +1,9 @@
+package android.view;
+
+/** JVM compile stub: there are no windows in the JVM build. */
+public abstract class Window {
+    public void addFlags(int flags) {
+    }
+
+    public abstract View getDecorView();
+}
@@ -0,0 +1,11 @@
+package android.view;
+
+/** JVM compile stub: only the window flag constants. */
+public interface WindowManager {
+    class LayoutParams {
+        public static final int FLAG_DISMISS_KEYGUARD = 0x00400000;
+        public static final int FLAG_KEEP_SCREEN_ON = 0x00000080;
+        public static final int FLAG_SHOW_WHEN_LOCKED = 0x00080000;
+        public static final int FLAG_TURN_SCREEN_ON = 0x00200000;
+    }
+}
@@ -0,0 +1,5 @@
+package android.widget;
+
+/** JVM compile stub: there are no views in the JVM build. */
+public class Button extends TextView {
+}
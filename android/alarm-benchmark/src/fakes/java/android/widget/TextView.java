@@ -0,0 +1,9 @@
+package android.widget;
+
+import android.view.View;
+
+/** JVM compile stub: there are no views in the JVM build. */
+public class TextView extends View {
+    public final void setText(CharSequence text) {
+    }
+}
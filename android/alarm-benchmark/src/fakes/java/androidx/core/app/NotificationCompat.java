@@ -0,0 +1,83 @@
+package androidx.core.app;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+
+/** JVM compile stub: notifications are never shown in the JVM build. */
+public final class NotificationCompat {
+    public static final String CATEGORY_ALARM = "alarm";
+    public static final int PRIORITY_MAX = 2;
+    public static final int VISIBILITY_PUBLIC = 1;
+
+    private NotificationCompat() {}
+
+    public static class Builder {
+        public Builder(Context context, String channelId) {
+        }
+
+        public Builder setContentTitle(CharSequence title) {
+            return this;
+        }
+
+        public Builder setContentText(CharSequence text) {
+            return this;
+        }
+
+        public Builder setSmallIcon(int icon) {
+            return this;
+        }
+
+        public Builder setPriority(int priority) {
+            return this;
+        }
+
+        public Builder setCategory(String category) {
+            return this;
+        }
+
+        public Builder setVisibility(int visibility) {
+            return this;
+        }
+
+        public Builder setFullScreenIntent(PendingIntent intent, boolean highPriority) {
+            return this;
+        }
+
+        public Builder setContentIntent(PendingIntent intent) {
+            return this;
+        }
+
+        public Builder setGroup(String groupKey) {
+            return this;
+        }
+
+        public Builder setGroupSummary(boolean isGroupSummary) {
+            return this;
+        }
+
+        public Builder setOnlyAlertOnce(boolean onlyAlertOnce) {
+            return this;
+        }
+
+        public Builder setOngoing(boolean ongoing) {
+            return this;
+        }
+
+        public Builder setAutoCancel(boolean autoCancel) {
+            return this;
+        }
+
+        public Builder setSilent(boolean silent) {
+            return this;
+        }
+
+        public Builder addAction(int icon, CharSequence title, PendingIntent intent) {
+            return this;
+        }
+
+        public Notification build() {
+            return new Notification();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package androidx.core.app;
+
+import android.app.Notification;
+import android.content.Context;
+
+/** JVM compile stub: notifications are never shown in the JVM build. */
+public final class NotificationManagerCompat {
+    private NotificationManagerCompat() {}
+
+    public static NotificationManagerCompat from(Context context) {
+        return new NotificationManagerCompat();
+    }
+
+    public void notify(int id, Notification notification) {
+    }
+
+    public void cancel(int id) {
+    }
+}
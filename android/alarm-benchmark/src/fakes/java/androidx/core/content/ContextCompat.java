@@ -0,0 +1,19 @@
+package androidx.core.content;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+/** JVM fake: forwards to the fake {@link Context}. */
+public final class ContextCompat {
+    public static final int RECEIVER_EXPORTED = Context.RECEIVER_EXPORTED;
+    public static final int RECEIVER_NOT_EXPORTED = Context.RECEIVER_NOT_EXPORTED;
+
+    private ContextCompat() {}
+
+    public static Intent registerReceiver(Context context, BroadcastReceiver receiver, IntentFilter filter,
+                                          int flags) {
+        return context.registerReceiver(receiver, filter, flags);
+    }
+}
@@ -0,0 +1,28 @@
+package com.adil_kunnanthodi.autoriseapp;
+
+/** JVM compile stub: the app resource IDs the alarm code names. */
+public final class R {
+    private R() {}
+
+    public static final class id {
+        public static final int alarm_dismiss = 0x7f080001;
+        public static final int alarm_label = 0x7f080002;
+        public static final int alarm_snooze = 0x7f080003;
+        public static final int alarm_time = 0x7f080004;
+
+        private id() {}
+    }
+
+    public static final class layout {
+        public static final int activity_alarm = 0x7f0b0001;
+
+        private layout() {}
+    }
+
+    public static final class string {
+        public static final int alarm_default_label = 0x7f100001;
+        public static final int alarm_snooze = 0x7f100002;
+
+        private string() {}
+    }
+}
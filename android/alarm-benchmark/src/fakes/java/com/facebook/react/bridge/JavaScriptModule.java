@@ -0,0 +1,5 @@
+package com.facebook.react.bridge;
+
+/** JVM compile stub: marker for JS-side modules. */
+public interface JavaScriptModule {
+}
@@ -0,0 +1,10 @@
+package com.facebook.react.bridge;
+
+/** JVM fake of the React Native interface, limited to what the alarm code uses. */
+public interface Promise {
+    void resolve(Object value);
+
+    void reject(String code, String message);
+
+    void reject(String code, String message, Throwable throwable);
+}
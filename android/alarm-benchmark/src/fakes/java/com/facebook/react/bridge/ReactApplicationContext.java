@@ -0,0 +1,23 @@
+package com.facebook.react.bridge;
+
+import android.content.Context;
+
+import java.io.File;
+
+/**
+ * JVM fake: an application context with no JS instance behind it, so
+ * events stay buffered instead of being emitted.
+ */
+public class ReactApplicationContext extends Context {
+    public ReactApplicationContext(File dataDir) {
+        super(dataDir);
+    }
+
+    public boolean hasActiveReactInstance() {
+        return false;
+    }
+
+    public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        throw new IllegalStateException("No JS instance in the JVM build");
+    }
+}
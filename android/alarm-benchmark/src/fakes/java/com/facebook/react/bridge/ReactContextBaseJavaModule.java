@@ -0,0 +1,16 @@
+package com.facebook.react.bridge;
+
+/** JVM fake: holds the module's context. */
+public abstract class ReactContextBaseJavaModule {
+    private final ReactApplicationContext reactContext;
+
+    protected ReactContextBaseJavaModule(ReactApplicationContext reactContext) {
+        this.reactContext = reactContext;
+    }
+
+    public abstract String getName();
+
+    protected final ReactApplicationContext getReactApplicationContext() {
+        return reactContext;
+    }
+}
@@ -0,0 +1,20 @@
+package com.facebook.react.bridge;
+
+/** JVM fake of the React Native interface, limited to what the alarm code uses. */
+public interface ReadableArray {
+    int size();
+
+    boolean isNull(int index);
+
+    boolean getBoolean(int index);
+
+    double getDouble(int index);
+
+    int getInt(int index);
+
+    String getString(int index);
+
+    ReadableArray getArray(int index);
+
+    ReadableMap getMap(int index);
+}
@@ -0,0 +1,20 @@
+package com.facebook.react.bridge;
+
+/** JVM fake of the React Native interface, limited to what the alarm code uses. */
+public interface ReadableMap {
+    boolean hasKey(String name);
+
+    boolean isNull(String name);
+
+    boolean getBoolean(String name);
+
+    double getDouble(String name);
+
+    int getInt(String name);
+
+    String getString(String name);
+
+    ReadableArray getArray(String name);
+
+    ReadableMap getMap(String name);
+}
@@ -0,0 +1,20 @@
+package com.facebook.react.bridge;
+
+/** JVM fake of the React Native interface, limited to what the alarm code uses. */
+public interface WritableArray extends ReadableArray {
+    void pushNull();
+
+    void pushBoolean(boolean value);
+
+    void pushDouble(double value);
+
+    void pushInt(int value);
+
+    void pushLong(long value);
+
+    void pushString(String value);
+
+    void pushArray(ReadableArray array);
+
+    void pushMap(ReadableMap map);
+}
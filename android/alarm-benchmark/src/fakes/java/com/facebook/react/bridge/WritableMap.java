@@ -0,0 +1,20 @@
+package com.facebook.react.bridge;
+
+/** JVM fake of the React Native interface, limited to what the alarm code uses. */
+public interface WritableMap extends ReadableMap {
+    void putNull(String key);
+
+    void putBoolean(String key, boolean value);
+
+    void putDouble(String key, double value);
+
+    void putInt(String key, int value);
+
+    void putLong(String key, long value);
+
+    void putString(String key, String value);
+
+    void putArray(String key, ReadableArray value);
+
+    void putMap(String key, ReadableMap value);
+}
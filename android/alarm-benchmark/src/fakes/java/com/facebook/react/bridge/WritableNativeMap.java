@@ -0,0 +1,109 @@
+package com.facebook.react.bridge;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JVM fake: a plain map that, like the JS bridge, keeps every number as a
+ * double. Doubles as the input map tests hand to the module.
+ */
+public class WritableNativeMap implements WritableMap {
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    @Override
+    public boolean hasKey(String name) {
+        return values.containsKey(name);
+    }
+
+    @Override
+    public boolean isNull(String name) {
+        return values.get(name) == null;
+    }
+
+    @Override
+    public boolean getBoolean(String name) {
+        return (Boolean) require(name);
+    }
+
+    @Override
+    public double getDouble(String name) {
+        return (Double) require(name);
+    }
+
+    @Override
+    public int getInt(String name) {
+        return (int) getDouble(name);
+    }
+
+    @Override
+    public String getString(String name) {
+        return (String) values.get(name);
+    }
+
+    @Override
+    public ReadableArray getArray(String name) {
+        return (ReadableArray) values.get(name);
+    }
+
+    @Override
+    public ReadableMap getMap(String name) {
+        return (ReadableMap) values.get(name);
+    }
+
+    @Override
+    public void putNull(String key) {
+        values.put(key, null);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        values.put(key, (double) value);
+    }
+
+    @Override
+    public void putLong(String key, long value) {
+        values.put(key, (double) value);
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putArray(String key, ReadableArray value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putMap(String key, ReadableMap value) {
+        values.put(key, value);
+    }
+
+    /** JVM fake only: the keys in insertion order. */
+    public java.util.Set<String> keySet() {
+        return values.keySet();
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+
+    private Object require(String name) {
+        if (!values.containsKey(name)) {
+            throw new IllegalArgumentException("No value for " + name);
+        }
+        return values.get(name);
+    }
+}
@@ -0,0 +1,12 @@
+package com.facebook.react.modules.core;
+
+import com.facebook.react.bridge.JavaScriptModule;
+
+/** JVM compile stub: only the emitter interface. */
+public final class DeviceEventManagerModule {
+    private DeviceEventManagerModule() {}
+
+    public interface RCTDeviceEventEmitter extends JavaScriptModule {
+        void emit(String eventName, Object data);
+    }
+}
@@ -0,0 +1,116 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line entry point for {@link AlarmBenchmarks} on a plain JVM.
+ *
+ * Runs the store/prefs, restore, recurrence and analytics benchmarks at each alarm
+ * count given on the command line (10, 1000 and 10000 by default). Each
+ * benchmark is run {@link #WARMUP_RUNS} times untimed so the JIT settles,
+ * then {@link #MEASURED_RUNS} times; every reported value is the median of
+ * the measured runs. The report is printed as JSON and, when
+ * {@code alarm.benchmark.output} is set, also written to that file.
+ */
+public final class AlarmBenchmarkRunner {
+    private static final int[] DEFAULT_COUNTS = {10, 1000, 10000};
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    private interface Benchmark {
+        Map<String, Long> run(Context context, int count) throws IOException;
+    }
+
+    private AlarmBenchmarkRunner() {}
+
+    public static void main(String[] args) throws IOException {
+        int[] counts = args.length > 0
+            ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+            : DEFAULT_COUNTS;
+        File scratch = new File(System.getProperty("alarm.benchmark.scratch",
+            new File(System.getProperty("java.io.tmpdir"), "alarm-benchmark").getPath()));
+        Context context = new Context(scratch);
+
+        Map<String, Benchmark> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("stores", AlarmBenchmarks::compareStores);
+        benchmarks.put("restore", AlarmBenchmarks::measureRestore);
+        benchmarks.put("recurrence", (c, count) -> AlarmBenchmarks.compareRecurrence(count));
+        benchmarks.put("analytics", AlarmBenchmarks::measureAnalytics);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"jvm\": ").append(quote(System.getProperty("java.vm.name") + " "
+            + System.getProperty("java.version")));
+        json.append(",\n  \"os\": ").append(quote(System.getProperty("os.name") + " "
+            + System.getProperty("os.arch")));
+        json.append(",\n  \"cpus\": ").append(Runtime.getRuntime().availableProcessors());
+        json.append(",\n  \"warmupRuns\": ").append(WARMUP_RUNS);
+        json.append(",\n  \"measuredRuns\": ").append(MEASURED_RUNS);
+        json.append(",\n  \"results\": [");
+        boolean first = true;
+        for (int count : counts) {
+            for (Map.Entry<String, Benchmark> benchmark : benchmarks.entrySet()) {
+                Map<String, Long> medians = measure(benchmark.getValue(), context, count);
+                json.append(first ? "\n" : ",\n");
+                first = false;
+                json.append("    {\"benchmark\": ").append(quote(benchmark.getKey()))
+                    .append(", \"count\": ").append(count)
+                    .append(", \"metrics\": {");
+                boolean firstMetric = true;
+                for (Map.Entry<String, Long> metric : medians.entrySet()) {
+                    if (!firstMetric) {
+                        json.append(", ");
+                    }
+                    firstMetric = false;
+                    json.append(quote(metric.getKey())).append(": ").append(metric.getValue());
+                }
+                json.append("}}");
+            }
+        }
+        json.append("\n  ]\n}\n");
+
+        System.out.print(json);
+        String output = System.getProperty("alarm.benchmark.output");
+        if (output != null) {
+            File file = new File(output);
+            file.getParentFile().mkdirs();
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(json.toString());
+            }
+            System.err.println("Wrote " + file);
+        }
+    }
+
+    private static Map<String, Long> measure(Benchmark benchmark, Context context, int count) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            benchmark.run(context, count);
+        }
+        Map<String, List<Long>> samples = new LinkedHashMap<>();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            for (Map.Entry<String, Long> entry : benchmark.run(context, count).entrySet()) {
+                samples.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+        Map<String, Long> medians = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Long>> entry : samples.entrySet()) {
+            List<Long> values = entry.getValue();
+            values.sort(null);
+            medians.put(entry.getKey(), values.get(values.size() / 2));
+        }
+        return medians;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,311 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Benchmarks for the native alarm code. Everything runs against scratch
+ * files so the user's real alarms are never touched. They live in the
+ * {@code alarm-benchmark} build, which runs them on a plain JVM against
+ * fakes, and are not shipped in the app.
+ */
+final class AlarmBenchmarks {
+    private static final String TAG = "AlarmBenchmarks";
+    private static final String BENCH_PREFS = "AlarmPrefsBenchmark";
+    private static final String BENCH_FILE = "alarms-benchmark.bin";
+    private static final String BENCH_ANALYTICS_FILE = "wake-analytics-benchmark.bin";
+    private static final int ANALYTICS_DAYS = 365;
+    // More than anyone rings daily; keeps the 10k-alarm runs to a sane file size
+    private static final int ANALYTICS_MAX_ALARMS = 100;
+    private static final int RECURRENCE_ROUNDS = 16;
+    // Spreads evaluation instants across a little over a week
+    private static final long RECURRENCE_STEP_MS = 11 * 60 * 60 * 1000L + 7 * 60 * 1000L;
+
+    private AlarmBenchmarks() {}
+
+    /**
+     * Compares the legacy pipe-delimited SharedPreferences path with
+     * {@link AlarmRepository} for {@code count} alarms. Values are in
+     * microseconds.
+     */
+    static Map<String, Long> compareStores(Context context, int count) throws IOException {
+        List<AlarmRecord> records = syntheticAlarms(count);
+        Map<String, Long> results = new LinkedHashMap<>();
+        results.put("count", (long) count);
+
+        // Legacy SharedPreferences path
+        SharedPreferences prefs = context.getSharedPreferences(BENCH_PREFS, Context.MODE_PRIVATE);
+        prefs.edit().clear().commit();
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        SharedPreferences.Editor editor = prefs.edit();
+        for (AlarmRecord record : records) {
+            editor.putString(LegacyPrefsFormat.KEY_PREFIX + record.id, LegacyPrefsFormat.encode(record));
+        }
+        editor.commit();
+        results.put("prefsWriteAllUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        int listed = 0;
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(LegacyPrefsFormat.KEY_PREFIX)
+                    && LegacyPrefsFormat.decode(entry.getKey(), (String) entry.getValue()) != null) {
+                listed++;
+            }
+        }
+        results.put("prefsListUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (AlarmRecord record : records) {
+            String key = LegacyPrefsFormat.KEY_PREFIX + record.id;
+            LegacyPrefsFormat.decode(key, prefs.getString(key, ""));
+        }
+        results.put("prefsLookupAllUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        AlarmRecord first = records.get(0);
+        prefs.edit().putString(LegacyPrefsFormat.KEY_PREFIX + first.id,
+            LegacyPrefsFormat.encode(toggled(first))).commit();
+        results.put("prefsUpdateOneUs", micros(start));
+
+        prefs.edit().clear().commit();
+
+        // Binary repository path
+        File file = new File(context.getCacheDir(), BENCH_FILE);
+        file.delete();
+        AlarmRepository repository = new AlarmRepository(file);
+
+        start = SystemClock.elapsedRealtimeNanos();
+        repository.putAll(records);
+        results.put("repoWriteAllUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        AlarmRepository cold = new AlarmRepository(file);
+        cold.load(context);
+        results.put("repoColdLoadUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        int repoListed = cold.getAll().size();
+        results.put("repoListUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (AlarmRecord record : records) {
+            cold.get(record.id);
+        }
+        results.put("repoLookupAllUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        cold.put(toggled(first));
+        results.put("repoUpdateOneUs", micros(start));
+
+        file.delete();
+
+        if (listed != repoListed) {
+            Log.w(TAG, "Store benchmark listed different alarm counts");
+        }
+        Log.i(TAG, "Store benchmark: " + results);
+        return results;
+    }
+
+    /**
+     * Times the boot restore path for {@code count} alarms: a cold load of
+     * the store followed by the scheduler's queue rebuild. The system
+     * alarm itself is not armed. Values are in microseconds.
+     */
+    static Map<String, Long> measureRestore(Context context, int count) throws IOException {
+        File file = new File(context.getCacheDir(), BENCH_FILE);
+        file.delete();
+        new AlarmRepository(file).putAll(syntheticAlarms(count));
+        Map<String, Long> results = new LinkedHashMap<>();
+        results.put("count", (long) count);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        AlarmRepository cold = new AlarmRepository(file);
+        cold.load(context);
+        List<AlarmRecord> enabled = new ArrayList<>();
+        for (AlarmRecord record : cold.getAll()) {
+            if (record.enabled) {
+                enabled.add(record);
+            }
+        }
+        results.put("loadUs", micros(start));
+
+        long rebuildStart = SystemClock.elapsedRealtimeNanos();
+        NextFireQueue queue = new NextFireQueue();
+        queue.rebuild(enabled, System.currentTimeMillis());
+        results.put("rebuildUs", micros(rebuildStart));
+        results.put("restoreUs", micros(start));
+        results.put("queued", (long) queue.size());
+
+        file.delete();
+        Log.i(TAG, "Restore benchmark: " + results);
+        return results;
+    }
+
+    /**
+     * Records a year of wake-ups for {@code count} (at most
+     * {@link #ANALYTICS_MAX_ALARMS}) daily alarms into
+     * {@link WakeAnalytics}, each snoozed 0-3 times before its dismiss,
+     * then times the stats queries over that year. Values are in
+     * microseconds.
+     */
+    static Map<String, Long> measureAnalytics(Context context, int count) {
+        File file = new File(context.getCacheDir(), BENCH_ANALYTICS_FILE);
+        file.delete();
+        WakeAnalytics analytics = new WakeAnalytics(file, AlarmStateSync.get(context));
+        long now = System.currentTimeMillis();
+        long dayMs = 24 * 60 * 60 * 1000L;
+        int alarms = Math.min(count, ANALYTICS_MAX_ALARMS);
+        Map<String, Long> results = new LinkedHashMap<>();
+        results.put("count", (long) count);
+        results.put("alarms", (long) alarms);
+
+        long events = 0;
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int day = ANALYTICS_DAYS - 1; day >= 0; day--) {
+            long at = now - day * dayMs;
+            for (int id = 1; id <= alarms; id++) {
+                int snoozes = (day + id) % 4;
+                for (int snooze = 1; snooze <= snoozes; snooze++) {
+                    analytics.snoozed(id, at, 30000, snooze);
+                }
+                analytics.dismissed(id, at, 20000 + id % 60 * 1000, snoozes);
+                events += snoozes + 1;
+            }
+        }
+        results.put("events", events);
+        results.put("recordYearUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        analytics.dismissed(1, now, 15000, 0);
+        results.put("recordOneUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        List<WakeAnalytics.Summary> summaries = analytics.summaries(ANALYTICS_DAYS, now);
+        results.put("summariesYearUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        analytics.summaries(7, now);
+        results.put("summariesWeekUs", micros(start));
+
+        start = SystemClock.elapsedRealtimeNanos();
+        long[] histogram = analytics.snoozeHistogram(ANALYTICS_DAYS, -1, now);
+        results.put("histogramYearUs", micros(start));
+        results.put("fileBytes", file.length());
+
+        file.delete();
+        Log.i(TAG, "Analytics benchmark: " + results + " (" + summaries.size() + " alarms, "
+            + histogram[0] + " unsnoozed)");
+        return results;
+    }
+
+    /**
+     * Times next-occurrence evaluation for {@code count} weekly alarms with
+     * {@link RecurrenceCalculator} against the {@code Calendar} approach it
+     * replaced. Each alarm is evaluated at {@link #RECURRENCE_ROUNDS}
+     * different instants. Per-evaluation values are in nanoseconds.
+     */
+    static Map<String, Long> compareRecurrence(int count) {
+        List<AlarmRecord> records = syntheticAlarms(count);
+        int[] minutes = new int[count];
+        int[] masks = new int[count];
+        for (int i = 0; i < count; i++) {
+            minutes[i] = records.get(i).minuteOfDay;
+            masks[i] = records.get(i).dayMask;
+        }
+        long now = System.currentTimeMillis();
+        long evaluations = (long) count * RECURRENCE_ROUNDS;
+        Map<String, Long> results = new LinkedHashMap<>();
+        results.put("count", (long) count);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        RecurrenceCalculator calculator = RecurrenceCalculator.forZone(TimeZone.getDefault(), now);
+        results.put("calculatorBuildUs", micros(start));
+
+        // Warm up both paths so the timed loops measure steady state
+        long checksum = 0;
+        for (int i = 0; i < Math.min(count, 1000); i++) {
+            checksum += calculator.nextFireMillis(minutes[i], masks[i], now);
+            checksum += calendarNextFireTime(minutes[i], masks[i], now);
+        }
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int round = 0; round < RECURRENCE_ROUNDS; round++) {
+            long at = now + round * RECURRENCE_STEP_MS;
+            for (int i = 0; i < count; i++) {
+                checksum += calculator.nextFireMillis(minutes[i], masks[i], at);
+            }
+        }
+        results.put("calculatorNsPerEval", (SystemClock.elapsedRealtimeNanos() - start) / evaluations);
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int round = 0; round < RECURRENCE_ROUNDS; round++) {
+            long at = now + round * RECURRENCE_STEP_MS;
+            for (int i = 0; i < count; i++) {
+                checksum += calendarNextFireTime(minutes[i], masks[i], at);
+            }
+        }
+        results.put("calendarNsPerEval", (SystemClock.elapsedRealtimeNanos() - start) / evaluations);
+
+        long mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            if (calculator.nextFireMillis(minutes[i], masks[i], now) != calendarNextFireTime(minutes[i], masks[i], now)) {
+                mismatches++;
+            }
+        }
+        results.put("mismatches", mismatches);
+
+        Log.i(TAG, "Recurrence benchmark: " + results + " (checksum " + checksum + ")");
+        return results;
+    }
+
+    /** The per-call Calendar computation {@link RecurrenceCalculator} replaced, kept as a baseline. */
+    private static long calendarNextFireTime(int minuteOfDay, int dayMask, long now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+        calendar.set(Calendar.MINUTE, minuteOfDay % 60);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        for (int i = 0; i < 8; i++) {
+            int dayIndex = calendar.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY;
+            if ((dayMask & (1 << dayIndex)) != 0 && calendar.getTimeInMillis() > now) {
+                return calendar.getTimeInMillis();
+            }
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            calendar.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+            calendar.set(Calendar.MINUTE, minuteOfDay % 60);
+        }
+        return -1;
+    }
+
+    static List<AlarmRecord> syntheticAlarms(int count) {
+        List<AlarmRecord> records = new ArrayList<>(count);
+        String[] sounds = {"alarm_default", "gentle", "beep"};
+        for (int i = 0; i < count; i++) {
+            records.add(new AlarmRecord(i + 1, "Alarm " + (i + 1), (i * 7) % (24 * 60),
+                (i % AlarmRecord.ALL_DAYS) + 1, true, sounds[i % sounds.length]));
+        }
+        return records;
+    }
+
+    private static AlarmRecord toggled(AlarmRecord record) {
+        return new AlarmRecord(record.id, record.title, record.minuteOfDay, record.dayMask,
+            !record.enabled, record.sound);
+    }
+
+    private static long micros(long startNanos) {
+        return (SystemClock.elapsedRealtimeNanos() - startNanos) / 1000;
+    }
+}
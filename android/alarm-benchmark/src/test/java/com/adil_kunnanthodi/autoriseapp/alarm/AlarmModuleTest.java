@@ -0,0 +1,250 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.AlarmManager;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Drives {@link AlarmModule} as JS would and checks what reaches the
+ * fake {@link AlarmManager} and what the read methods hand back.
+ */
+public class AlarmModuleTest {
+    private static final DateTimeFormatter HH_MM = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AlarmTestEnvironment env;
+    private AlarmModule module;
+
+    @Before
+    public void setUp() throws Exception {
+        env = new AlarmTestEnvironment(folder.getRoot());
+        module = new AlarmModule(env.context());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        env.close();
+    }
+
+    @Test
+    public void criticalAlarmIsArmedAsAlarmClock() {
+        ZonedDateTime at = inMinutes(90);
+        setAlarm(alarm(1, at, "critical"));
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertNotNull(fire);
+        assertEquals("setAlarmClock", fire.method);
+        assertEquals(millis(at), fire.triggerAtMillis);
+        assertEquals(millis(at), fire.alarmClock.getTriggerTime());
+        assertNotNull(fire.alarmClock.getShowIntent());
+        assertEquals(millis(at), fire.operation.getIntent().getLongExtra(AlarmScheduler.EXTRA_TRIGGER_TIME, 0));
+        assertFalse(fire.operation.getIntent().getBooleanExtra(AlarmScheduler.EXTRA_WINDOWED, true));
+
+        AlarmManager.Call prewarm = env.pendingPrewarm();
+        assertNotNull(prewarm);
+        assertEquals(millis(at) - AlarmPrewarm.DEFAULT_LEAD_SECONDS * 1000L, prewarm.triggerAtMillis);
+    }
+
+    @Test
+    public void normalAlarmIsArmedExact() {
+        ZonedDateTime at = inMinutes(90);
+        setAlarm(alarm(1, at, "normal"));
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setExactAndAllowWhileIdle", fire.method);
+        assertEquals(millis(at), fire.triggerAtMillis);
+    }
+
+    @Test
+    public void reminderIsArmedInAWindow() {
+        ZonedDateTime at = inMinutes(90);
+        setAlarm(alarm(1, at, "reminder"));
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setWindow", fire.method);
+        assertEquals(millis(at), fire.triggerAtMillis);
+        assertEquals(DeliveryPolicy.REMINDER_WINDOW_MS, fire.windowLengthMillis);
+        assertTrue(fire.operation.getIntent().getBooleanExtra(AlarmScheduler.EXTRA_WINDOWED, false));
+        assertNull(env.pendingPrewarm());
+    }
+
+    @Test
+    public void revokedExactPermissionFallsBackToInexact() {
+        env.alarmManager().setCanScheduleExactAlarms(false);
+        ZonedDateTime at = inMinutes(90);
+        setAlarm(alarm(1, at, "critical"));
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setAndAllowWhileIdle", fire.method);
+        assertEquals(millis(at), fire.triggerAtMillis);
+        assertNull(env.pendingPrewarm());
+    }
+
+    @Test
+    public void onlyTheEarliestAlarmIsArmed() {
+        ZonedDateTime later = inMinutes(180);
+        ZonedDateTime sooner = inMinutes(90);
+        setAlarm(alarm(1, later, "critical"));
+        setAlarm(alarm(2, sooner, "normal"));
+
+        assertEquals(1, env.alarmManager().getPending().stream()
+            .filter(call -> AlarmScheduler.ACTION_FIRE.equals(call.operation.getIntent().getAction()))
+            .count());
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setExactAndAllowWhileIdle", fire.method);
+        assertEquals(millis(sooner), fire.triggerAtMillis);
+        assertEquals((double) millis(sooner), module.getNextFireTime(), 0);
+    }
+
+    @Test
+    public void cancellingTheHeadArmsTheNextAlarm() {
+        ZonedDateTime later = inMinutes(180);
+        ZonedDateTime sooner = inMinutes(90);
+        setAlarm(alarm(1, later, "critical"));
+        setAlarm(alarm(2, sooner, "normal"));
+
+        TestPromise promise = new TestPromise();
+        module.cancelAlarm(2, promise);
+        assertEquals("Alarm cancelled", promise.value());
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setAlarmClock", fire.method);
+        assertEquals(millis(later), fire.triggerAtMillis);
+        assertEquals(1, module.getAlarmCount(), 0);
+    }
+
+    @Test
+    public void cancellingTheLastAlarmCancelsTheSystemAlarm() {
+        setAlarm(alarm(1, inMinutes(90), "critical"));
+
+        TestPromise promise = new TestPromise();
+        module.cancelAlarm(1, promise);
+        promise.value();
+
+        assertNull(env.pendingFire());
+        assertNull(env.pendingPrewarm());
+        assertTrue(env.alarmManager().getCancels().contains(env.receiverIntent(AlarmScheduler.ACTION_FIRE, 0)));
+        assertEquals(-1, module.getNextFireTime(), 0);
+        assertEquals(0, module.getAlarmCount(), 0);
+    }
+
+    @Test
+    public void disablingAnAlarmCancelsIt() {
+        ZonedDateTime at = inMinutes(90);
+        setAlarm(alarm(1, at, "critical"));
+        WritableNativeMap disabled = alarm(1, at, "critical");
+        disabled.putBoolean("isEnabled", false);
+
+        TestPromise promise = new TestPromise();
+        module.setAlarm(disabled, promise);
+        assertEquals("Alarm disabled", promise.value());
+
+        assertNull(env.pendingFire());
+        assertEquals(0, module.getAlarmCount(), 0);
+    }
+
+    @Test
+    public void getAllAlarmsMapsTheStoredAlarms() {
+        ZonedDateTime at = inMinutes(90);
+        WritableNativeMap weekdays = alarm(7, at, "reminder");
+        WritableNativeArray days = new WritableNativeArray();
+        for (int day = 0; day < 7; day++) {
+            days.pushBoolean(day >= 1 && day <= 5);
+        }
+        weekdays.putArray("days", days);
+        setAlarm(weekdays);
+
+        TestPromise promise = new TestPromise();
+        module.getAllAlarms(promise);
+        ReadableArray alarms = (ReadableArray) promise.value();
+
+        assertEquals(1, alarms.size());
+        ReadableMap alarm = alarms.getMap(0);
+        assertEquals(7, alarm.getInt("id"));
+        assertEquals("Alarm 7", alarm.getString("title"));
+        assertEquals(at.format(HH_MM), alarm.getString("time"));
+        assertEquals("chimes", alarm.getString("sound"));
+        assertTrue(alarm.getBoolean("isEnabled"));
+        assertEquals("reminder", alarm.getString("priority"));
+        ReadableArray mappedDays = alarm.getArray("days");
+        assertEquals(7, mappedDays.size());
+        for (int day = 0; day < 7; day++) {
+            assertEquals("day " + day, day >= 1 && day <= 5, mappedDays.getBoolean(day));
+        }
+    }
+
+    @Test
+    public void snapshotListsAlarmsWithTheirNextFireTimes() {
+        ZonedDateTime first = inMinutes(90);
+        ZonedDateTime second = inMinutes(150);
+        setAlarm(alarm(1, first, "critical"));
+        setAlarm(alarm(2, second, "normal"));
+
+        ReadableMap snapshot = module.getAlarmSnapshot();
+        ReadableArray ids = snapshot.getArray("ids");
+        assertEquals(2, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.getInt(i);
+            ZonedDateTime at = id == 1 ? first : second;
+            assertEquals("Alarm " + id, snapshot.getArray("titles").getString(i));
+            assertEquals(at.getHour() * 60 + at.getMinute(), snapshot.getArray("minutesOfDay").getInt(i));
+            assertEquals(AlarmRecord.ALL_DAYS, snapshot.getArray("dayMasks").getInt(i));
+            assertTrue(snapshot.getArray("enabled").getBoolean(i));
+            assertEquals("chimes", snapshot.getArray("sounds").getString(i));
+            assertEquals(id == 1 ? "critical" : "normal", snapshot.getArray("priorities").getString(i));
+            assertEquals((double) millis(at), snapshot.getArray("nextFireTimes").getDouble(i), 0);
+        }
+    }
+
+    private void setAlarm(WritableNativeMap alarm) {
+        TestPromise promise = new TestPromise();
+        module.setAlarm(alarm, promise);
+        assertEquals("Alarm set successfully", promise.value());
+    }
+
+    /** An every-day alarm at {@code at}'s wall-clock time, as the JS layer sends it. */
+    static WritableNativeMap alarm(int id, ZonedDateTime at, String priority) {
+        WritableNativeMap alarm = new WritableNativeMap();
+        alarm.putInt("id", id);
+        alarm.putString("title", "Alarm " + id);
+        alarm.putString("time", at.format(HH_MM));
+        alarm.putString("sound", "chimes");
+        alarm.putString("priority", priority);
+        WritableNativeArray days = new WritableNativeArray();
+        for (int day = 0; day < 7; day++) {
+            days.pushBoolean(true);
+        }
+        alarm.putArray("days", days);
+        return alarm;
+    }
+
+    /** The next whole minute at least {@code minutes} from now; an every-day alarm then rings there next. */
+    static ZonedDateTime inMinutes(int minutes) {
+        return ZonedDateTime.now(AlarmTestEnvironment.ZONE).plusMinutes(minutes + 1).truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    static long millis(ZonedDateTime at) {
+        return at.toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,191 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import static com.adil_kunnanthodi.autoriseapp.alarm.AlarmModuleTest.alarm;
+import static com.adil_kunnanthodi.autoriseapp.alarm.AlarmModuleTest.inMinutes;
+import static com.adil_kunnanthodi.autoriseapp.alarm.AlarmModuleTest.millis;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.AlarmManager;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Broadcasts that re-arm alarms without JS: boot and package replacement
+ * restore the schedule from disk, clock and zone changes move what is
+ * not yet due, an exact alarm permission grant moves the head off
+ * inexact delivery, and a snooze past the limit clears the schedule like
+ * a dismiss.
+ */
+public class AlarmReceiverTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AlarmTestEnvironment env;
+
+    @Before
+    public void setUp() throws Exception {
+        env = new AlarmTestEnvironment(folder.getRoot());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        env.close();
+    }
+
+    @Test
+    public void bootRestoresTheNextFire() throws Exception {
+        ZonedDateTime later = inMinutes(180);
+        ZonedDateTime sooner = inMinutes(90);
+        setAlarms(alarm(1, later, "normal"), alarm(2, sooner, "critical"));
+
+        env.reboot();
+        assertTrue(env.alarmManager().getCalls().isEmpty());
+        env.broadcast(new Intent(Intent.ACTION_BOOT_COMPLETED));
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertNotNull(fire);
+        assertEquals("setAlarmClock", fire.method);
+        assertEquals(millis(sooner), fire.triggerAtMillis);
+        assertNotNull(env.pendingPrewarm());
+
+        // The restored queue still knows the later alarm
+        ReadableMap snapshot = new AlarmModule(env.context()).getAlarmSnapshot();
+        assertEquals(2, snapshot.getArray("ids").size());
+        for (int i = 0; i < 2; i++) {
+            long expected = millis(snapshot.getArray("ids").getInt(i) == 1 ? later : sooner);
+            assertEquals((double) expected, snapshot.getArray("nextFireTimes").getDouble(i), 0);
+        }
+    }
+
+    @Test
+    public void packageReplacedRestoresTheNextFire() throws Exception {
+        ZonedDateTime at = inMinutes(90);
+        setAlarms(alarm(1, at, "reminder"));
+
+        env.reboot();
+        env.broadcast(new Intent(Intent.ACTION_MY_PACKAGE_REPLACED));
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setWindow", fire.method);
+        assertEquals(millis(at), fire.triggerAtMillis);
+    }
+
+    @Test
+    public void bootArmsNothingForCancelledAlarms() throws Exception {
+        setAlarms(alarm(1, inMinutes(90), "critical"));
+        TestPromise promise = new TestPromise();
+        new AlarmModule(env.context()).cancelAlarm(1, promise);
+        promise.value();
+
+        env.reboot();
+        env.broadcast(new Intent(Intent.ACTION_BOOT_COMPLETED));
+
+        assertNull(env.pendingFire());
+        assertNull(env.pendingPrewarm());
+    }
+
+    @Test
+    public void exactPermissionGrantRearmsAsAlarmClock() throws Exception {
+        ZonedDateTime at = inMinutes(90);
+        env.alarmManager().setCanScheduleExactAlarms(false);
+        setAlarms(alarm(1, at, "critical"));
+        assertEquals("setAndAllowWhileIdle", env.pendingFire().method);
+
+        env.alarmManager().setCanScheduleExactAlarms(true);
+        env.broadcast(new Intent(AlarmManager.ACTION_SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED));
+
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setAlarmClock", fire.method);
+        assertEquals(millis(at), fire.triggerAtMillis);
+        assertNotNull(env.pendingPrewarm());
+    }
+
+    @Test
+    public void zoneChangeMovesRepeatingAlarms() throws Exception {
+        ZonedDateTime at = inMinutes(90);
+        setAlarms(alarm(1, at, "critical"));
+
+        ZoneId kolkata = ZoneId.of("Asia/Kolkata");
+        TimeZone.setDefault(TimeZone.getTimeZone(kolkata));
+        env.broadcast(new Intent(Intent.ACTION_TIMEZONE_CHANGED));
+
+        // Same wall-clock time, now in the new zone
+        ZonedDateTime now = ZonedDateTime.now(kolkata);
+        ZonedDateTime expected = now.with(at.toLocalTime());
+        if (!expected.isAfter(now)) {
+            expected = expected.plusDays(1);
+        }
+        AlarmManager.Call fire = env.pendingFire();
+        assertEquals("setAlarmClock", fire.method);
+        assertEquals(millis(expected), fire.triggerAtMillis);
+    }
+
+    @Test
+    public void forwardClockJumpLeavesTheOverdueFireToRing() throws Exception {
+        ZonedDateTime sooner = inMinutes(90);
+        ZonedDateTime later = inMinutes(180);
+        setAlarms(alarm(1, sooner, "critical"), alarm(2, later, "normal"));
+        AlarmScheduler scheduler = AlarmScheduler.getInstance(env.context());
+
+        // TIME_SET for a clock that jumped past alarm 1, handled before its fire
+        long jumpedTo = millis(sooner) + 30 * 60000L;
+        assertEquals(0, scheduler.onClockChanged(jumpedTo));
+
+        assertEquals(millis(sooner), scheduler.getNextFireTime(1));
+        assertEquals(millis(later), scheduler.getNextFireTime(2));
+        assertEquals(millis(sooner), env.pendingFire().triggerAtMillis);
+
+        // The overdue system alarm then arrives and rings alarm 1 late
+        List<AlarmRecord> due = scheduler.onFire(jumpedTo);
+        assertEquals(1, due.size());
+        assertEquals(1, due.get(0).id);
+        assertEquals(millis(sooner.plusDays(1)), scheduler.getNextFireTime(1));
+        assertEquals(millis(later), env.pendingFire().triggerAtMillis);
+    }
+
+    @Test
+    public void snoozePastTheLimitDismisses() throws Exception {
+        ZonedDateTime at = inMinutes(90);
+        setAlarms(alarm(1, at, "critical"));
+        AlarmScheduler scheduler = AlarmScheduler.getInstance(env.context());
+        SnoozePolicy policy = new SnoozePolicy(SnoozePolicy.DEFAULT_DURATION_MINUTES, 1, false);
+        policy.save(env.context());
+
+        long now = System.currentTimeMillis();
+        long refireAt = scheduler.snooze(1, policy, now);
+        assertEquals(refireAt, env.pendingFire().triggerAtMillis);
+
+        // The second snooze is over the limit, so it drops the first one like a dismiss
+        new Handler(Looper.getMainLooper()).post(() -> AlarmActionReceiver.snooze(env.context(), "1"));
+        AlarmTestEnvironment.awaitIdle();
+
+        assertEquals(0, scheduler.getSnoozeCount(1));
+        assertEquals(millis(at), env.pendingFire().triggerAtMillis);
+    }
+
+    private void setAlarms(ReadableMap... alarms) {
+        AlarmModule module = new AlarmModule(env.context());
+        for (ReadableMap alarm : alarms) {
+            TestPromise promise = new TestPromise();
+            module.setAlarm(alarm, promise);
+            promise.value();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * The binary store on disk: an unreadable file is kept for inspection
+ * instead of being overwritten, and legacy alarms are still imported.
+ */
+public class AlarmRepositoryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AlarmTestEnvironment env;
+
+    @Before
+    public void setUp() throws Exception {
+        env = new AlarmTestEnvironment(folder.getRoot());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        env.close();
+    }
+
+    @Test
+    public void unreadableStoreIsSetAsideAndLegacyAlarmsMigrate() throws Exception {
+        Context context = env.context();
+        File store = new File(context.getFilesDir(), AlarmRepository.FILE_NAME);
+        byte[] garbage = "not an alarm store".getBytes(StandardCharsets.UTF_8);
+        store.getParentFile().mkdirs();
+        Files.write(store.toPath(), garbage);
+        AlarmRecord legacy = new AlarmRecord(7, "Legacy", 6 * 60 + 30, 0x7F, true, "chimes");
+        context.getSharedPreferences(LegacyPrefsFormat.PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(LegacyPrefsFormat.KEY_PREFIX + legacy.id, LegacyPrefsFormat.encode(legacy))
+            .commit();
+
+        AlarmRepository repository = AlarmRepository.getInstance(context);
+        assertNotNull(repository.get(legacy.id));
+        repository.put(new AlarmRecord(8, "New", 7 * 60, 0x7F, true, "chimes"));
+
+        File aside = new File(store.getPath() + AlarmRepository.CORRUPT_SUFFIX);
+        assertArrayEquals(garbage, Files.readAllBytes(aside.toPath()));
+
+        AlarmRepository reread = new AlarmRepository(store);
+        reread.load(context);
+        assertEquals(2, reread.size());
+        assertEquals("Legacy", reread.get(legacy.id).title);
+    }
+}
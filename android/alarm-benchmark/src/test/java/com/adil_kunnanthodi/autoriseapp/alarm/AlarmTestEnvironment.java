@@ -0,0 +1,137 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.time.ZoneId;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One "device" for the JVM tests: a React context over a scratch data
+ * directory in {@link #ZONE}, with the alarm singletons reset so nothing
+ * leaks between tests. {@link #reboot} keeps the files and drops
+ * everything in memory, including the system alarms.
+ */
+final class AlarmTestEnvironment implements AutoCloseable {
+    /** Fixed so expected fire times never straddle a DST change. */
+    static final ZoneId ZONE = ZoneId.of("UTC");
+    private static final long IDLE_TIMEOUT_MS = 10000;
+
+    private final File dataDir;
+    private final TimeZone previousZone = TimeZone.getDefault();
+    private ReactApplicationContext context;
+
+    AlarmTestEnvironment(File dataDir) throws Exception {
+        this.dataDir = dataDir;
+        resetProcess();
+        TimeZone.setDefault(TimeZone.getTimeZone(ZONE));
+        context = new ReactApplicationContext(dataDir);
+    }
+
+    @Override
+    public void close() throws Exception {
+        resetProcess();
+        TimeZone.setDefault(previousZone);
+    }
+
+    ReactApplicationContext context() {
+        return context;
+    }
+
+    AlarmManager alarmManager() {
+        return (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    /** The system alarm armed for the scheduler's next fire, or null if none is set. */
+    AlarmManager.Call pendingFire() {
+        return alarmManager().getPending(receiverIntent(AlarmScheduler.ACTION_FIRE, 0));
+    }
+
+    /** The system alarm armed for the pre-fire stage, or null if none is set. */
+    AlarmManager.Call pendingPrewarm() {
+        return alarmManager().getPending(receiverIntent(AlarmPrewarm.ACTION_PREWARM, 1));
+    }
+
+    /** A PendingIntent equal to the scheduler's for {@code action} and {@code requestCode}. */
+    PendingIntent receiverIntent(String action, int requestCode) {
+        Intent intent = new Intent(context, AlarmReceiver.class).setAction(action);
+        return PendingIntent.getBroadcast(context, requestCode, intent, PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    /** Kills the process and the system alarms, leaving only what is on disk. */
+    void reboot() throws Exception {
+        resetProcess();
+        context = new ReactApplicationContext(dataDir);
+    }
+
+    /** Delivers {@code intent} to a new {@link AlarmReceiver} and waits for its async work. */
+    void broadcast(Intent intent) throws InterruptedException {
+        AlarmReceiver receiver = new AlarmReceiver();
+        receiver.onReceive(context, intent);
+        if (!receiver.awaitFinished(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            throw new AssertionError("Receiver did not finish " + intent.getAction());
+        }
+    }
+
+    /** Waits until the main looper and both {@link AlarmExecutor} pools have nothing left to run. */
+    static void awaitIdle() throws Exception {
+        ThreadPoolExecutor fire = pool("FIRE");
+        ThreadPoolExecutor background = pool("BACKGROUND");
+        long deadline = System.currentTimeMillis() + IDLE_TIMEOUT_MS;
+        do {
+            CountDownLatch main = new CountDownLatch(1);
+            new Handler(Looper.getMainLooper()).post(main::countDown);
+            main.await(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (isIdle(fire) && isIdle(background)) {
+                return;
+            }
+            Thread.sleep(5);
+        } while (System.currentTimeMillis() < deadline);
+        throw new AssertionError("Alarm executors did not go idle");
+    }
+
+    /** Settles pending work, then forgets every process-wide alarm singleton. */
+    static void resetProcess() throws Exception {
+        awaitIdle();
+        clear(AlarmScheduler.class, "instance");
+        clear(AlarmRepository.class, "instance");
+        clear(AlarmSettings.class, "instance");
+        clear(AlarmStateSync.class, "instance");
+        clear(WakeAnalytics.class, "instance");
+        clear(AlarmModuleImpl.class, "initializedFor");
+        clear(AlarmMetrics.class, "ringFile");
+        ((AtomicBoolean) field(AlarmMetrics.class, "attached").get(null)).set(false);
+        field(AlarmMetrics.class, "loaded").setBoolean(null, false);
+        RecurrenceCalculator.invalidate();
+    }
+
+    private static boolean isIdle(ThreadPoolExecutor pool) {
+        return pool.getQueue().isEmpty() && pool.getActiveCount() == 0;
+    }
+
+    private static ThreadPoolExecutor pool(String name) throws Exception {
+        return (ThreadPoolExecutor) field(AlarmExecutor.class, name).get(null);
+    }
+
+    private static void clear(Class<?> type, String name) throws Exception {
+        field(type, name).set(null, null);
+    }
+
+    private static Field field(Class<?> type, String name) throws Exception {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+}
@@ -0,0 +1,133 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Property tests: random day masks, times, zones and instants, each
+ * checked against the same rule worked out with {@link ZonedDateTime},
+ * whose gap and overlap resolution is the one the calculator documents.
+ * Half the instants and times are drawn next to a DST transition.
+ */
+public class RecurrenceCalculatorTest {
+    private static final long SEED = 0x5EED_A1A2L;
+    private static final int CASES = 20000;
+    private static final long MINUTE_MS = 60000L;
+    private static final long DAY_MS = 24 * 60 * MINUTE_MS;
+    private static final String[] ZONES = {
+        "America/New_York",
+        "Europe/London",
+        "Australia/Lord_Howe", // 30-minute DST shift
+        "UTC",
+        "Asia/Kolkata",
+        "Pacific/Chatham",     // +12:45/+13:45
+        "America/Sao_Paulo",   // DST until 2019
+        "Pacific/Apia",        // skipped a whole day in 2011
+    };
+    // 2000-01-01 to 2040-01-01
+    private static final long FIRST_INSTANT = 946684800000L;
+    private static final long LAST_INSTANT = 2208988800000L;
+
+    @Test
+    public void nextFireMatchesZonedDateTime() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < CASES; i++) {
+            ZoneId zone = ZoneId.of(ZONES[random.nextInt(ZONES.length)]);
+            long builtAt = between(random, FIRST_INSTANT, LAST_INSTANT);
+            RecurrenceCalculator calculator = RecurrenceCalculator.forZone(TimeZone.getTimeZone(zone), builtAt);
+
+            // Anywhere the calculator is used before current() rebuilds it
+            long earliest = builtAt - DAY_MS;
+            long latest = builtAt + 390 * DAY_MS;
+            long now = between(random, earliest, latest);
+            int minuteOfDay = random.nextInt(RecurrenceCalculator.MINUTES_PER_DAY);
+            ZoneOffsetTransition transition = zone.getRules().nextTransition(Instant.ofEpochMilli(now - 2 * DAY_MS));
+            if (random.nextBoolean() && transition != null && transition.toEpochSecond() * 1000 < latest) {
+                // Within two days and 90 minutes of a transition
+                long at = transition.toEpochSecond() * 1000;
+                now = Math.min(latest, Math.max(earliest, at + between(random, -2 * DAY_MS, 2 * DAY_MS)));
+                int local = transition.getDateTimeBefore().toLocalTime().toSecondOfDay() / 60;
+                minuteOfDay = Math.floorMod(local + random.nextInt(181) - 90, RecurrenceCalculator.MINUTES_PER_DAY);
+            }
+            int dayMask = random.nextInt(AlarmRecord.ALL_DAYS + 1);
+
+            String input = "case " + i + ": zone=" + zone + " builtAt=" + Instant.ofEpochMilli(builtAt)
+                + " now=" + Instant.ofEpochMilli(now) + " minuteOfDay=" + minuteOfDay
+                + " dayMask=" + Integer.toBinaryString(dayMask);
+            assertTrue(input, calculator.covers(Math.floorDiv(now, MINUTE_MS)));
+            assertEquals(input, reference(zone, minuteOfDay, dayMask, now),
+                calculator.nextFireMillis(minuteOfDay, dayMask, now));
+        }
+    }
+
+    @Test
+    public void alarmRecordFollowsTheDefaultZone() {
+        TimeZone previous = TimeZone.getDefault();
+        Random random = new Random(SEED + 1);
+        try {
+            for (int i = 0; i < CASES / 10; i++) {
+                ZoneId zone = ZoneId.of(ZONES[random.nextInt(ZONES.length)]);
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                RecurrenceCalculator.invalidate();
+                long now = between(random, FIRST_INSTANT, LAST_INSTANT);
+                int minuteOfDay = random.nextInt(RecurrenceCalculator.MINUTES_PER_DAY);
+                int dayMask = 1 + random.nextInt(AlarmRecord.ALL_DAYS);
+                AlarmRecord record = new AlarmRecord(1, "Alarm", minuteOfDay, dayMask, true, null);
+
+                assertEquals("case " + i + ": zone=" + zone + " now=" + Instant.ofEpochMilli(now) + " " + record,
+                    reference(zone, minuteOfDay, dayMask, now), record.nextFireTime(now));
+            }
+        } finally {
+            TimeZone.setDefault(previous);
+            RecurrenceCalculator.invalidate();
+        }
+    }
+
+    @Test
+    public void emptyMaskNeverFires() {
+        RecurrenceCalculator calculator = RecurrenceCalculator.forZone(TimeZone.getTimeZone("Europe/London"),
+            FIRST_INSTANT);
+        assertEquals(-1, calculator.nextFireMillis(7 * 60, 0, FIRST_INSTANT));
+    }
+
+    /**
+     * Earliest whole minute strictly after {@code now}'s minute at which a
+     * selected weekday reaches {@code minuteOfDay} in {@code zone}, or -1.
+     * {@link ZonedDateTime#of} moves a time in a gap forward by the gap's
+     * length and picks the earlier offset in an overlap.
+     */
+    private static long reference(ZoneId zone, int minuteOfDay, int dayMask, long now) {
+        long nowMinute = Math.floorDiv(now, MINUTE_MS);
+        LocalTime time = LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+        LocalDate today = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+        long best = -1;
+        for (int d = -1; d <= 8; d++) {
+            LocalDate date = today.plusDays(d);
+            // Sunday-first, like AlarmRecord's mask
+            if ((dayMask & (1 << (date.getDayOfWeek().getValue() % 7))) == 0) {
+                continue;
+            }
+            long fire = ZonedDateTime.of(LocalDateTime.of(date, time), zone).toInstant().toEpochMilli();
+            if (fire / MINUTE_MS > nowMinute && (best < 0 || fire < best)) {
+                best = fire;
+            }
+        }
+        return best;
+    }
+
+    private static long between(Random random, long from, long until) {
+        return from + (long) (random.nextDouble() * (until - from));
+    }
+}
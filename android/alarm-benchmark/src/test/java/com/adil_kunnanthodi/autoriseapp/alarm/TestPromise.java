@@ -0,0 +1,45 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import com.facebook.react.bridge.Promise;
+
+/** Records how a bridge call settled its promise. */
+final class TestPromise implements Promise {
+    private boolean settled;
+    private Object value;
+    private String rejection;
+
+    @Override
+    public synchronized void resolve(Object value) {
+        settle();
+        this.value = value;
+    }
+
+    @Override
+    public synchronized void reject(String code, String message) {
+        settle();
+        this.rejection = code + ": " + message;
+    }
+
+    @Override
+    public synchronized void reject(String code, String message, Throwable throwable) {
+        reject(code, message);
+    }
+
+    /** The resolved value; fails if the promise was rejected or never settled. */
+    synchronized Object value() {
+        if (!settled) {
+            throw new AssertionError("Promise was not settled");
+        }
+        if (rejection != null) {
+            throw new AssertionError("Promise was rejected with " + rejection);
+        }
+        return value;
+    }
+
+    private void settle() {
+        if (settled) {
+            throw new AssertionError("Promise settled twice");
+        }
+        settled = true;
+    }
+}
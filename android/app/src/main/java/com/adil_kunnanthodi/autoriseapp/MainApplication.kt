@@ -17,34 +17,43 @@ import expo.modules.ApplicationLifecycleDispatcher
 import expo.modules.ReactNativeHostWrapper
 
 import com.adil_kunnanthodi.autoriseapp.alarm.AlarmPackage
+import com.adil_kunnanthodi.autoriseapp.alarm.AlarmProcess
 
 class MainApplication : Application(), ReactApplication {
 
-  override val reactNativeHost: ReactNativeHost = ReactNativeHostWrapper(
-        this,
-        object : DefaultReactNativeHost(this) {
-          override fun getPackages(): List<ReactPackage> {
-            val packages = PackageList(this).packages
-            // Packages that cannot be autolinked yet can be added manually here, for example:
-            // packages.add(MyReactNativePackage())
-            packages.add(AlarmPackage())
-            return packages
-          }
+  // Lazy so the :alarm process never builds the React Native host
+  override val reactNativeHost: ReactNativeHost by lazy {
+    ReactNativeHostWrapper(
+          this,
+          object : DefaultReactNativeHost(this) {
+            override fun getPackages(): List<ReactPackage> {
+              val packages = PackageList(this).packages
+              // Packages that cannot be autolinked yet can be added manually here, for example:
+              // packages.add(MyReactNativePackage())
+              packages.add(AlarmPackage())
+              return packages
+            }
 
-          override fun getJSMainModuleName(): String = ".expo/.virtual-metro-entry"
+            override fun getJSMainModuleName(): String = ".expo/.virtual-metro-entry"
 
-          override fun getUseDeveloperSupport(): Boolean = BuildConfig.DEBUG
+            override fun getUseDeveloperSupport(): Boolean = BuildConfig.DEBUG
 
-          override val isNewArchEnabled: Boolean = BuildConfig.IS_NEW_ARCHITECTURE_ENABLED
-          override val isHermesEnabled: Boolean = BuildConfig.IS_HERMES_ENABLED
-      }
-  )
+            override val isNewArchEnabled: Boolean = BuildConfig.IS_NEW_ARCHITECTURE_ENABLED
+            override val isHermesEnabled: Boolean = BuildConfig.IS_HERMES_ENABLED
+        }
+    )
+  }
 
   override val reactHost: ReactHost
     get() = ReactNativeHostWrapper.createReactHost(applicationContext, reactNativeHost)
 
   override fun onCreate() {
     super.onCreate()
+    if (AlarmProcess.isAlarmProcess(this)) {
+      // Alarm receiver, service and screen only: skip React Native, Hermes and Expo
+      AlarmProcess.onCreate(this)
+      return
+    }
     SoLoader.init(this, OpenSourceMergedSoMapping)
     if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
       // If you opted-in for the New Architecture, we load the native entry point for this app.
@@ -55,6 +64,9 @@ class MainApplication : Application(), ReactApplication {
 
   override fun onConfigurationChanged(newConfig: Configuration) {
     super.onConfigurationChanged(newConfig)
+    if (AlarmProcess.isAlarmProcess(this)) {
+      return
+    }
     ApplicationLifecycleDispatcher.onConfigurationChanged(this, newConfig)
   }
 }
@@ -0,0 +1,184 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handles the dismiss and snooze buttons on the ringing notification.
+ *
+ * Silencing from the notification never inflates {@link AlarmActivity}:
+ * the alarm's ringing session is ended directly in onReceive, leaving any
+ * other ringing alarms alone, and only the scheduler update runs on
+ * {@link AlarmExecutor}. {@link AlarmActivity}'s buttons go through the
+ * same {@link #dismiss} and {@link #snooze} paths, which also record how
+ * long the alarm rang in {@link WakeAnalytics}.
+ */
+public class AlarmActionReceiver extends BroadcastReceiver {
+    private static final String TAG = "AlarmActionReceiver";
+    static final String ACTION_DISMISS = "com.autoriseapp.ALARM_DISMISS";
+    static final String ACTION_SNOOZE = "com.autoriseapp.ALARM_SNOOZE";
+    static final String ACTION_DISMISS_ALL = "com.autoriseapp.ALARM_DISMISS_ALL";
+    private static final String EXTRA_ALARM_ID = "alarmId";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        String alarmId = intent.getStringExtra(EXTRA_ALARM_ID);
+        Context appContext = context.getApplicationContext();
+
+        if (ACTION_DISMISS.equals(action)) {
+            Log.d(TAG, "Alarm dismissed from notification: " + alarmId);
+            RingEnd end = stopRinging(appContext, alarmId);
+            AlarmExecutor.executeAsync(goAsync(), "dismiss action",
+                () -> applyDismiss(appContext, alarmId, end));
+        } else if (ACTION_SNOOZE.equals(action)) {
+            Log.d(TAG, "Alarm snoozed from notification: " + alarmId);
+            RingEnd end = stopRinging(appContext, alarmId);
+            AlarmExecutor.executeAsync(goAsync(), "snooze action",
+                () -> applySnooze(appContext, alarmId, end));
+        } else if (ACTION_DISMISS_ALL.equals(action)) {
+            RingingSessionManager sessions = RingingSessionManager.get();
+            List<RingEnd> ends = new ArrayList<>();
+            for (RingingSessionManager.Session session : sessions.sessions()) {
+                ends.add(new RingEnd(session));
+            }
+            Log.d(TAG, "Dismissing " + ends.size() + " alarms from notification");
+            sessions.endAll();
+            appContext.stopService(new Intent(appContext, AlarmService.class));
+            AlarmExecutor.executeAsync(goAsync(), "dismiss all action", () -> {
+                for (RingEnd end : ends) {
+                    applyDismiss(appContext, end.alarmId, end);
+                }
+            });
+        }
+    }
+
+    /** Broadcast for a notification action button on {@code alarmId}. */
+    static PendingIntent actionIntent(Context context, String action, String alarmId) {
+        // alarmId is null for ACTION_DISMISS_ALL
+        Intent intent = new Intent(context, AlarmActionReceiver.class);
+        intent.setAction(action);
+        intent.putExtra(EXTRA_ALARM_ID, alarmId);
+        return PendingIntent.getBroadcast(
+            context,
+            requestCode(alarmId),
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    static int requestCode(String alarmId) {
+        return alarmId != null ? alarmId.hashCode() : 0;
+    }
+
+    /** Silences {@code alarmId} now and drops any outstanding snooze in the background. */
+    static void dismiss(Context context, String alarmId) {
+        Context appContext = context.getApplicationContext();
+        RingEnd end = stopRinging(appContext, alarmId);
+        AlarmExecutor.execute(() -> applyDismiss(appContext, alarmId, end));
+    }
+
+    /** Silences {@code alarmId} now and schedules the snooze re-fire in the background. */
+    static void snooze(Context context, String alarmId) {
+        Context appContext = context.getApplicationContext();
+        RingEnd end = stopRinging(appContext, alarmId);
+        AlarmExecutor.execute(() -> applySnooze(appContext, alarmId, end));
+    }
+
+    /**
+     * Dismisses sessions the {@link RingingSessionManager.Policy#REPLACE}
+     * policy already ended, so they drop their snoozes and are recorded
+     * like a dismiss from the screen or notification.
+     */
+    static void dismissReplaced(Context context, List<RingingSessionManager.Session> replaced) {
+        Context appContext = context.getApplicationContext();
+        List<RingEnd> ends = new ArrayList<>();
+        for (RingingSessionManager.Session session : replaced) {
+            ends.add(new RingEnd(session));
+        }
+        AlarmExecutor.execute(() -> {
+            for (RingEnd end : ends) {
+                applyDismiss(appContext, end.alarmId, end);
+            }
+        });
+    }
+
+    /** How long a session rang before the user acted, for {@link WakeAnalytics}. */
+    private static final class RingEnd {
+        final String alarmId;
+        final long ringMs;
+        final int snoozeCount;
+
+        RingEnd(RingingSessionManager.Session session) {
+            this.alarmId = session.alarmId;
+            this.ringMs = SystemClock.elapsedRealtime() - session.startedAt;
+            this.snoozeCount = session.snoozeCount;
+        }
+    }
+
+    /**
+     * Ends {@code alarmId}'s ringing session; the service stops itself once
+     * none are left. Returns how it rang, or null if it was not ringing.
+     */
+    private static RingEnd stopRinging(Context context, String alarmId) {
+        RingingSessionManager sessions = RingingSessionManager.get();
+        RingingSessionManager.Session session = sessions.find(alarmId);
+        RingEnd end = session != null ? new RingEnd(session) : null;
+        sessions.end(alarmId);
+        if (sessions.isEmpty()) {
+            // Also covers a service whose sessions were lost with an earlier process
+            context.stopService(new Intent(context, AlarmService.class));
+        }
+        return end;
+    }
+
+    private static void applyDismiss(Context context, String alarmId, RingEnd end) {
+        // The scheduler notifies JS
+        int id = parseAlarmId(alarmId);
+        if (id >= 0) {
+            AlarmScheduler.getInstance(context).dismiss(id);
+            if (end != null) {
+                WakeAnalytics.get(context).dismissed(id, System.currentTimeMillis(), end.ringMs, end.snoozeCount);
+            }
+        }
+    }
+
+    private static void applySnooze(Context context, String alarmId, RingEnd end) {
+        int id = parseAlarmId(alarmId);
+        if (id < 0) {
+            Log.w(TAG, "Cannot snooze unknown alarm " + alarmId);
+            return;
+        }
+        // Re-fire through the alarm's snooze slot in the scheduler, which notifies JS
+        SnoozePolicy policy = SnoozePolicy.load(context);
+        long now = System.currentTimeMillis();
+        long refireAt = AlarmScheduler.getInstance(context).snooze(id, policy, now);
+        if (refireAt < 0) {
+            // The session is already over, so a snooze past the limit counts as a dismiss
+            Log.w(TAG, "Snooze limit reached for alarm " + id + ", dismissing");
+            applyDismiss(context, alarmId, end);
+        } else if (end != null) {
+            WakeAnalytics.get(context).snoozed(id, now, end.ringMs, end.snoozeCount + 1);
+        }
+    }
+
+    /** Parses the alarm ID, including the {@code <id>_snooze_<time>} form older snoozes used. */
+    static int parseAlarmId(String alarmId) {
+        if (alarmId == null) {
+            return -1;
+        }
+        int end = alarmId.indexOf('_');
+        try {
+            return Integer.parseInt(end >= 0 ? alarmId.substring(0, end) : alarmId);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
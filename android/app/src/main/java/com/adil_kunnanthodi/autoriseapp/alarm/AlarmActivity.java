@@ -1,54 +1,99 @@
 package com.adil_kunnanthodi.autoriseapp.alarm;
 
 import android.app.Activity;
-import android.app.AlarmManager;
 import android.app.KeyguardManager;
-import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.TextView;
 import android.util.Log;
 
-public class AlarmActivity extends Activity {
+import com.adil_kunnanthodi.autoriseapp.R;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Full-screen ringing UI shown over the lock screen.
+ *
+ * Startup is kept to what the first frame needs: the layout is inflated
+ * from {@code R.layout.activity_alarm}, the snooze policy arrives as intent
+ * extras read off the main thread by {@link AlarmReceiver}, and the clock
+ * formatter is cached across launches. Keyguard dismissal and other work
+ * the user does not see waits until the first frame has been drawn, which
+ * is also where {@link AlarmMetrics#RECEIVER_TO_FIRST_FRAME_MS} is taken.
+ */
+public class AlarmActivity extends Activity implements RingingSessionManager.Listener {
     private static final String TAG = "AlarmActivity";
+
+    static final String EXTRA_RECEIVED_AT = "receivedAt";
+    static final String EXTRA_SNOOZE_MINUTES = "snoozeMinutes";
+    static final String EXTRA_CAN_SNOOZE = "canSnooze";
+
+    // Reused across launches; only touched under the class lock
+    private static SimpleDateFormat timeFormat;
+    private static Locale timeFormatLocale;
+    private static TimeZone timeFormatZone;
+
     private String alarmId;
     private String alarmLabel;
+    private int snoozeCount;
+    private long createdAt;
+    private boolean firstFrameDrawn;
+
+    /**
+     * Builds the clock formatter ahead of the activity launch so the first
+     * onCreate skips locale and time zone data loading. Safe on any thread.
+     */
+    static void warmUp() {
+        formatTime(System.currentTimeMillis());
+    }
 
-    @Override
-    protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        
-        Log.d(TAG, "Alarm activity created");
-        
-        // Show over lock screen
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
-            setShowWhenLocked(true);
-            setTurnScreenOn(true);
-        } else {
-            getWindow().addFlags(
-                WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED |
-                WindowManager.LayoutParams.FLAG_TURN_SCREEN_ON |
-                WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON
-            );
+    static synchronized String formatTime(long timeMillis) {
+        Locale locale = Locale.getDefault();
+        TimeZone zone = TimeZone.getDefault();
+        if (timeFormat == null || !locale.equals(timeFormatLocale) || !zone.equals(timeFormatZone)) {
+            timeFormat = new SimpleDateFormat("HH:mm", locale);
+            timeFormat.setTimeZone(zone);
+            timeFormatLocale = locale;
+            timeFormatZone = zone;
         }
+        return timeFormat.format(new Date(timeMillis));
+    }
 
-        // Dismiss keyguard
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            KeyguardManager keyguardManager = (KeyguardManager) getSystemService(Context.KEYGUARD_SERVICE);
-            keyguardManager.requestDismissKeyguard(this, null);
-        } else {
-            getWindow().addFlags(WindowManager.LayoutParams.FLAG_DISMISS_KEYGUARD);
-        }
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        Trace.beginSection("AlarmActivity.onCreate");
+        try {
+            createdAt = SystemClock.elapsedRealtime();
+            super.onCreate(savedInstanceState);
+            AlarmMetrics.attach(this);
+            
+            Log.d(TAG, "Alarm activity created");
+            
+            // Show over lock screen
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                setShowWhenLocked(true);
+                setTurnScreenOn(true);
+            } else {
+                getWindow().addFlags(
+                    WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED |
+                    WindowManager.LayoutParams.FLAG_TURN_SCREEN_ON |
+                    WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON |
+                    WindowManager.LayoutParams.FLAG_DISMISS_KEYGUARD
+                );
+            }
 
-        // Make it full screen and immersive
-        getWindow().addFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN);
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Full screen comes from the theme; hide the navigation bar too
             getWindow().getDecorView().setSystemUiVisibility(
                 View.SYSTEM_UI_FLAG_LAYOUT_STABLE |
                 View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION |
@@ -57,144 +102,128 @@ public class AlarmActivity extends Activity {
                 View.SYSTEM_UI_FLAG_FULLSCREEN |
                 View.SYSTEM_UI_FLAG_IMMERSIVE_STICKY
             );
+
+            setContentView(R.layout.activity_alarm);
+            findViewById(R.id.alarm_dismiss).setOnClickListener(v -> dismissAlarm());
+            findViewById(R.id.alarm_snooze).setOnClickListener(v -> snoozeAlarm());
+            bindAlarm(getIntent());
+            RingingSessionManager.get().addListener(this);
+            
+            watchFirstFrame(getIntent().getLongExtra(EXTRA_RECEIVED_AT, 0));
+        } finally {
+            Trace.endSection();
         }
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        // Another alarm fired while this one is showing
+        setIntent(intent);
+        bindAlarm(intent);
+    }
 
-        // Get alarm details
-        Intent intent = getIntent();
+    /**
+     * Follows the ringing sessions: shows whichever alarm is now in front
+     * and closes once the last one has been silenced, including from the
+     * notification.
+     */
+    @Override
+    public void onSessionsChanged() {
+        RingingSessionManager.Session front = RingingSessionManager.get().front();
+        if (front == null) {
+            finish();
+        } else if (!front.alarmId.equals(alarmId)) {
+            Intent intent = new Intent(this, AlarmActivity.class);
+            front.putExtras(intent);
+            setIntent(intent);
+            bindAlarm(intent);
+        }
+    }
+
+    private void bindAlarm(Intent intent) {
         alarmId = intent.getStringExtra("alarmId");
         alarmLabel = intent.getStringExtra("label");
-        
-        createAlarmUI();
+        snoozeCount = intent.getIntExtra("snoozeCount", 0);
+
+        int snoozeMinutes;
+        boolean canSnooze;
+        if (intent.hasExtra(EXTRA_SNOOZE_MINUTES)) {
+            snoozeMinutes = intent.getIntExtra(EXTRA_SNOOZE_MINUTES, SnoozePolicy.DEFAULT_DURATION_MINUTES);
+            canSnooze = intent.getBooleanExtra(EXTRA_CAN_SNOOZE, true);
+        } else {
+            // Launched without the receiver's extras; read the prefs here
+            SnoozePolicy policy = SnoozePolicy.load(this);
+            snoozeMinutes = policy.durationMinutes;
+            canSnooze = policy.canSnooze(snoozeCount);
+        }
+
+        ((TextView) findViewById(R.id.alarm_time)).setText(formatTime(System.currentTimeMillis()));
+        ((TextView) findViewById(R.id.alarm_label))
+            .setText(alarmLabel != null ? alarmLabel : getString(R.string.alarm_default_label));
+        Button snoozeButton = findViewById(R.id.alarm_snooze);
+        snoozeButton.setText(getString(R.string.alarm_snooze, snoozeMinutes));
+        snoozeButton.setVisibility(canSnooze ? View.VISIBLE : View.GONE);
     }
 
-    private void createAlarmUI() {
-        // Create simple layout programmatically
-        android.widget.LinearLayout layout = new android.widget.LinearLayout(this);
-        layout.setOrientation(android.widget.LinearLayout.VERTICAL);
-        layout.setGravity(android.view.Gravity.CENTER);
-        layout.setBackgroundColor(0xFF1976D2); // Blue background
-        layout.setPadding(50, 100, 50, 100);
-
-        // Alarm time display
-        TextView timeText = new TextView(this);
-        timeText.setText(new java.text.SimpleDateFormat("HH:mm", java.util.Locale.getDefault())
-                        .format(new java.util.Date()));
-        timeText.setTextSize(72);
-        timeText.setTextColor(0xFFFFFFFF);
-        timeText.setGravity(android.view.Gravity.CENTER);
-        timeText.setTypeface(null, android.graphics.Typeface.BOLD);
-
-        // Alarm label
-        TextView labelText = new TextView(this);
-        labelText.setText(alarmLabel != null ? alarmLabel : "Alarm");
-        labelText.setTextSize(24);
-        labelText.setTextColor(0xFFFFFFFF);
-        labelText.setGravity(android.view.Gravity.CENTER);
-        labelText.setPadding(0, 20, 0, 60);
-
-        // Dismiss button
-        Button dismissButton = new Button(this);
-        dismissButton.setText("DISMISS");
-        dismissButton.setTextSize(18);
-        dismissButton.setBackgroundColor(0xFFf44336); // Red
-        dismissButton.setTextColor(0xFFFFFFFF);
-        dismissButton.setPadding(40, 20, 40, 20);
-        dismissButton.setOnClickListener(v -> dismissAlarm());
-
-        // Snooze button
-        Button snoozeButton = new Button(this);
-        snoozeButton.setText("SNOOZE (5 MIN)");
-        snoozeButton.setTextSize(18);
-        snoozeButton.setBackgroundColor(0xFF4CAF50); // Green
-        snoozeButton.setTextColor(0xFFFFFFFF);
-        snoozeButton.setPadding(40, 20, 40, 20);
-        snoozeButton.setOnClickListener(v -> snoozeAlarm());
-
-        // Button container
-        android.widget.LinearLayout buttonLayout = new android.widget.LinearLayout(this);
-        buttonLayout.setOrientation(android.widget.LinearLayout.HORIZONTAL);
-        buttonLayout.setGravity(android.view.Gravity.CENTER);
-        
-        android.widget.LinearLayout.LayoutParams buttonParams = 
-            new android.widget.LinearLayout.LayoutParams(
-                android.widget.LinearLayout.LayoutParams.WRAP_CONTENT,
-                android.widget.LinearLayout.LayoutParams.WRAP_CONTENT
-            );
-        buttonParams.setMargins(20, 20, 20, 20);
-        
-        buttonLayout.addView(dismissButton, buttonParams);
-        buttonLayout.addView(snoozeButton, buttonParams);
+    /**
+     * Runs {@link #onFirstFrame} once the decor view has drawn. Draw
+     * listeners cannot be removed from inside onDraw, so the work is posted
+     * to run right after the traversal that drew the frame.
+     */
+    private void watchFirstFrame(long receivedAt) {
+        View decor = getWindow().getDecorView();
+        ViewTreeObserver.OnDrawListener listener = new ViewTreeObserver.OnDrawListener() {
+            @Override
+            public void onDraw() {
+                if (firstFrameDrawn) {
+                    return;
+                }
+                firstFrameDrawn = true;
+                ViewTreeObserver.OnDrawListener self = this;
+                decor.post(() -> {
+                    ViewTreeObserver observer = decor.getViewTreeObserver();
+                    if (observer.isAlive()) {
+                        observer.removeOnDrawListener(self);
+                    }
+                    onFirstFrame(receivedAt);
+                });
+            }
+        };
+        decor.getViewTreeObserver().addOnDrawListener(listener);
+    }
 
-        // Add views to layout
-        layout.addView(timeText);
-        layout.addView(labelText);
-        layout.addView(buttonLayout);
+    private void onFirstFrame(long receivedAt) {
+        long now = SystemClock.elapsedRealtime();
+        if (receivedAt > 0) {
+            AlarmMetrics.record(AlarmMetrics.RECEIVER_TO_FIRST_FRAME_MS, now - receivedAt,
+                "create_to_frame=" + (now - createdAt) + " alarm=" + alarmId);
+        }
+        reportFullyDrawn();
 
-        setContentView(layout);
+        // Asking to unlock is not needed to show the alarm, so it waits for the frame
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && !isFinishing()) {
+            KeyguardManager keyguardManager = (KeyguardManager) getSystemService(Context.KEYGUARD_SERVICE);
+            keyguardManager.requestDismissKeyguard(this, null);
+        }
     }
 
     private void dismissAlarm() {
         Log.d(TAG, "Alarm dismissed: " + alarmId);
-        
-        // Stop the alarm service
-        Intent serviceIntent = new Intent(this, AlarmService.class);
-        stopService(serviceIntent);
-        
-        // Broadcast alarm dismissed event
-        Intent broadcastIntent = new Intent("com.autorise.ALARM_DISMISSED");
-        broadcastIntent.putExtra("alarmId", alarmId);
-        sendBroadcast(broadcastIntent);
-        
-        finish();
+        AlarmActionReceiver.dismiss(this, alarmId);
+        showNextOrFinish();
     }
 
     private void snoozeAlarm() {
         Log.d(TAG, "Alarm snoozed: " + alarmId);
-        
-        // Stop current alarm service
-        Intent serviceIntent = new Intent(this, AlarmService.class);
-        stopService(serviceIntent);
-        
-        // Schedule snooze alarm (5 minutes)
-        scheduleSnoozeAlarm();
-        
-        // Broadcast alarm snoozed event
-        Intent broadcastIntent = new Intent("com.autorise.ALARM_SNOOZED");
-        broadcastIntent.putExtra("alarmId", alarmId);
-        sendBroadcast(broadcastIntent);
-        
-        finish();
+        AlarmActionReceiver.snooze(this, alarmId);
+        showNextOrFinish();
     }
 
-    private void scheduleSnoozeAlarm() {
-        try {
-            long snoozeTime = System.currentTimeMillis() + (5 * 60 * 1000); // 5 minutes
-            String snoozeId = alarmId + "_snooze_" + System.currentTimeMillis();
-            
-            AlarmManager alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
-            
-            Intent intent = new Intent(this, AlarmReceiver.class);
-            intent.putExtra("alarmId", snoozeId);
-            intent.putExtra("label", alarmLabel + " (Snoozed)");
-            intent.setAction("ALARM_TRIGGER_" + snoozeId);
-            
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                this,
-                snoozeId.hashCode(),
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, snoozeTime, pendingIntent);
-            } else {
-                alarmManager.setExact(AlarmManager.RTC_WAKEUP, snoozeTime, pendingIntent);
-            }
-            
-            Log.d(TAG, "Snooze alarm scheduled for: " + new java.util.Date(snoozeTime));
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error scheduling snooze alarm", e);
+    private void showNextOrFinish() {
+        // Usually already done by the session change, unless this screen showed a stale alarm
+        if (!isFinishing()) {
+            onSessionsChanged();
         }
     }
 
@@ -207,6 +236,7 @@ public class AlarmActivity extends Activity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        RingingSessionManager.get().removeListener(this);
         Log.d(TAG, "Alarm activity destroyed");
     }
 }
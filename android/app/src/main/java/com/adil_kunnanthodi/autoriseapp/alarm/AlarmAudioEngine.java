@@ -0,0 +1,255 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Instant-start playback path for alarm tones.
+ *
+ * Tones are decoded to PCM once ({@link ToneDecoder}) and cached under
+ * {@code files/tone_cache}, keyed by sound ID: a {@code res/raw} name or an
+ * {@link AlarmSoundLibrary} import. Cached files are memory-mapped rather
+ * than read, and a small LRU keeps recently used tones mapped so
+ * back-to-back alarms and snoozes skip even that. At fire time the tone is
+ * streamed through an {@link AudioTrack}, so there is no MediaPlayer
+ * setDataSource/prepare between the wakeup and the first sample. If the
+ * tone is not cached yet, {@link #start} returns false so the caller can
+ * fall back to MediaPlayer, and a background decode fills the cache for
+ * the next fire.
+ */
+final class AlarmAudioEngine {
+    private static final String TAG = "AlarmAudioEngine";
+    static final String DEFAULT_TONE = "alarm_default";
+    private static final String CACHE_DIR = "tone_cache";
+    private static final int WRITE_CHUNK_BYTES = 16 * 1024;
+    private static final int LOADED_TONES_MAX_KB = 24 * 1024;
+
+    // Mapped tones by sound ID, bounded by PCM size
+    private static final LruCache<String, PcmTone> loadedTones = new LruCache<String, PcmTone>(LOADED_TONES_MAX_KB) {
+        @Override
+        protected int sizeOf(String soundId, PcmTone tone) {
+            return tone.pcm.capacity() / 1024 + 1;
+        }
+    };
+
+    private final Context context;
+    private final AudioAttributes audioAttributes;
+    private AudioTrack audioTrack;
+    private Thread playbackThread;
+    private volatile boolean playing;
+
+    AlarmAudioEngine(Context context, AudioAttributes audioAttributes) {
+        this.context = context.getApplicationContext();
+        this.audioAttributes = audioAttributes;
+    }
+
+    /** Decodes and caches the default tone in the background if it is not cached yet. */
+    static void warmUp(Context context) {
+        warmUp(context, DEFAULT_TONE);
+    }
+
+    /** Decodes and caches {@code soundId} in the background if it is not cached yet. */
+    static void warmUp(Context context, String soundId) {
+        Context appContext = context.getApplicationContext();
+        AlarmExecutor.executeBackground(() -> {
+            try {
+                ensureCached(appContext, soundId);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not pre-decode alarm tone " + soundId, e);
+            }
+        });
+    }
+
+    /** Returns the decoded tone from memory or the disk cache, or null if it has never been decoded. */
+    static PcmTone getCached(Context context, String toneName) {
+        PcmTone tone = loadedTones.get(toneName);
+        if (tone != null) {
+            return tone;
+        }
+        File file = cacheFile(context, toneName);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            tone = PcmTone.readFrom(file);
+            loadedTones.put(toneName, tone);
+            return tone;
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable tone cache " + file, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Decodes {@code toneName} from res/raw or the imported sounds into the
+     * cache unless an up-to-date copy exists.
+     */
+    static PcmTone ensureCached(Context context, String toneName) throws IOException {
+        int resId = context.getResources().getIdentifier(toneName, "raw", context.getPackageName());
+        if (resId != 0) {
+            try (AssetFileDescriptor afd = context.getResources().openRawResourceFd(resId)) {
+                return decodeIfStale(context, toneName, afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+            }
+        }
+        File imported = AlarmSoundLibrary.importedFile(context, toneName);
+        if (imported != null) {
+            try (FileInputStream in = new FileInputStream(imported)) {
+                return decodeIfStale(context, toneName, in.getFD(), 0, imported.length());
+            }
+        }
+        throw new IOException("No sound named " + toneName);
+    }
+
+    private static PcmTone decodeIfStale(Context context, String toneName, FileDescriptor fd, long offset, long length)
+            throws IOException {
+        PcmTone cached = getCached(context, toneName);
+        if (cached != null && cached.sourceLength == length) {
+            return cached;
+        }
+        long start = SystemClock.elapsedRealtime();
+        PcmTone tone = ToneDecoder.decode(fd, offset, length);
+        File file = cacheFile(context, toneName);
+        tone.writeTo(file);
+        // Serve from the mapping so the decoded heap copy can be collected
+        tone = PcmTone.readFrom(file);
+        loadedTones.put(toneName, tone);
+        Log.d(TAG, "Cached " + toneName + " in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return tone;
+    }
+
+    private static File cacheFile(Context context, String toneName) {
+        File dir = new File(context.getFilesDir(), CACHE_DIR);
+        if (!dir.isDirectory()) {
+            dir.mkdirs();
+        }
+        return new File(dir, toneName + ".pcm");
+    }
+
+    /**
+     * Starts looping {@code toneName} from the PCM cache at {@code volume}
+     * (0-1, relative to the alarm stream volume). {@code requestedAt}
+     * is the {@link SystemClock#elapsedRealtime()} the fire was handled at and
+     * {@code receivedAt} the one its broadcast arrived at (0 if unknown);
+     * both are used to record the time to first audible sample.
+     *
+     * @return false if the tone is not cached or the AudioTrack could not be
+     *         created; the caller should fall back to MediaPlayer.
+     */
+    boolean start(String toneName, float volume, long requestedAt, long receivedAt) {
+        PcmTone tone = getCached(context, toneName);
+        if (tone == null) {
+            Log.d(TAG, "Tone " + toneName + " not cached yet, decoding in background");
+            warmUp(context, toneName);
+            return false;
+        }
+        stop();
+
+        try {
+            int channelMask = tone.channelCount == 1 ? AudioFormat.CHANNEL_OUT_MONO : AudioFormat.CHANNEL_OUT_STEREO;
+            int minBuffer = AudioTrack.getMinBufferSize(tone.sampleRate, channelMask, AudioFormat.ENCODING_PCM_16BIT);
+            AudioTrack track = new AudioTrack.Builder()
+                .setAudioAttributes(audioAttributes)
+                .setAudioFormat(new AudioFormat.Builder()
+                    .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                    .setSampleRate(tone.sampleRate)
+                    .setChannelMask(channelMask)
+                    .build())
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .setBufferSizeInBytes(Math.max(minBuffer, WRITE_CHUNK_BYTES))
+                .build();
+            if (track.getState() != AudioTrack.STATE_INITIALIZED) {
+                track.release();
+                return false;
+            }
+
+            track.setVolume(volume);
+            track.setNotificationMarkerPosition(1);
+            track.setPlaybackPositionUpdateListener(new AudioTrack.OnPlaybackPositionUpdateListener() {
+                @Override
+                public void onMarkerReached(AudioTrack t) {
+                    AlarmMetrics.soundStarted("pcm_cache", requestedAt, receivedAt);
+                }
+
+                @Override
+                public void onPeriodicNotification(AudioTrack t) {
+                }
+            }, new Handler(Looper.getMainLooper()));
+
+            audioTrack = track;
+            playing = true;
+            playbackThread = new Thread(() -> streamLoop(track, tone.pcm), "AutoRise-tone");
+            playbackThread.setPriority(Thread.MAX_PRIORITY);
+            playbackThread.start();
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error starting PCM playback", e);
+            stop();
+            return false;
+        }
+    }
+
+    private void streamLoop(AudioTrack track, ByteBuffer pcm) {
+        try {
+            track.play();
+            while (playing) {
+                ByteBuffer data = pcm.duplicate();
+                data.rewind();
+                while (playing && data.hasRemaining()) {
+                    int written = track.write(data, Math.min(WRITE_CHUNK_BYTES, data.remaining()),
+                        AudioTrack.WRITE_BLOCKING);
+                    if (written < 0) {
+                        Log.e(TAG, "AudioTrack write failed: " + written);
+                        return;
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            // Track was released by stop()
+        }
+    }
+
+    boolean isPlaying() {
+        return playing;
+    }
+
+    void stop() {
+        playing = false;
+        AudioTrack track = audioTrack;
+        audioTrack = null;
+        if (track != null) {
+            try {
+                track.pause();
+                track.flush();
+            } catch (IllegalStateException e) {
+                // Never started
+            }
+        }
+        Thread thread = playbackThread;
+        playbackThread = null;
+        if (thread != null) {
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (track != null) {
+            track.release();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.core.content.ContextCompat;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Push channel for alarm lifecycle events to JS.
+ *
+ * Events are posted from any thread and delivered through
+ * {@code RCTDeviceEventEmitter} as a single {@link #EVENT_NAME} event whose
+ * payload is an array of {@code {type, alarmId, timestamp, ...}} items.
+ * Posts within {@link #COALESCE_MS} of each other go out together, and a
+ * newer event for the same alarm and type replaces the older one. While no
+ * React instance is attached or nothing listens, events are kept (up to
+ * {@link #MAX_BUFFERED}) and flushed once JS adds a listener.
+ *
+ * The {@link AlarmProcess :alarm} process has no React instance; there
+ * each batch is sent as an {@link #ACTION_FORWARD} broadcast to the app
+ * process instead, which posts it again on this side. If the app process
+ * is not running the broadcast is dropped, as JS reloads all state when it
+ * starts anyway.
+ */
+final class AlarmEvents {
+    private static final String TAG = "AlarmEvents";
+    static final String EVENT_NAME = "AutoRiseAlarmEvents";
+    private static final long COALESCE_MS = 50;
+    private static final int MAX_BUFFERED = 128;
+    static final String ACTION_FORWARD = "com.autoriseapp.ALARM_EVENTS";
+
+    static final String FIRED = "fired";
+    static final String SNOOZED = "snoozed";
+    static final String DISMISSED = "dismissed";
+    static final String RESCHEDULED = "rescheduled";
+    static final String MISSED = "missed";
+    static final String IMPORT_PROGRESS = "importProgress";
+    static final String EXPORT_PROGRESS = "exportProgress";
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Runnable flushTask = AlarmEvents::flush;
+
+    // Pending events keyed by type and alarm ID, oldest first
+    private static final LinkedHashMap<String, Event> pending = new LinkedHashMap<>();
+    private static ReactApplicationContext reactContext;
+    // Set in the :alarm process, where batches go to the app process instead of JS
+    private static Context forwardContext;
+    private static boolean receiving;
+    private static int listenerCount;
+    private static boolean flushScheduled;
+
+    private static final class Event {
+        final String type;
+        final int alarmId;
+        final long timestamp;
+        final long time;
+        final int count;
+
+        Event(String type, int alarmId, long time, int count) {
+            this(type, alarmId, System.currentTimeMillis(), time, count);
+        }
+
+        Event(String type, int alarmId, long timestamp, long time, int count) {
+            this.type = type;
+            this.alarmId = alarmId;
+            this.timestamp = timestamp;
+            this.time = time;
+            this.count = count;
+        }
+    }
+
+    private AlarmEvents() {}
+
+    /** An alarm started ringing; {@code snoozeCount} is non-zero for a snooze re-fire. */
+    static void fired(int alarmId, int snoozeCount) {
+        post(new Event(FIRED, alarmId, -1, snoozeCount));
+    }
+
+    static void snoozed(int alarmId, long refireAt, int snoozeCount) {
+        post(new Event(SNOOZED, alarmId, refireAt, snoozeCount));
+    }
+
+    static void dismissed(int alarmId) {
+        post(new Event(DISMISSED, alarmId, -1, 0));
+    }
+
+    /**
+     * {@code alarmId}'s next fire moved to {@code nextFireTime}. An ID of -1
+     * means the whole schedule was rebuilt and {@code count} alarms are queued.
+     */
+    static void rescheduled(int alarmId, long nextFireTime, int count) {
+        post(new Event(RESCHEDULED, alarmId, nextFireTime, count));
+    }
+
+    /** {@code alarmId} never rang for {@code scheduledFor}; {@code caughtUp} if it is ringing late instead. */
+    static void missed(int alarmId, long scheduledFor, boolean caughtUp) {
+        post(new Event(MISSED, alarmId, scheduledFor, caughtUp ? 1 : 0));
+    }
+
+    /** {@link AlarmTransfer} has read {@code processed} alarms; {@code percent} is -1 if the size is unknown. */
+    static void importProgress(int processed, int percent) {
+        post(new Event(IMPORT_PROGRESS, -1, percent, processed));
+    }
+
+    static void exportProgress(int processed, int percent) {
+        post(new Event(EXPORT_PROGRESS, -1, percent, processed));
+    }
+
+    static synchronized void attach(ReactApplicationContext context) {
+        reactContext = context;
+        if (!receiving) {
+            receiving = true;
+            ContextCompat.registerReceiver(context.getApplicationContext(), new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    receive(intent);
+                }
+            }, new IntentFilter(ACTION_FORWARD), ContextCompat.RECEIVER_NOT_EXPORTED);
+        }
+    }
+
+    /** Sends this process's events to the app process instead of JS; see the class comment. */
+    static synchronized void forwardTo(Context context) {
+        forwardContext = context.getApplicationContext();
+        scheduleFlush();
+    }
+
+    /** Posts a batch forwarded from the :alarm process, keeping its timestamps. */
+    private static void receive(Intent intent) {
+        String[] types = intent.getStringArrayExtra("types");
+        int[] alarmIds = intent.getIntArrayExtra("alarmIds");
+        long[] timestamps = intent.getLongArrayExtra("timestamps");
+        long[] times = intent.getLongArrayExtra("times");
+        int[] counts = intent.getIntArrayExtra("counts");
+        if (types == null || alarmIds == null || timestamps == null || times == null || counts == null) {
+            return;
+        }
+        for (int i = 0; i < types.length; i++) {
+            post(new Event(types[i], alarmIds[i], timestamps[i], times[i], counts[i]));
+        }
+    }
+
+    static synchronized void onListenerAdded() {
+        listenerCount++;
+        scheduleFlush();
+    }
+
+    static synchronized void onListenersRemoved(int count) {
+        listenerCount = Math.max(0, listenerCount - count);
+    }
+
+    private static synchronized void post(Event event) {
+        String key = event.type + ':' + event.alarmId;
+        pending.remove(key);
+        pending.put(key, event);
+        if (pending.size() > MAX_BUFFERED) {
+            Iterator<String> oldest = pending.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        scheduleFlush();
+    }
+
+    private static void scheduleFlush() {
+        if (!flushScheduled && canDeliver()) {
+            flushScheduled = true;
+            mainHandler.postDelayed(flushTask, COALESCE_MS);
+        }
+    }
+
+    private static boolean canDeliver() {
+        return forwardContext != null
+            || (reactContext != null && listenerCount > 0 && reactContext.hasActiveReactInstance());
+    }
+
+    private static void flush() {
+        List<Event> batch;
+        ReactApplicationContext context;
+        Context forward;
+        synchronized (AlarmEvents.class) {
+            flushScheduled = false;
+            if (pending.isEmpty() || !canDeliver()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            context = reactContext;
+            forward = forwardContext;
+        }
+        if (forward != null) {
+            forward(forward, batch);
+            return;
+        }
+
+        WritableArray payload = new WritableNativeArray();
+        for (Event event : batch) {
+            payload.pushMap(toWritableMap(event));
+        }
+        try {
+            context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(EVENT_NAME, payload);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Dropping " + batch.size() + " alarm events", e);
+        }
+    }
+
+    private static void forward(Context context, List<Event> batch) {
+        int size = batch.size();
+        String[] types = new String[size];
+        int[] alarmIds = new int[size];
+        long[] timestamps = new long[size];
+        long[] times = new long[size];
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            Event event = batch.get(i);
+            types[i] = event.type;
+            alarmIds[i] = event.alarmId;
+            timestamps[i] = event.timestamp;
+            times[i] = event.time;
+            counts[i] = event.count;
+        }
+        Intent intent = new Intent(ACTION_FORWARD)
+            .setPackage(context.getPackageName())
+            .putExtra("types", types)
+            .putExtra("alarmIds", alarmIds)
+            .putExtra("timestamps", timestamps)
+            .putExtra("times", times)
+            .putExtra("counts", counts);
+        context.sendBroadcast(intent);
+    }
+
+    private static WritableMap toWritableMap(Event event) {
+        WritableMap map = new WritableNativeMap();
+        map.putString("type", event.type);
+        map.putInt("alarmId", event.alarmId);
+        map.putDouble("timestamp", event.timestamp);
+        switch (event.type) {
+            case FIRED:
+                map.putInt("snoozeCount", event.count);
+                break;
+            case SNOOZED:
+                map.putDouble("refireAt", event.time);
+                map.putInt("snoozeCount", event.count);
+                break;
+            case RESCHEDULED:
+                map.putDouble("nextFireTime", event.time);
+                if (event.alarmId < 0) {
+                    map.putInt("count", event.count);
+                }
+                break;
+            case MISSED:
+                map.putDouble("scheduledFor", event.time);
+                map.putBoolean("caughtUp", event.count != 0);
+                break;
+            case IMPORT_PROGRESS:
+            case EXPORT_PROGRESS:
+                map.putInt("processed", event.count);
+                map.putInt("percent", (int) event.time);
+                break;
+            default:
+                break;
+        }
+        return map;
+    }
+}
@@ -0,0 +1,83 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.BroadcastReceiver;
+import android.util.Log;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background pools for native alarm work that must not run on the main
+ * thread.
+ *
+ * {@link #execute} is the fire path: receiver broadcasts, ringing actions,
+ * scheduling and playback setup. {@link #executeBackground} takes bulk and
+ * best-effort work (imports and exports, tone decoding, metrics and
+ * analytics queries) on its own threads, so a long import never holds up
+ * an alarm. Both queue work when their threads are busy instead of running
+ * it on the submitting thread, which may be the main thread; a pool that
+ * has been shut down rejects loudly with
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ */
+final class AlarmExecutor {
+    private static final String TAG = "AlarmExecutor";
+    private static final int FIRE_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int BACKGROUND_THREADS = 2;
+
+    private static final ThreadPoolExecutor FIRE = newPool("AutoRise-alarm-", FIRE_THREADS,
+        Thread.NORM_PRIORITY + 1);
+    private static final ThreadPoolExecutor BACKGROUND = newPool("AutoRise-bulk-", BACKGROUND_THREADS,
+        Thread.NORM_PRIORITY - 1);
+
+    private AlarmExecutor() {}
+
+    private static ThreadPoolExecutor newPool(String prefix, int threads, int priority) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            threads, threads,
+            30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+                    thread.setPriority(priority);
+                    return thread;
+                }
+            }
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /** Runs fire-path work: anything an alarm ringing on time depends on. */
+    static void execute(Runnable task) {
+        FIRE.execute(task);
+    }
+
+    /** Runs bulk or best-effort work that must never delay the fire path. */
+    static void executeBackground(Runnable task) {
+        BACKGROUND.execute(task);
+    }
+
+    /**
+     * Runs {@code task} on the fire path and finishes {@code pendingResult}
+     * (from {@link BroadcastReceiver#goAsync()}) when it is done, even if the
+     * task throws.
+     */
+    static void executeAsync(BroadcastReceiver.PendingResult pendingResult, String name, Runnable task) {
+        FIRE.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error in " + name, e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+}
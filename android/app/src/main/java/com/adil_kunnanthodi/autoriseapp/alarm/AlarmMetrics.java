@@ -0,0 +1,357 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timing points for the native alarm pipeline.
+ *
+ * Every sample is logged under the {@code AlarmMetrics} tag and added to
+ * an in-memory histogram for its metric. Recording is lock-free (atomic
+ * bucket increments and a concurrent queue), so it is safe from the main
+ * thread, audio callbacks and {@link AlarmExecutor} alike. Samples are
+ * flushed in batches to {@code alarm_metrics.ring}, a fixed-size ring of
+ * the most recent {@link #RING_CAPACITY} samples, and the histograms are
+ * seeded from that ring when the process first {@link #attach}es, so the
+ * percentiles from {@link #snapshot} cover earlier processes too. Samples
+ * another live process (the {@link AlarmProcess :alarm} process) adds to
+ * the ring are picked up on each flush and by {@link #refresh}.
+ */
+final class AlarmMetrics {
+    private static final String TAG = "AlarmMetrics";
+
+    static final String RESTORE_MS = "restore_ms";
+    static final String RECEIVER_FIRE_MS = "receiver_fire_ms";
+    static final String START_TO_SOUND_MS = "start_to_sound_ms";
+    static final String CLOCK_CHANGE_MS = "clock_change_ms";
+    static final String RECEIVER_TO_FIRST_FRAME_MS = "receiver_to_first_frame_ms";
+    static final String WAKELOCK_HOLD_MS = "wakelock_hold_ms";
+    static final String WAKELOCK_HELD_MS = "wakelock_held_ms";
+    static final String FIRE_LATENESS_MS = "fire_lateness_ms";
+    static final String RECEIVER_TO_SOUND_MS = "receiver_to_sound_ms";
+    static final String SCHEDULE_MS = "schedule_ms";
+    static final String PREWARM_MS = "prewarm_ms";
+    static final String RECEIVER_TO_SOUND_PREWARMED_MS = "receiver_to_sound_prewarmed_ms";
+    static final String RECEIVER_TO_SOUND_COLD_MS = "receiver_to_sound_cold_ms";
+
+    // Index in this array is the metric's ID in the ring file: append only
+    private static final String[] NAMES = {
+        RESTORE_MS, RECEIVER_FIRE_MS, START_TO_SOUND_MS, CLOCK_CHANGE_MS, RECEIVER_TO_FIRST_FRAME_MS,
+        WAKELOCK_HOLD_MS, WAKELOCK_HELD_MS, FIRE_LATENESS_MS, RECEIVER_TO_SOUND_MS, SCHEDULE_MS,
+        PREWARM_MS, RECEIVER_TO_SOUND_PREWARMED_MS, RECEIVER_TO_SOUND_COLD_MS,
+    };
+
+    private static final String RING_FILE_NAME = "alarm_metrics.ring";
+    private static final int RING_MAGIC = 0x41524d31; // "ARM1"
+    private static final int RING_VERSION = 1;
+    private static final int RING_CAPACITY = 4096;
+    // magic, version, capacity, reserved, total samples written
+    private static final int HEADER_BYTES = 24;
+    // wall time (8), metric (4), value (4)
+    private static final int SAMPLE_BYTES = 16;
+    private static final long FLUSH_DELAY_MS = 2000;
+
+    private static final Histogram[] histograms = new Histogram[NAMES.length];
+    private static final ConcurrentLinkedQueue<Sample> pending = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean attached = new AtomicBoolean();
+    private static final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private static final Object fileLock = new Object();
+    private static volatile File ringFile;
+    private static boolean loaded;
+    // Ring position up to which samples are in the histograms
+    private static long seen;
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    private AlarmMetrics() {}
+
+    /**
+     * Enables persistence for this process and seeds the histograms from
+     * the ring file in the background. Cheap to call from every entry point.
+     */
+    static void attach(Context context) {
+        if (!attached.compareAndSet(false, true)) {
+            return;
+        }
+        ringFile = new File(context.getApplicationContext().getFilesDir(), RING_FILE_NAME);
+        AlarmExecutor.executeBackground(AlarmMetrics::load);
+    }
+
+    static void record(String name, long value) {
+        Log.i(TAG, name + "=" + value);
+        add(name, value);
+    }
+
+    static void record(String name, long value, String detail) {
+        Log.i(TAG, name + "=" + value + " " + detail);
+        add(name, value);
+    }
+
+    /**
+     * Records the first audible sample of an alarm. {@code requestedAt} is
+     * when the service asked for playback and {@code receivedAt} when the
+     * fire broadcast arrived (0 if unknown), both
+     * {@link SystemClock#elapsedRealtime()}. Receiver-to-sound is also split
+     * by whether {@link AlarmPrewarm} ran ahead of that broadcast.
+     */
+    static void soundStarted(String path, long requestedAt, long receivedAt) {
+        long now = SystemClock.elapsedRealtime();
+        record(START_TO_SOUND_MS, now - requestedAt, "path=" + path);
+        if (receivedAt > 0) {
+            record(RECEIVER_TO_SOUND_MS, now - receivedAt, "path=" + path);
+            record(AlarmPrewarm.ranBefore(receivedAt) ? RECEIVER_TO_SOUND_PREWARMED_MS : RECEIVER_TO_SOUND_COLD_MS,
+                now - receivedAt);
+        }
+    }
+
+    private static void add(String name, long value) {
+        int metric = indexOf(name);
+        if (metric < 0) {
+            return;
+        }
+        histograms[metric].add(value);
+        pending.add(new Sample(System.currentTimeMillis(), metric, value));
+        scheduleFlush();
+    }
+
+    /**
+     * Per-metric summary ({@code count, mean, p50, p90, p99, max}) of every
+     * metric that has samples. Percentiles are bucket midpoints, accurate
+     * to within about 6%.
+     */
+    static Map<String, long[]> snapshot() {
+        Map<String, long[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            Histogram histogram = histograms[i];
+            long count = histogram.count.get();
+            if (count == 0) {
+                continue;
+            }
+            result.put(NAMES[i], new long[] {
+                count,
+                histogram.sum.get() / count,
+                histogram.percentile(0.50),
+                histogram.percentile(0.90),
+                histogram.percentile(0.99),
+                histogram.max.get(),
+            });
+        }
+        return result;
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void scheduleFlush() {
+        if (ringFile != null && flushScheduled.compareAndSet(false, true)) {
+            // Batches the samples of one fire into a single file write
+            new Handler(Looper.getMainLooper()).postDelayed(
+                () -> AlarmExecutor.executeBackground(AlarmMetrics::flush), FLUSH_DELAY_MS);
+        }
+    }
+
+    private static void load() {
+        synchronized (fileLock) {
+            try (RandomAccessFile raf = new RandomAccessFile(ringFile, "rw");
+                 FileChannel channel = raf.getChannel();
+                 FileLock lock = channel.lock()) {
+                long written = readWritten(channel);
+                int count = importSamples(channel, 0, written);
+                Log.d(TAG, "Loaded " + count + " samples from " + RING_FILE_NAME);
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading metrics ring", e);
+            }
+            loaded = true;
+        }
+        // Samples recorded while loading
+        flush();
+    }
+
+    private static void flush() {
+        flushScheduled.set(false);
+        synchronized (fileLock) {
+            if (!loaded || pending.isEmpty()) {
+                return;
+            }
+            // Locked against the same file in other processes, not just this one
+            try (RandomAccessFile raf = new RandomAccessFile(ringFile, "rw");
+                 FileChannel channel = raf.getChannel();
+                 FileLock lock = channel.lock()) {
+                long written = readWritten(channel);
+                // Samples the other process wrote since this one last looked
+                importSamples(channel, seen, written);
+                ByteBuffer sample = ByteBuffer.allocate(SAMPLE_BYTES);
+                Sample next;
+                while ((next = pending.poll()) != null) {
+                    sample.clear();
+                    sample.putLong(next.wallTime).putInt(next.metric).putInt(next.value).flip();
+                    channel.write(sample, slotOffset(written++));
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(RING_MAGIC).putInt(RING_VERSION).putInt(RING_CAPACITY).putInt(0)
+                    .putLong(written).flip();
+                channel.write(header, 0);
+                seen = written;
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing metrics ring", e);
+            }
+        }
+    }
+
+    /** Adds samples other processes wrote to the ring since the last flush. Blocks on file I/O. */
+    static void refresh() {
+        synchronized (fileLock) {
+            if (!loaded) {
+                return;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(ringFile, "rw");
+                 FileChannel channel = raf.getChannel();
+                 FileLock lock = channel.lock()) {
+                importSamples(channel, seen, readWritten(channel));
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading metrics ring", e);
+            }
+        }
+    }
+
+    /**
+     * Adds ring samples {@code from} (inclusive) to {@code to} to the
+     * histograms, clamped to what the ring still holds, and marks them
+     * seen. Returns the number added.
+     */
+    private static int importSamples(FileChannel channel, long from, long to) throws IOException {
+        long first = Math.max(from, to - RING_CAPACITY);
+        seen = to;
+        if (first >= to) {
+            return 0;
+        }
+        ByteBuffer ring = ByteBuffer.allocate(RING_CAPACITY * SAMPLE_BYTES);
+        channel.read(ring, HEADER_BYTES);
+        for (long n = first; n < to; n++) {
+            int offset = (int) (slotOffset(n) - HEADER_BYTES);
+            int metric = ring.getInt(offset + 8);
+            if (metric >= 0 && metric < histograms.length) {
+                histograms[metric].add(ring.getInt(offset + 12));
+            }
+        }
+        return (int) (to - first);
+    }
+
+    /** Total samples ever written to the ring, or 0 for a missing or foreign file. */
+    private static long readWritten(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.read(header, 0) < HEADER_BYTES) {
+            return 0;
+        }
+        if (header.getInt(0) != RING_MAGIC || header.getInt(4) != RING_VERSION
+                || header.getInt(8) != RING_CAPACITY) {
+            Log.w(TAG, "Discarding incompatible metrics ring");
+            return 0;
+        }
+        return Math.max(0, header.getLong(16));
+    }
+
+    private static long slotOffset(long n) {
+        return HEADER_BYTES + (n % RING_CAPACITY) * SAMPLE_BYTES;
+    }
+
+    private static final class Sample {
+        final long wallTime;
+        final int metric;
+        final int value;
+
+        Sample(long wallTime, int metric, long value) {
+            this.wallTime = wallTime;
+            this.metric = metric;
+            this.value = (int) Math.max(0, Math.min(Integer.MAX_VALUE, value));
+        }
+    }
+
+    /**
+     * Log-linear histogram over non-negative values: exact below 16, then
+     * eight buckets per power of two.
+     */
+    private static final class Histogram {
+        private static final int LINEAR = 16;
+        private static final int SUB_BUCKETS = 8;
+        private static final int BUCKETS = LINEAR + (31 - 4) * SUB_BUCKETS;
+
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong max = new AtomicLong();
+
+        void add(long value) {
+            long v = Math.max(0, Math.min(Integer.MAX_VALUE, value));
+            buckets.incrementAndGet(bucketOf(v));
+            count.incrementAndGet();
+            sum.addAndGet(v);
+            long current;
+            while (v > (current = max.get()) && !max.compareAndSet(current, v)) {
+                // Lost the race to another writer; retry against its value
+            }
+        }
+
+        long percentile(double p) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            long rank = (long) Math.ceil(p * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Math.min(midpointOf(i), max.get());
+                }
+            }
+            return 0;
+        }
+
+        private static int bucketOf(long v) {
+            if (v < LINEAR) {
+                return (int) v;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >> (exponent - 3)) & (SUB_BUCKETS - 1);
+            return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+        }
+
+        private static long midpointOf(int bucket) {
+            if (bucket < LINEAR) {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+            int sub = (bucket - LINEAR) % SUB_BUCKETS;
+            long width = 1L << (exponent - 3);
+            long lower = (1L << exponent) + sub * width;
+            return lower + width / 2;
+        }
+    }
+}
@@ -0,0 +1,642 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The alarm API behind both {@link AlarmTurboModule} and the classic
+ * {@link AlarmModule}, which only adapt their calls to it.
+ *
+ * Constructing one has no side effects; {@link #initialize} does the
+ * per-context setup once, however many modules the package creates for
+ * that context.
+ */
+final class AlarmModuleImpl {
+    private static final String TAG = "AlarmModule";
+    private static final int RECENT_MISSES = 20;
+
+    // The React context the shared setup last ran for
+    private static ReactApplicationContext initializedFor;
+
+    private final ReactApplicationContext reactContext;
+
+    AlarmModuleImpl(ReactApplicationContext reactContext) {
+        this.reactContext = reactContext;
+    }
+
+    /**
+     * Warms the default tone, hooks alarm events and metrics up to this
+     * React context and loads the scheduler. Runs once per context; later
+     * calls, e.g. from the second of the two modules, return straight away.
+     */
+    void initialize() {
+        synchronized (AlarmModuleImpl.class) {
+            if (initializedFor == reactContext) {
+                return;
+            }
+            initializedFor = reactContext;
+        }
+        // Decode the default tone ahead of the first fire
+        AlarmAudioEngine.warmUp(reactContext);
+        AlarmEvents.attach(reactContext);
+        AlarmMetrics.attach(reactContext);
+        // Loading the scheduler runs the fire watchdog for anything missed since the last run
+        AlarmExecutor.execute(() -> AlarmScheduler.getInstance(reactContext));
+    }
+
+    // Required by NativeEventEmitter; events are buffered until a listener exists
+    void addListener(String eventName) {
+        AlarmEvents.onListenerAdded();
+    }
+    
+    void removeListeners(double count) {
+        AlarmEvents.onListenersRemoved((int) count);
+    }
+    
+    void setAlarm(ReadableMap alarmData, Promise promise) {
+        long startedAt = SystemClock.elapsedRealtime();
+        Trace.beginSection("AlarmModule.setAlarm");
+        try {
+            Context context = reactContext;
+            AlarmRecord record = parseAlarm(alarmData);
+            
+            if (!record.enabled) {
+                cancelAlarm(record.id);
+                promise.resolve("Alarm disabled");
+                return;
+            }
+            
+            // Save alarm to the repository, then queue its next occurrence
+            AlarmRepository.getInstance(context).put(record);
+            AlarmScheduler.getInstance(context).schedule(record);
+            AlarmAudioEngine.warmUp(context, record.sound);
+            
+            AlarmMetrics.record(AlarmMetrics.SCHEDULE_MS, SystemClock.elapsedRealtime() - startedAt,
+                "alarm=" + record.id);
+            promise.resolve("Alarm set successfully");
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting alarm", e);
+            promise.reject("ERROR", "Failed to set alarm: " + e.getMessage());
+        } finally {
+            Trace.endSection();
+        }
+    }
+    
+    /**
+     * Applies a whole schedule in one bridge call. Alarms identical to the
+     * stored copy are skipped, the store is written once and the scheduler
+     * re-arms the system alarm at most once. Resolves with one
+     * {@code {id, status, message}} entry per input item.
+     */
+    void setAlarmsBatch(ReadableArray alarms, Promise promise) {
+        try {
+            Context context = reactContext;
+            AlarmRepository repository = AlarmRepository.getInstance(context);
+            
+            WritableArray results = new WritableNativeArray();
+            List<AlarmRecord> changed = new ArrayList<>();
+            List<Integer> disabled = new ArrayList<>();
+            
+            for (int i = 0; i < alarms.size(); i++) {
+                ReadableMap alarmData = alarms.getMap(i);
+                AlarmRecord record;
+                try {
+                    record = parseAlarm(alarmData);
+                } catch (Exception e) {
+                    int id = alarmData != null && alarmData.hasKey("id") ? alarmData.getInt("id") : -1;
+                    results.pushMap(batchResult(id, "error", e.getMessage()));
+                    continue;
+                }
+                
+                AlarmRecord existing = repository.get(record.id);
+                if (!record.enabled) {
+                    if (existing != null) {
+                        disabled.add(record.id);
+                    }
+                    results.pushMap(batchResult(record.id, "disabled", null));
+                } else if (record.equals(existing)) {
+                    results.pushMap(batchResult(record.id, "unchanged", null));
+                } else {
+                    changed.add(record);
+                    results.pushMap(batchResult(record.id, "scheduled", null));
+                }
+            }
+            
+            repository.applyBatch(changed, disabled);
+            AlarmScheduler.getInstance(context).applyBatch(changed, disabled);
+            warmUpSounds(changed);
+            
+            Log.d(TAG, "Batch set: " + changed.size() + " changed, " + disabled.size()
+                + " disabled, " + (alarms.size() - changed.size() - disabled.size()) + " other");
+            promise.resolve(results);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting alarms batch", e);
+            promise.reject("ERROR", "Failed to set alarms: " + e.getMessage());
+        }
+    }
+    
+    void cancelAlarmsBatch(ReadableArray alarmIds, Promise promise) {
+        try {
+            Context context = reactContext;
+            AlarmRepository repository = AlarmRepository.getInstance(context);
+            
+            WritableArray results = new WritableNativeArray();
+            List<Integer> removed = new ArrayList<>();
+            
+            for (int i = 0; i < alarmIds.size(); i++) {
+                int alarmId = alarmIds.getInt(i);
+                if (repository.get(alarmId) != null) {
+                    removed.add(alarmId);
+                    results.pushMap(batchResult(alarmId, "cancelled", null));
+                } else {
+                    results.pushMap(batchResult(alarmId, "not_found", null));
+                }
+            }
+            
+            repository.applyBatch(Collections.<AlarmRecord>emptyList(), removed);
+            AlarmScheduler.getInstance(context).applyBatch(Collections.<AlarmRecord>emptyList(), removed);
+            
+            promise.resolve(results);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error cancelling alarms batch", e);
+            promise.reject("ERROR", "Failed to cancel alarms: " + e.getMessage());
+        }
+    }
+    
+    private void warmUpSounds(List<AlarmRecord> records) {
+        Set<String> sounds = new HashSet<>();
+        for (AlarmRecord record : records) {
+            if (sounds.add(record.sound)) {
+                AlarmAudioEngine.warmUp(reactContext, record.sound);
+            }
+        }
+    }
+    
+    /**
+     * Copies a picked audio file into app storage and decodes it once.
+     * Resolves with {@code {soundId}}, which can then be used as an
+     * alarm's {@code sound}.
+     */
+    void importSound(String uri, Promise promise) {
+        AlarmExecutor.executeBackground(() -> {
+            try {
+                WritableMap result = new WritableNativeMap();
+                result.putString("soundId", AlarmSoundLibrary.importSound(reactContext, Uri.parse(uri)));
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error importing sound", e);
+                promise.reject("ERROR", "Failed to import sound: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Streams an alarm file (see {@link AlarmTransfer}) into the store and
+     * schedule on the native side. With {@code replace}, stored alarms the
+     * file does not list are removed. Nothing changes if any alarm in the
+     * file is invalid. Posts {@code importProgress} events and resolves
+     * with {@code {changed, unchanged, removed, durationMs}}.
+     */
+    void importAlarms(String uri, boolean replace, Promise promise) {
+        AlarmExecutor.executeBackground(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            try (AssetFileDescriptor source = reactContext.getContentResolver()
+                    .openAssetFileDescriptor(Uri.parse(uri), "r")) {
+                if (source == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                AlarmTransfer.ImportResult imported;
+                try (InputStream in = source.createInputStream()) {
+                    imported = AlarmTransfer.importAlarms(reactContext, in, source.getLength(), replace);
+                }
+                warmUpSounds(imported.changed);
+                WritableMap result = new WritableNativeMap();
+                result.putInt("changed", imported.changed.size());
+                result.putInt("unchanged", imported.unchanged);
+                result.putInt("removed", imported.removed);
+                result.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error importing alarms", e);
+                promise.reject("ERROR", "Failed to import alarms: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Writes every stored alarm to {@code uri} in the format
+     * {@link #importAlarms} reads. Posts {@code exportProgress} events and
+     * resolves with {@code {exported, durationMs}}.
+     */
+    void exportAlarms(String uri, Promise promise) {
+        AlarmExecutor.executeBackground(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            try (OutputStream out = reactContext.getContentResolver().openOutputStream(Uri.parse(uri), "wt")) {
+                if (out == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                WritableMap result = new WritableNativeMap();
+                result.putInt("exported", AlarmTransfer.exportAlarms(reactContext, out));
+                result.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error exporting alarms", e);
+                promise.reject("ERROR", "Failed to export alarms: " + e.getMessage());
+            }
+        });
+    }
+    
+    private AlarmRecord parseAlarm(ReadableMap alarmData) {
+        int alarmId = alarmData.getInt("id");
+        if (alarmId < 0) {
+            // Negative keys are reserved for snooze slots in AlarmScheduler
+            throw new IllegalArgumentException("Alarm id must not be negative");
+        }
+        String title = alarmData.getString("title");
+        String sound = alarmData.hasKey("sound") ? alarmData.getString("sound") : "alarm_default";
+        boolean isEnabled = alarmData.hasKey("isEnabled") ? alarmData.getBoolean("isEnabled") : true;
+        int priority = alarmData.hasKey("priority")
+            ? AlarmRecord.parsePriority(alarmData.getString("priority"))
+            : AlarmRecord.PRIORITY_CRITICAL;
+        
+        // Parse time
+        int minuteOfDay = AlarmRecord.parseTime(alarmData.getString("time"));
+        
+        // Parse days array into a Sunday-first bitmask
+        int dayMask = 0;
+        if (alarmData.hasKey("days") && alarmData.getArray("days") != null) {
+            ReadableArray days = alarmData.getArray("days");
+            for (int i = 0; i < days.size() && i < 7; i++) {
+                if (days.getBoolean(i)) {
+                    dayMask |= 1 << i;
+                }
+            }
+        }
+        return new AlarmRecord(alarmId, title, minuteOfDay, dayMask, isEnabled, sound, 0L, priority);
+    }
+    
+    private WritableMap batchResult(int alarmId, String status, String message) {
+        WritableMap result = new WritableNativeMap();
+        result.putInt("id", alarmId);
+        result.putString("status", status);
+        if (message != null) {
+            result.putString("message", message);
+        }
+        return result;
+    }
+    
+    void cancelAlarm(int alarmId, Promise promise) {
+        try {
+            cancelAlarm(alarmId);
+            promise.resolve("Alarm cancelled");
+        } catch (Exception e) {
+            promise.reject("ERROR", "Failed to cancel alarm: " + e.getMessage());
+        }
+    }
+    
+    private void cancelAlarm(int alarmId) throws IOException {
+        Context context = reactContext;
+        
+        // Drop it from the scheduler queue; this only re-arms the system alarm if it was next
+        AlarmScheduler.getInstance(context).cancel(alarmId);
+        
+        // Remove from the repository
+        AlarmRepository.getInstance(context).remove(alarmId);
+        
+        Log.d(TAG, "Alarm " + alarmId + " cancelled");
+    }
+    
+    /**
+     * Updates the snooze policy. Accepts {@code durationMinutes},
+     * {@code maxSnoozes} and {@code escalateVolume}; missing keys keep their
+     * current value.
+     */
+    void setSnoozeSettings(ReadableMap settings, Promise promise) {
+        try {
+            SnoozePolicy current = SnoozePolicy.load(reactContext);
+            SnoozePolicy updated = new SnoozePolicy(
+                settings.hasKey("durationMinutes") ? settings.getInt("durationMinutes") : current.durationMinutes,
+                settings.hasKey("maxSnoozes") ? settings.getInt("maxSnoozes") : current.maxSnoozes,
+                settings.hasKey("escalateVolume") ? settings.getBoolean("escalateVolume") : current.escalateVolume
+            );
+            updated.save(reactContext);
+            promise.resolve(toWritableMap(updated));
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving snooze settings", e);
+            promise.reject("ERROR", "Failed to save snooze settings: " + e.getMessage());
+        }
+    }
+    
+    void getSnoozeSettings(Promise promise) {
+        try {
+            promise.resolve(toWritableMap(SnoozePolicy.load(reactContext)));
+        } catch (Exception e) {
+            promise.reject("ERROR", "Failed to get snooze settings: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Updates the missed-alarm catch-up policy. Accepts {@code ringMissed}
+     * and {@code windowMinutes}; missing keys keep their current value.
+     */
+    void setCatchUpSettings(ReadableMap settings, Promise promise) {
+        try {
+            CatchUpPolicy current = CatchUpPolicy.load(reactContext);
+            CatchUpPolicy updated = new CatchUpPolicy(
+                settings.hasKey("ringMissed") ? settings.getBoolean("ringMissed") : current.ringMissed,
+                settings.hasKey("windowMinutes") ? settings.getInt("windowMinutes") : current.windowMinutes
+            );
+            updated.save(reactContext);
+            promise.resolve(toWritableMap(updated));
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving catch-up settings", e);
+            promise.reject("ERROR", "Failed to save catch-up settings: " + e.getMessage());
+        }
+    }
+    
+    void getCatchUpSettings(Promise promise) {
+        try {
+            promise.resolve(toWritableMap(CatchUpPolicy.load(reactContext)));
+        } catch (Exception e) {
+            promise.reject("ERROR", "Failed to get catch-up settings: " + e.getMessage());
+        }
+    }
+    
+    private WritableMap toWritableMap(CatchUpPolicy policy) {
+        WritableMap result = new WritableNativeMap();
+        result.putBoolean("ringMissed", policy.ringMissed);
+        result.putInt("windowMinutes", policy.windowMinutes);
+        return result;
+    }
+    
+    /**
+     * Fire reliability from the fire journal: lifetime {@code fired},
+     * {@code late}, {@code missed} and {@code caughtUp} counts, the
+     * resulting {@code missRate} (misses over expected fires) and the most
+     * recent misses.
+     */
+    void getFireReliability(Promise promise) {
+        AlarmExecutor.executeBackground(() -> {
+            try {
+                FireJournal journal = AlarmScheduler.getInstance(reactContext).journal();
+                long[] counters = journal.counters();
+                long fired = counters[0];
+                long missed = counters[2];
+                long caughtUp = counters[3];
+                // Caught-up misses rang later and are already counted in fired
+                long expected = fired + missed - caughtUp;
+                
+                WritableMap result = new WritableNativeMap();
+                result.putDouble("fired", fired);
+                result.putDouble("late", counters[1]);
+                result.putDouble("missed", missed);
+                result.putDouble("caughtUp", caughtUp);
+                result.putDouble("missRate", expected > 0 ? (double) missed / expected : 0);
+                WritableArray misses = new WritableNativeArray();
+                for (FireJournal.Miss miss : journal.recentMisses(RECENT_MISSES)) {
+                    WritableMap item = new WritableNativeMap();
+                    item.putInt("alarmId", miss.alarmId);
+                    item.putDouble("scheduledFor", miss.scheduledFor);
+                    item.putDouble("detectedAt", miss.detectedAt);
+                    item.putBoolean("caughtUp", miss.caughtUp);
+                    misses.pushMap(item);
+                }
+                result.putArray("recentMisses", misses);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading fire journal", e);
+                promise.reject("ERROR", "Failed to get fire reliability: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Per-alarm wake-up stats over the last {@code days} days (today
+     * included), from the daily rollups: {@code dismissals},
+     * {@code snoozes} and {@code averageDismissMs}, the mean time an alarm
+     * rang before it was dismissed (-1 if it never was).
+     */
+    void getWakeStats(int days, Promise promise) {
+        AlarmExecutor.executeBackground(() -> {
+            try {
+                WritableArray result = new WritableNativeArray();
+                for (WakeAnalytics.Summary summary
+                        : WakeAnalytics.get(reactContext).summaries(days, System.currentTimeMillis())) {
+                    WritableMap item = new WritableNativeMap();
+                    item.putInt("alarmId", summary.alarmId);
+                    item.putInt("dismissals", summary.dismissals);
+                    item.putInt("snoozes", summary.snoozes);
+                    item.putDouble("averageDismissMs", summary.averageDismissMs());
+                    result.pushMap(item);
+                }
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading wake analytics", e);
+                promise.reject("ERROR", "Failed to get wake stats: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * How many dismissals over the last {@code days} days came after 0, 1,
+     * 2, 3, 4 and 5 or more snoozes, for {@code alarmId} or every alarm if
+     * it is negative. Resolves with the six counts.
+     */
+    void getSnoozeHistogram(int days, int alarmId, Promise promise) {
+        AlarmExecutor.executeBackground(() -> {
+            try {
+                WritableArray result = new WritableNativeArray();
+                for (long count : WakeAnalytics.get(reactContext)
+                        .snoozeHistogram(days, alarmId, System.currentTimeMillis())) {
+                    result.pushDouble(count);
+                }
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading wake analytics", e);
+                promise.reject("ERROR", "Failed to get snooze histogram: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Sets how many seconds before each alarm the pipeline is readied
+     * (process, tone, wake lock, notification channel); 0 turns the
+     * pre-fire stage off. Resolves with the saved value.
+     */
+    void setPrewarmLeadSeconds(int seconds, Promise promise) {
+        try {
+            AlarmPrewarm.setLeadSeconds(reactContext, seconds);
+            // Re-arm so the next alarm's pre-fire uses the new lead
+            AlarmExecutor.execute(() -> AlarmScheduler.getInstance(reactContext).rearm());
+            promise.resolve(seconds);
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving pre-fire lead", e);
+            promise.reject("ERROR", "Failed to save pre-fire lead: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Sets what happens when an alarm fires while others are ringing:
+     * {@code "stack"} (newest plays), {@code "merge"} (first keeps playing)
+     * or {@code "replace"} (newest ends the others). Applies from the next
+     * time the alarm service starts.
+     */
+    void setRingingPolicy(String policy, Promise promise) {
+        try {
+            RingingSessionManager.Policy parsed = RingingSessionManager.Policy.valueOf(policy.toUpperCase(Locale.ROOT));
+            RingingSessionManager.savePolicy(reactContext, parsed);
+            promise.resolve(parsed.name().toLowerCase(Locale.ROOT));
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving ringing policy", e);
+            promise.reject("ERROR", "Unknown ringing policy: " + policy);
+        }
+    }
+    
+    private WritableMap toWritableMap(SnoozePolicy policy) {
+        WritableMap result = new WritableNativeMap();
+        result.putInt("durationMinutes", policy.durationMinutes);
+        result.putInt("maxSnoozes", policy.maxSnoozes);
+        result.putBoolean("escalateVolume", policy.escalateVolume);
+        return result;
+    }
+    
+    void getAllAlarms(Promise promise) {
+        try {
+            WritableArray alarms = new WritableNativeArray();
+            
+            for (AlarmRecord record : AlarmRepository.getInstance(reactContext).getAll()) {
+                alarms.pushMap(toWritableMap(record));
+            }
+            
+            promise.resolve(alarms);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting alarms", e);
+            promise.reject("ERROR", "Failed to get alarms: " + e.getMessage());
+        }
+    }
+    
+    double getAlarmCount() {
+        return AlarmRepository.getInstance(reactContext).size();
+    }
+    
+    /** Earliest queued ring across all alarms in epoch ms, or -1 if nothing is scheduled. */
+    double getNextFireTime() {
+        return AlarmScheduler.getInstance(reactContext).getNextFireTime();
+    }
+    
+    /**
+     * Every stored alarm as parallel arrays (ids, titles, minutesOfDay,
+     * dayMasks, enabled, sounds, priorities, nextFireTimes), returned
+     * synchronously.
+     */
+    WritableMap getAlarmSnapshot() {
+        List<AlarmRecord> records = AlarmRepository.getInstance(reactContext).getAll();
+        AlarmScheduler scheduler = AlarmScheduler.getInstance(reactContext);
+        
+        WritableArray ids = new WritableNativeArray();
+        WritableArray titles = new WritableNativeArray();
+        WritableArray minutesOfDay = new WritableNativeArray();
+        WritableArray dayMasks = new WritableNativeArray();
+        WritableArray enabled = new WritableNativeArray();
+        WritableArray sounds = new WritableNativeArray();
+        WritableArray priorities = new WritableNativeArray();
+        WritableArray nextFireTimes = new WritableNativeArray();
+        for (AlarmRecord record : records) {
+            ids.pushInt(record.id);
+            titles.pushString(record.title);
+            minutesOfDay.pushInt(record.minuteOfDay);
+            dayMasks.pushInt(record.dayMask & AlarmRecord.ALL_DAYS);
+            enabled.pushBoolean(record.enabled);
+            sounds.pushString(record.sound);
+            priorities.pushString(record.priorityName());
+            nextFireTimes.pushDouble(scheduler.getNextFireTime(record.id));
+        }
+        
+        WritableMap snapshot = new WritableNativeMap();
+        snapshot.putArray("ids", ids);
+        snapshot.putArray("titles", titles);
+        snapshot.putArray("minutesOfDay", minutesOfDay);
+        snapshot.putArray("dayMasks", dayMasks);
+        snapshot.putArray("enabled", enabled);
+        snapshot.putArray("sounds", sounds);
+        snapshot.putArray("priorities", priorities);
+        snapshot.putArray("nextFireTimes", nextFireTimes);
+        return snapshot;
+    }
+    
+    /**
+     * Latency histograms of the native alarm pipeline, keyed by metric name
+     * (e.g. {@code fire_lateness_ms}, {@code receiver_to_sound_ms}), each
+     * with {@code count, mean, p50, p90, p99, max} in milliseconds.
+     */
+    void getAlarmMetrics(Promise promise) {
+        AlarmExecutor.executeBackground(() -> {
+            try {
+                // Fires are timed in the :alarm process; pick up what it recorded
+                AlarmMetrics.refresh();
+                WritableMap result = new WritableNativeMap();
+                for (Map.Entry<String, long[]> entry : AlarmMetrics.snapshot().entrySet()) {
+                    long[] summary = entry.getValue();
+                    WritableMap metric = new WritableNativeMap();
+                    metric.putDouble("count", summary[0]);
+                    metric.putDouble("mean", summary[1]);
+                    metric.putDouble("p50", summary[2]);
+                    metric.putDouble("p90", summary[3]);
+                    metric.putDouble("p99", summary[4]);
+                    metric.putDouble("max", summary[5]);
+                    result.putMap(entry.getKey(), metric);
+                }
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading alarm metrics", e);
+                promise.reject("ERROR", "Failed to get alarm metrics: " + e.getMessage());
+            }
+        });
+    }
+    
+    private WritableMap toWritableMap(AlarmRecord record) {
+        WritableMap alarm = new WritableNativeMap();
+        alarm.putInt("id", record.id);
+        alarm.putString("title", record.title);
+        alarm.putString("time", record.formatTime());
+        alarm.putString("sound", record.sound);
+        alarm.putBoolean("isEnabled", record.enabled);
+        alarm.putString("priority", record.priorityName());
+        
+        WritableArray days = new WritableNativeArray();
+        for (int i = 0; i < 7; i++) {
+            days.pushBoolean(record.isDayEnabled(i));
+        }
+        alarm.putArray("days", days);
+        
+        return alarm;
+    }
+}
@@ -1,20 +1,56 @@
 package com.adil_kunnanthodi.autoriseapp.alarm;
 
-import com.facebook.react.ReactPackage;
+import com.adil_kunnanthodi.autoriseapp.BuildConfig;
+import com.facebook.react.BaseReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.facebook.react.uimanager.ViewManager;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class AlarmPackage implements ReactPackage {
+/**
+ * Registers the alarm TurboModule ({@code AutoRiseAlarm}) and the classic
+ * {@code AlarmModule} it replaces, which is kept as a fallback.
+ */
+public class AlarmPackage extends BaseReactPackage {
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        List<NativeModule> modules = new ArrayList<>();
-        modules.add(new AlarmModule(reactContext));
-        return modules;
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (NativeAutoRiseAlarmSpec.NAME.equals(name)) {
+            return new AlarmTurboModule(reactContext);
+        }
+        if (AlarmModule.NAME.equals(name)) {
+            return new AlarmModule(reactContext);
+        }
+        return null;
+    }
+
+    @Override
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> {
+            Map<String, ReactModuleInfo> infos = new HashMap<>();
+            infos.put(NativeAutoRiseAlarmSpec.NAME, new ReactModuleInfo(
+                NativeAutoRiseAlarmSpec.NAME,
+                AlarmTurboModule.class.getName(),
+                false, // canOverrideExistingModule
+                false, // needsEagerInit
+                false, // isCxxModule
+                BuildConfig.IS_NEW_ARCHITECTURE_ENABLED // isTurboModule
+            ));
+            infos.put(AlarmModule.NAME, new ReactModuleInfo(
+                AlarmModule.NAME,
+                AlarmModule.class.getName(),
+                false, // canOverrideExistingModule
+                false, // needsEagerInit
+                false, // isCxxModule
+                false  // isTurboModule
+            ));
+            return infos;
+        };
     }
 
     @Override
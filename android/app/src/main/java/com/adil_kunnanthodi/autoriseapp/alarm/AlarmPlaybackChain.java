@@ -0,0 +1,300 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.media.RingtoneManager;
+import android.media.ToneGenerator;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * MediaPlayer fallback used when the PCM cache in {@link AlarmAudioEngine}
+ * cannot start.
+ *
+ * Sources are tried in order: the alarm's own sound, then the bundled
+ * tone, then the system alarm ringtone. Each is prepared with
+ * {@link MediaPlayer#prepareAsync()}, its data source set on an
+ * {@link AlarmExecutor} thread because a ringtone URI may resolve through
+ * a content provider. The next source only starts preparing when the one
+ * before it fails or is not ready within {@link #STAGE_DEADLINE_MS}, so
+ * the alarm rings with the sound the user picked unless that sound is
+ * broken or slow; once several are preparing, the first ready one starts
+ * and the others are released. If nothing is ready within
+ * {@link #TONE_GENERATOR_DEADLINE_MS}, or every source fails, a
+ * {@link ToneGenerator} plays until a player does become ready.
+ */
+final class AlarmPlaybackChain {
+    private static final String TAG = "AlarmPlaybackChain";
+    private static final long TONE_GENERATOR_DEADLINE_MS = 1500;
+    // How long a source may take to prepare before the next one is tried alongside it
+    private static final long STAGE_DEADLINE_MS = 500;
+
+    private static final int SOURCE_BUNDLED = 0;
+    private static final int SOURCE_CUSTOM = 1;
+    private static final int SOURCE_SYSTEM = 2;
+    private static final String[] SOURCE_NAMES = {"bundled", "custom", "system"};
+
+    /** Points a fresh player at one source; may block on I/O. */
+    private interface DataSource {
+        void apply(MediaPlayer player) throws IOException;
+    }
+
+    private final Context context;
+    private final AudioAttributes audioAttributes;
+    private final float volume;
+    private final long requestedAt;
+    private final long receivedAt;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MediaPlayer[] players = new MediaPlayer[SOURCE_NAMES.length];
+    private final DataSource[] dataSources = new DataSource[SOURCE_NAMES.length];
+    // Sources in the order they are tried
+    private final int[] order = new int[SOURCE_NAMES.length];
+    private final Runnable deadline = this::onDeadline;
+    private final Runnable stageDeadline = this::onStageDeadline;
+
+    private int stages;
+    private int nextStage;
+    private int pending;
+    private int winner = -1;
+    private boolean soundStarted;
+    private boolean stopped;
+    private ToneGenerator toneGenerator;
+
+    /**
+     * @param volume      player volume (0-1); the tone generator always
+     *                    plays at full volume as a last resort
+     * @param requestedAt {@link SystemClock#elapsedRealtime()} the alarm
+     *                    started at, used for the start-to-sound metric
+     * @param receivedAt  {@link SystemClock#elapsedRealtime()} the fire
+     *                    broadcast arrived at, or 0 if unknown
+     */
+    AlarmPlaybackChain(Context context, AudioAttributes audioAttributes, float volume, long requestedAt,
+                       long receivedAt) {
+        this.context = context.getApplicationContext();
+        this.audioAttributes = audioAttributes;
+        this.volume = volume;
+        this.requestedAt = requestedAt;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Starts preparing the first source. {@code customSound} is the alarm's
+     * sound setting: an imported sound ID, a raw resource name or a
+     * content/file URI.
+     */
+    synchronized void start(String customSound) {
+        if (customSound != null && !customSound.equals(AlarmAudioEngine.DEFAULT_TONE)) {
+            File imported = AlarmSoundLibrary.importedFile(context, customSound);
+            if (imported != null) {
+                addStage(SOURCE_CUSTOM, player -> {
+                    try (FileInputStream in = new FileInputStream(imported)) {
+                        player.setDataSource(in.getFD());
+                    }
+                });
+            } else if (customSound.contains(":")) {
+                Uri uri = Uri.parse(customSound);
+                addStage(SOURCE_CUSTOM, player -> player.setDataSource(context, uri));
+            } else {
+                addStage(SOURCE_CUSTOM, player -> setRawSource(player, customSound));
+            }
+        }
+
+        addStage(SOURCE_BUNDLED, player -> setRawSource(player, AlarmAudioEngine.DEFAULT_TONE));
+
+        addStage(SOURCE_SYSTEM, player -> {
+            Uri uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+            if (uri == null) {
+                uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
+            }
+            if (uri == null) {
+                throw new IOException("No system alarm sound");
+            }
+            player.setDataSource(context, uri);
+        });
+
+        advance();
+        mainHandler.postDelayed(deadline, TONE_GENERATOR_DEADLINE_MS);
+    }
+
+    private void addStage(int source, DataSource dataSource) {
+        dataSources[source] = dataSource;
+        order[stages++] = source;
+    }
+
+    /** Starts preparing the next source in order; returns false if none are left. */
+    private boolean advance() {
+        mainHandler.removeCallbacks(stageDeadline);
+        if (nextStage == stages) {
+            return false;
+        }
+        int source = order[nextStage++];
+        prepare(source, dataSources[source]);
+        if (nextStage < stages) {
+            mainHandler.postDelayed(stageDeadline, STAGE_DEADLINE_MS);
+        }
+        return true;
+    }
+
+    private void prepare(int source, DataSource dataSource) {
+        pending++;
+        AlarmExecutor.execute(() -> {
+            MediaPlayer player = new MediaPlayer();
+            try {
+                player.setAudioAttributes(audioAttributes);
+                dataSource.apply(player);
+                player.setLooping(true);
+                player.setVolume(volume, volume);
+                // Created off a Looper thread, so callbacks arrive on the main thread
+                player.setOnPreparedListener(p -> onReady(source, p));
+                player.setOnErrorListener((p, what, extra) -> {
+                    onFailed(source, p, "error " + what + "/" + extra);
+                    return true;
+                });
+                synchronized (this) {
+                    if (stopped) {
+                        player.release();
+                        return;
+                    }
+                    players[source] = player;
+                }
+                player.prepareAsync();
+            } catch (IOException | RuntimeException e) {
+                onFailed(source, player, e.toString());
+            }
+        });
+    }
+
+    private void setRawSource(MediaPlayer player, String name) throws IOException {
+        int resId = context.getResources().getIdentifier(name, "raw", context.getPackageName());
+        if (resId == 0) {
+            throw new IOException("No raw resource named " + name);
+        }
+        try (AssetFileDescriptor afd = context.getResources().openRawResourceFd(resId)) {
+            player.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+        }
+    }
+
+    private synchronized void onReady(int source, MediaPlayer player) {
+        if (stopped || winner >= 0) {
+            releasePlayer(source, player);
+            return;
+        }
+        winner = source;
+        mainHandler.removeCallbacks(deadline);
+        mainHandler.removeCallbacks(stageDeadline);
+        stopToneGenerator();
+        try {
+            player.start();
+        } catch (IllegalStateException e) {
+            winner = -1;
+            onFailed(source, player, e.toString());
+            return;
+        }
+        for (int i = 0; i < players.length; i++) {
+            if (i != source && players[i] != null) {
+                releasePlayer(i, players[i]);
+            }
+        }
+        Log.d(TAG, "Alarm audio started from " + SOURCE_NAMES[source] + " source");
+        recordStart(SOURCE_NAMES[source]);
+    }
+
+    private synchronized void onFailed(int source, MediaPlayer player, String reason) {
+        Log.w(TAG, "Alarm source " + SOURCE_NAMES[source] + " failed: " + reason);
+        releasePlayer(source, player);
+        pending--;
+        if (winner >= 0 || stopped || advance()) {
+            return;
+        }
+        if (pending == 0) {
+            mainHandler.removeCallbacks(deadline);
+            startToneGenerator();
+        }
+    }
+
+    private synchronized void onStageDeadline() {
+        if (winner < 0 && !stopped) {
+            Log.w(TAG, "Alarm source " + SOURCE_NAMES[order[nextStage - 1]] + " not ready after "
+                + STAGE_DEADLINE_MS + " ms, trying " + SOURCE_NAMES[order[nextStage]]);
+            advance();
+        }
+    }
+
+    private synchronized void onDeadline() {
+        if (winner < 0 && !stopped) {
+            Log.w(TAG, "No alarm source ready after " + TONE_GENERATOR_DEADLINE_MS + " ms");
+            startToneGenerator();
+        }
+    }
+
+    private void startToneGenerator() {
+        if (toneGenerator != null) {
+            return;
+        }
+        try {
+            toneGenerator = new ToneGenerator(AudioManager.STREAM_ALARM, ToneGenerator.MAX_VOLUME);
+            toneGenerator.startTone(ToneGenerator.TONE_CDMA_EMERGENCY_RINGBACK);
+            recordStart("tone_generator");
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to start tone generator", e);
+            toneGenerator = null;
+        }
+    }
+
+    private void stopToneGenerator() {
+        if (toneGenerator != null) {
+            toneGenerator.stopTone();
+            toneGenerator.release();
+            toneGenerator = null;
+        }
+    }
+
+    private void recordStart(String path) {
+        if (!soundStarted) {
+            soundStarted = true;
+            AlarmMetrics.soundStarted(path, requestedAt, receivedAt);
+        }
+    }
+
+    private void releasePlayer(int source, MediaPlayer player) {
+        if (players[source] == player) {
+            players[source] = null;
+        }
+        try {
+            player.release();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Error releasing " + SOURCE_NAMES[source] + " player", e);
+        }
+    }
+
+    synchronized void stop() {
+        stopped = true;
+        mainHandler.removeCallbacks(deadline);
+        mainHandler.removeCallbacks(stageDeadline);
+        stopToneGenerator();
+        for (int i = 0; i < players.length; i++) {
+            MediaPlayer player = players[i];
+            if (player == null) {
+                continue;
+            }
+            if (i == winner) {
+                try {
+                    player.stop();
+                } catch (IllegalStateException e) {
+                    // Already stopped
+                }
+            }
+            releasePlayer(i, player);
+        }
+    }
+}
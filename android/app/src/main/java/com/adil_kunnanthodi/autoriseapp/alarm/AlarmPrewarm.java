@@ -0,0 +1,115 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.io.IOException;
+
+/**
+ * Pre-fire stage that readies the alarm pipeline a configurable lead time
+ * (60 s by default) before the next alarm, so the fire itself only has to
+ * start playback.
+ *
+ * {@link AlarmScheduler} arms a second system alarm at the head's trigger
+ * time minus the lead; {@link AlarmReceiver} hands it to {@link #run}. That
+ * starts the process if needed, loads the store and scheduler, decodes and
+ * faults in the head alarm's tone, loads the alarm screen's formatter and
+ * the snooze settings, registers the notification channel and takes
+ * {@link AlarmWakeLock#HOLD_PREWARM} so the CPU stays up until the fire.
+ *
+ * The pre-fire alarm deliberately does not use an allow-while-idle API:
+ * in Doze those share a rate limit of about one per nine minutes, and
+ * spending it a minute early would delay the real alarm. A deferred
+ * pre-fire that arrives after its alarm is ignored. Whether it ran is
+ * recorded per fire in the receiver-to-sound metrics, so both paths can
+ * be compared.
+ */
+final class AlarmPrewarm {
+    private static final String TAG = "AlarmPrewarm";
+    static final String ACTION_PREWARM = "com.autoriseapp.ALARM_PREWARM";
+    static final String EXTRA_TRIGGER_TIME = "triggerTime";
+
+    static final String PREFS_NAME = "AlarmPrewarmSettings";
+    private static final String KEY_LEAD_SECONDS = "leadSeconds";
+    static final int DEFAULT_LEAD_SECONDS = 60;
+    static final int MAX_LEAD_SECONDS = 600;
+    // Covers a fire delivered a little after its trigger time
+    private static final long HOLD_MARGIN_MS = 30000;
+
+    // elapsedRealtime of the last completed pre-fire in this process, 0 if none
+    private static volatile long ranAt;
+
+    private AlarmPrewarm() {}
+
+    /** Lead time before each alarm, 0 if the pre-fire stage is off. */
+    static long leadMillis(Context context) {
+        return AlarmSettings.get(context)
+            .getInt(PREFS_NAME, KEY_LEAD_SECONDS, DEFAULT_LEAD_SECONDS) * 1000L;
+    }
+
+    static void setLeadSeconds(Context context, int seconds) {
+        if (seconds < 0 || seconds > MAX_LEAD_SECONDS) {
+            throw new IllegalArgumentException("Pre-fire lead must be 0-" + MAX_LEAD_SECONDS + " seconds");
+        }
+        AlarmSettings.get(context).edit(PREFS_NAME).putInt(KEY_LEAD_SECONDS, seconds).commit();
+    }
+
+    /** Whether a pre-fire ran in this process shortly before {@code receivedAt} ({@code elapsedRealtime}). */
+    static boolean ranBefore(long receivedAt) {
+        long at = ranAt;
+        return at > 0 && at <= receivedAt && receivedAt - at <= MAX_LEAD_SECONDS * 1000L + HOLD_MARGIN_MS;
+    }
+
+    /** Readies everything the fire at {@code triggerTime} will need. Runs on {@link AlarmExecutor}. */
+    static void run(Context context, long triggerTime) {
+        long now = System.currentTimeMillis();
+        if (triggerTime <= now) {
+            Log.d(TAG, "Pre-fire arrived after its alarm, ignoring");
+            return;
+        }
+        long startedAt = SystemClock.elapsedRealtime();
+        Trace.beginSection("AlarmPrewarm.run");
+        try {
+            AlarmScheduler scheduler = AlarmScheduler.getInstance(context);
+            if (scheduler.getNextFireTime() != triggerTime) {
+                // The head moved since this was armed; its own pre-fire is armed already
+                return;
+            }
+            AlarmWakeLock.acquire(context, AlarmWakeLock.HOLD_PREWARM,
+                triggerTime - now + HOLD_MARGIN_MS);
+
+            String sound = AlarmAudioEngine.DEFAULT_TONE;
+            AlarmRecord record = AlarmRepository.getInstance(context).get(scheduler.getNextAlarmId());
+            if (record != null) {
+                sound = record.sound;
+            }
+            // Only the alarm's own sound: the bundled tone is a fallback for when it fails
+            primeTone(context, sound);
+
+            AlarmActivity.warmUp();
+            SnoozePolicy.load(context);
+            RingingSessionManager.loadPolicy(context);
+            AlarmService.ensureNotificationChannel(context);
+
+            ranAt = SystemClock.elapsedRealtime();
+            AlarmMetrics.record(AlarmMetrics.PREWARM_MS, ranAt - startedAt,
+                "sound=" + sound + " lead=" + (triggerTime - now));
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private static void primeTone(Context context, String sound) {
+        try {
+            PcmTone tone = AlarmAudioEngine.ensureCached(context, sound);
+            if (tone != null) {
+                tone.prefault();
+            }
+        } catch (IOException e) {
+            // URIs and other uncacheable sounds go through MediaPlayer at fire time
+            Log.w(TAG, "Could not prime alarm tone " + sound, e);
+        }
+    }
+}
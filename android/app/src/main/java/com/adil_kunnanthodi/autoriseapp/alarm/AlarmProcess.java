@@ -0,0 +1,75 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The dedicated process the alarm components run in.
+ *
+ * With {@code autorise.alarmProcess=true} in gradle.properties (the
+ * default) the manifest puts {@link AlarmReceiver}, {@link AlarmService},
+ * {@link AlarmActivity} and {@link AlarmActionReceiver} in a
+ * {@code :alarm} process. MainApplication hands that process to
+ * {@link #onCreate} instead of initializing React Native, Hermes and the
+ * Expo modules, so a cold fire only loads the alarm code and ringing does
+ * not keep a JS runtime in memory. Setting the property to false runs
+ * everything in the app process as before.
+ *
+ * Between the two processes, the store and schedule files are guarded by
+ * {@link AlarmStateSync}, settings go through {@link AlarmSettings}, metrics
+ * share their ring file and events reach JS through
+ * {@link AlarmEvents#forwardTo}. Ringing sessions are in-memory and stay
+ * entirely inside the alarm process.
+ */
+public final class AlarmProcess {
+    private static final String TAG = "AlarmProcess";
+    static final String SUFFIX = ":alarm";
+
+    private static String processName;
+
+    private AlarmProcess() {}
+
+    /** Whether this is the {@code :alarm} process rather than the app process. */
+    public static boolean isAlarmProcess(Context context) {
+        return currentProcessName(context).endsWith(SUFFIX);
+    }
+
+    /** Minimal application start for the alarm process: no React Native, no Expo modules. */
+    public static void onCreate(Application application) {
+        AlarmEvents.forwardTo(application);
+        AlarmMetrics.attach(application);
+        Log.d(TAG, "Started alarm process");
+    }
+
+    private static synchronized String currentProcessName(Context context) {
+        if (processName == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                processName = Application.getProcessName();
+            } else {
+                processName = readCmdline(context);
+            }
+        }
+        return processName;
+    }
+
+    private static String readCmdline(Context context) {
+        try (FileInputStream in = new FileInputStream("/proc/self/cmdline")) {
+            byte[] buffer = new byte[256];
+            int length = in.read(buffer);
+            int end = 0;
+            while (end < length && buffer[end] != 0) {
+                end++;
+            }
+            return new String(buffer, 0, end, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read process name", e);
+            return context.getPackageName();
+        }
+    }
+}
@@ -1,54 +1,113 @@
 package com.adil_kunnanthodi.autoriseapp.alarm;
 
 import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Build;
-import android.os.PowerManager;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.util.Log;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
+import java.util.List;
+
+/**
+ * Receives the scheduler's fire broadcast, boot/update broadcasts,
+ * time zone or wall-clock changes and exact alarm permission grants.
+ *
+ * onReceive only classifies the intent; the actual work runs on
+ * {@link AlarmExecutor} under {@link #goAsync()} so store I/O and
+ * AlarmManager calls never block the main thread.
+ */
 public class AlarmReceiver extends BroadcastReceiver {
     private static final String TAG = "AlarmReceiver";
-    private static final String ALARM_PREFS = "AlarmPreferences";
+    // goAsync() gives us roughly 10 s before the broadcast is considered hung
+    private static final long BROADCAST_BUDGET_MS = 10000;
 
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
+        Context appContext = context.getApplicationContext();
+        long receivedAt = SystemClock.elapsedRealtime();
+        AlarmMetrics.attach(appContext);
         
-        if (action != null && action.startsWith("ALARM_TRIGGER_")) {
-            handleAlarmTrigger(context, intent);
+        if (AlarmScheduler.ACTION_FIRE.equals(action)) {
+            long triggerTime = intent.getLongExtra(AlarmScheduler.EXTRA_TRIGGER_TIME, 0);
+            // Windowed reminders are late by design; that is not pipeline latency
+            if (triggerTime > 0 && !intent.getBooleanExtra(AlarmScheduler.EXTRA_WINDOWED, false)) {
+                AlarmMetrics.record(AlarmMetrics.FIRE_LATENESS_MS, System.currentTimeMillis() - triggerTime);
+            }
+            AlarmExecutor.executeAsync(goAsync(), "scheduled fire",
+                () -> handleScheduledFire(appContext, receivedAt));
+        } else if (AlarmPrewarm.ACTION_PREWARM.equals(action)) {
+            long triggerTime = intent.getLongExtra(AlarmPrewarm.EXTRA_TRIGGER_TIME, 0);
+            AlarmExecutor.executeAsync(goAsync(), "prewarm",
+                () -> AlarmPrewarm.run(appContext, triggerTime));
+        } else if (AlarmManager.ACTION_SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED.equals(action)) {
+            // Exact alarms were allowed again: move the head off inexact delivery
+            AlarmExecutor.executeAsync(goAsync(), "exact alarm permission",
+                () -> AlarmScheduler.getInstance(appContext).rearm());
+        } else if (action != null && action.startsWith("ALARM_TRIGGER_")) {
+            // Snoozes registered by versions before the scheduler owned them
+            String alarmId = intent.getStringExtra("alarmId");
+            String label = intent.getStringExtra("label");
+            String sound = intent.getStringExtra("sound");
+            AlarmExecutor.executeAsync(goAsync(), "alarm trigger",
+                () -> handleAlarmTrigger(appContext, alarmId, label, sound, 0, receivedAt));
+        } else if (Intent.ACTION_TIMEZONE_CHANGED.equals(action) ||
+                   Intent.ACTION_TIME_CHANGED.equals(action) ||
+                   Intent.ACTION_DATE_CHANGED.equals(action)) {
+            AlarmExecutor.executeAsync(goAsync(), "clock change",
+                () -> rescheduleForClockChange(appContext, action, receivedAt));
         } else if (Intent.ACTION_BOOT_COMPLETED.equals(action) || 
                    Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
-            restoreAlarms(context);
+            AlarmExecutor.executeAsync(goAsync(), "restore",
+                () -> restoreAlarms(appContext, receivedAt));
         }
     }
 
-    private void handleAlarmTrigger(Context context, Intent intent) {
-        PowerManager.WakeLock wakeLock = null;
-        
+    private void handleScheduledFire(Context context, long receivedAt) {
+        Trace.beginSection("AlarmReceiver.fire");
+        try {
+            AlarmScheduler scheduler = AlarmScheduler.getInstance(context);
+            List<AlarmRecord> due = scheduler.onFire(System.currentTimeMillis());
+            for (AlarmRecord record : due) {
+                int snoozeCount = scheduler.getSnoozeCount(record.id);
+                handleAlarmTrigger(context, String.valueOf(record.id), record.title, record.sound, snoozeCount,
+                    receivedAt);
+                AlarmEvents.fired(record.id, snoozeCount);
+            }
+            AlarmMetrics.record(AlarmMetrics.RECEIVER_FIRE_MS, SystemClock.elapsedRealtime() - receivedAt,
+                "alarms=" + due.size());
+        } finally {
+            // Anything due now holds the handoff lock by this point
+            AlarmWakeLock.release(AlarmWakeLock.HOLD_PREWARM);
+            Trace.endSection();
+        }
+    }
+
+    private void handleAlarmTrigger(Context context, String alarmId, String label, String sound,
+                                    int snoozeCount, long receivedAt) {
         try {
-            // Acquire wake lock to ensure we can process the alarm
-            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-            wakeLock = powerManager.newWakeLock(
-                PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP,
-                "AutoRise:AlarmWakeLock"
-            );
-            wakeLock.acquire(30000); // 30 seconds timeout
+            // Keep the CPU up until AlarmService takes over the lock for playback
+            AlarmWakeLock.acquire(context, AlarmWakeLock.HOLD_HANDOFF, AlarmWakeLock.HANDOFF_TIMEOUT_MS);
 
-            String alarmId = intent.getStringExtra("alarmId");
-            String label = intent.getStringExtra("label");
-            
             Log.d(TAG, "Alarm triggered: " + alarmId + " - " + label);
 
-            // Start the alarm service to play audio
+            // Read off the main thread here so the alarm screen's first frame does not
+            AlarmActivity.warmUp();
+            SnoozePolicy snoozePolicy = SnoozePolicy.load(context);
+
+            // The service's full-screen notification launches AlarmActivity; starting
+            // the activity from here is blocked for background apps on Android 10+
             Intent serviceIntent = new Intent(context, AlarmService.class);
             serviceIntent.putExtra("alarmId", alarmId);
             serviceIntent.putExtra("label", label);
+            serviceIntent.putExtra("sound", sound);
+            serviceIntent.putExtra("snoozeCount", snoozeCount);
+            serviceIntent.putExtra(AlarmActivity.EXTRA_SNOOZE_MINUTES, snoozePolicy.durationMinutes);
+            serviceIntent.putExtra(AlarmActivity.EXTRA_CAN_SNOOZE, snoozePolicy.canSnooze(snoozeCount));
+            serviceIntent.putExtra(AlarmActivity.EXTRA_RECEIVED_AT, receivedAt);
             
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 context.startForegroundService(serviceIntent);
@@ -56,68 +115,38 @@ public class AlarmReceiver extends BroadcastReceiver {
                 context.startService(serviceIntent);
             }
 
-            // Show alarm activity over lock screen
-            Intent activityIntent = new Intent(context, AlarmActivity.class);
-            activityIntent.putExtra("alarmId", alarmId);
-            activityIntent.putExtra("label", label);
-            activityIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | 
-                                  Intent.FLAG_ACTIVITY_CLEAR_TOP |
-                                  Intent.FLAG_ACTIVITY_SINGLE_TOP);
-            
-            context.startActivity(activityIntent);
-
         } catch (Exception e) {
             Log.e(TAG, "Error handling alarm trigger", e);
-        } finally {
-            if (wakeLock != null && wakeLock.isHeld()) {
-                wakeLock.release();
-            }
+            AlarmWakeLock.release(AlarmWakeLock.HOLD_HANDOFF);
         }
     }
 
-    private void restoreAlarms(Context context) {
+    private void rescheduleForClockChange(Context context, String action, long receivedAt) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(ALARM_PREFS, Context.MODE_PRIVATE);
-            String alarmsJson = prefs.getString("alarms", "[]");
-            
-            JSONArray alarms = new JSONArray(alarmsJson);
-            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-            
-            for (int i = 0; i < alarms.length(); i++) {
-                JSONObject alarm = alarms.getJSONObject(i);
-                String alarmId = alarm.getString("id");
-                long triggerTime = alarm.getLong("triggerTime");
-                String label = alarm.getString("label");
-                
-                // Only restore future alarms
-                if (triggerTime > System.currentTimeMillis()) {
-                    scheduleExactAlarm(context, alarmManager, alarmId, triggerTime, label);
-                    Log.d(TAG, "Restored alarm: " + alarmId);
-                }
-            }
+            int moved = AlarmScheduler.getInstance(context).onClockChanged(System.currentTimeMillis());
+            AlarmMetrics.record(AlarmMetrics.CLOCK_CHANGE_MS, SystemClock.elapsedRealtime() - receivedAt,
+                "action=" + action + " moved=" + moved);
         } catch (Exception e) {
-            Log.e(TAG, "Error restoring alarms after boot", e);
+            Log.e(TAG, "Error rescheduling after clock change", e);
         }
     }
 
-    private void scheduleExactAlarm(Context context, AlarmManager alarmManager, 
-                                  String alarmId, long triggerTime, String label) {
-        Intent intent = new Intent(context, AlarmReceiver.class);
-        intent.putExtra("alarmId", alarmId);
-        intent.putExtra("label", label);
-        intent.setAction("ALARM_TRIGGER_" + alarmId);
-        
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            context, 
-            alarmId.hashCode(), 
-            intent, 
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-        } else {
-            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
+    private void restoreAlarms(Context context, long receivedAt) {
+        Trace.beginSection("AlarmReceiver.restore");
+        try {
+            // Single sequential pass over the store AlarmModule writes
+            int restored = AlarmScheduler.restore(context);
+            
+            long elapsed = SystemClock.elapsedRealtime() - receivedAt;
+            AlarmMetrics.record(AlarmMetrics.RESTORE_MS, elapsed, "alarms=" + restored);
+            if (elapsed > BROADCAST_BUDGET_MS / 2) {
+                Log.w(TAG, "Restore of " + restored + " alarms used " + elapsed + " ms of the "
+                    + BROADCAST_BUDGET_MS + " ms broadcast budget");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error restoring alarms after boot", e);
+        } finally {
+            Trace.endSection();
         }
     }
 }
@@ -0,0 +1,162 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import java.util.Locale;
+
+/**
+ * Immutable in-memory form of one persisted alarm.
+ *
+ * Days are kept as a 7-bit mask where bit 0 is Sunday (matching the
+ * {@code days} array sent from JS) and the time as minute-of-day, so no
+ * string parsing is needed once a record has been loaded. A record with an
+ * empty day mask is a one-shot alarm that fires at {@link #triggerAt}.
+ *
+ * {@link #priority} is the delivery tier {@link DeliveryPolicy} picks the
+ * AlarmManager call from: wake-ups are critical, reminders can be batched.
+ */
+public final class AlarmRecord {
+    public static final int ALL_DAYS = 0x7F;
+
+    /** Wake-up: must ring on time even in Doze; shown as the next alarm in the status bar. */
+    public static final int PRIORITY_CRITICAL = 0;
+    /** Exact, but not shown as an alarm clock; subject to the Doze allow-while-idle budget. */
+    public static final int PRIORITY_NORMAL = 1;
+    /** Reminder: may ring a few minutes late so the system can batch it with other wakeups. */
+    public static final int PRIORITY_REMINDER = 2;
+    private static final String[] PRIORITY_NAMES = {"critical", "normal", "reminder"};
+
+    public final int id;
+    public final String title;
+    public final short minuteOfDay;
+    public final byte dayMask;
+    public final boolean enabled;
+    public final String sound;
+    public final long triggerAt;
+    public final byte priority;
+
+    public AlarmRecord(int id, String title, int minuteOfDay, int dayMask, boolean enabled, String sound) {
+        this(id, title, minuteOfDay, dayMask, enabled, sound, 0L);
+    }
+
+    public AlarmRecord(int id, String title, int minuteOfDay, int dayMask, boolean enabled, String sound,
+                       long triggerAt) {
+        this(id, title, minuteOfDay, dayMask, enabled, sound, triggerAt, PRIORITY_CRITICAL);
+    }
+
+    public AlarmRecord(int id, String title, int minuteOfDay, int dayMask, boolean enabled, String sound,
+                       long triggerAt, int priority) {
+        if (minuteOfDay < 0 || minuteOfDay >= 24 * 60) {
+            throw new IllegalArgumentException("minuteOfDay out of range: " + minuteOfDay);
+        }
+        if (priority < PRIORITY_CRITICAL || priority > PRIORITY_REMINDER) {
+            throw new IllegalArgumentException("priority out of range: " + priority);
+        }
+        this.id = id;
+        this.title = title != null ? title : "";
+        this.minuteOfDay = (short) minuteOfDay;
+        this.dayMask = (byte) (dayMask & ALL_DAYS);
+        this.enabled = enabled;
+        this.sound = sound != null ? sound : "alarm_default";
+        this.triggerAt = triggerAt;
+        this.priority = (byte) priority;
+    }
+
+    public boolean isRepeating() {
+        return dayMask != 0;
+    }
+
+    /**
+     * Next time strictly after {@code now} that this alarm should fire,
+     * or -1 if it never will (a one-shot alarm in the past).
+     */
+    public long nextFireTime(long now) {
+        if (!isRepeating()) {
+            return triggerAt > now ? triggerAt : -1;
+        }
+        return RecurrenceCalculator.current(now).nextFireMillis(minuteOfDay, dayMask, now);
+    }
+
+    /** Returns a copy that uses {@code sound} (e.g. an interned instance). */
+    public AlarmRecord withSound(String sound) {
+        return new AlarmRecord(id, title, minuteOfDay, dayMask, enabled, sound, triggerAt, priority);
+    }
+
+    public int getHour() {
+        return minuteOfDay / 60;
+    }
+
+    public int getMinute() {
+        return minuteOfDay % 60;
+    }
+
+    public boolean isDayEnabled(int dayIndex) {
+        return (dayMask & (1 << dayIndex)) != 0;
+    }
+
+    /** Returns the time in the "HH:mm" form used by the JS layer. */
+    public String formatTime() {
+        return String.format(Locale.US, "%02d:%02d", getHour(), getMinute());
+    }
+
+    /** Parses an "H:mm" / "HH:mm" string into minute-of-day. */
+    public static int parseTime(String time) {
+        int colon = time.indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Invalid time: " + time);
+        }
+        int hour = Integer.parseInt(time.substring(0, colon).trim());
+        int minute = Integer.parseInt(time.substring(colon + 1).trim());
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            throw new IllegalArgumentException("Invalid time: " + time);
+        }
+        return hour * 60 + minute;
+    }
+
+    /** Parses {@code "critical"}, {@code "normal"} or {@code "reminder"}. */
+    public static int parsePriority(String name) {
+        for (int i = 0; i < PRIORITY_NAMES.length; i++) {
+            if (PRIORITY_NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Invalid priority: " + name);
+    }
+
+    /** Returns the priority name used by the JS layer. */
+    public String priorityName() {
+        return PRIORITY_NAMES[priority];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AlarmRecord)) return false;
+        AlarmRecord other = (AlarmRecord) o;
+        return id == other.id
+            && minuteOfDay == other.minuteOfDay
+            && dayMask == other.dayMask
+            && enabled == other.enabled
+            && triggerAt == other.triggerAt
+            && priority == other.priority
+            && title.equals(other.title)
+            && sound.equals(other.sound);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id;
+        result = 31 * result + title.hashCode();
+        result = 31 * result + minuteOfDay;
+        result = 31 * result + dayMask;
+        result = 31 * result + (enabled ? 1 : 0);
+        result = 31 * result + sound.hashCode();
+        result = 31 * result + (int) (triggerAt ^ (triggerAt >>> 32));
+        result = 31 * result + priority;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AlarmRecord{id=" + id + ", time=" + formatTime() + ", days=0x"
+            + Integer.toHexString(dayMask & ALL_DAYS) + ", enabled=" + enabled + ", priority=" + priorityName() + "}";
+    }
+}
@@ -0,0 +1,485 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Binary alarm store with an in-memory index by alarm ID. This is the only
+ * alarm store: {@link AlarmModule} writes it and {@link AlarmReceiver}
+ * restores from it after boot.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   int    magic
+ *   byte   version
+ *   ushort soundCount, then soundCount x UTF sound name
+ *   int    recordCount, then per record:
+ *            int id, short minuteOfDay, byte dayMask, byte flags,
+ *            ushort soundIndex, long triggerAt (v2+), UTF title
+ * </pre>
+ * Flags: bit 0 enabled, bits 1-2 priority. Older files have zero there,
+ * which reads as {@link AlarmRecord#PRIORITY_CRITICAL}. The sound table
+ * only holds sounds some record uses; it is compacted on every write.
+ * The whole file is read once per process; after that lookups are O(1)
+ * and listing is O(n) with no string parsing. Writes replace the file
+ * atomically through {@link AtomicFile}.
+ *
+ * Version history: v1 had no triggerAt. A missing or v1 file triggers the
+ * one-time {@link AlarmStoreMigration} from the SharedPreferences formats.
+ * An unreadable file is moved to {@code alarms.bin.corrupt} and then
+ * treated as missing; if it cannot be moved the store refuses writes
+ * rather than overwrite it.
+ *
+ * The shared instance may be used from both the app process and the
+ * {@link AlarmProcess :alarm} process: file access happens under the
+ * {@link AlarmStateSync} lock, and each process reloads its index when
+ * the other one has written since.
+ */
+public class AlarmRepository {
+    private static final String TAG = "AlarmRepository";
+    static final String FILE_NAME = "alarms.bin";
+    static final String CORRUPT_SUFFIX = ".corrupt";
+
+    private static final int MAGIC = 0x41524C4D; // "ARLM"
+    static final int VERSION = 2;
+    private static final int FLAG_ENABLED = 1;
+    private static final int PRIORITY_SHIFT = 1;
+    private static final int PRIORITY_MASK = 0x3;
+
+    private static AlarmRepository instance;
+
+    /** Receives records in file order from {@link #forEach}. */
+    public interface RecordVisitor {
+        void visit(AlarmRecord record);
+    }
+
+    private final AtomicFile file;
+    // Both null for stand-alone instances, which are not shared across processes
+    private final Context context;
+    private final AlarmStateSync sync;
+    private volatile long generation;
+    // Set while an unreadable file is still in place, so no write replaces it
+    private boolean unreadable;
+    private final LinkedHashMap<Integer, AlarmRecord> index = new LinkedHashMap<>();
+    private final ArrayList<String> sounds = new ArrayList<>();
+    private final HashMap<String, Integer> soundIds = new HashMap<>();
+
+    public static AlarmRepository getInstance(Context context) {
+        AlarmRepository current;
+        synchronized (AlarmRepository.class) {
+            current = instance;
+        }
+        if (current != null && !current.isStale()) {
+            return current;
+        }
+        Context appContext = context.getApplicationContext();
+        AlarmStateSync sync = AlarmStateSync.get(appContext);
+        sync.lock();
+        try {
+            synchronized (AlarmRepository.class) {
+                if (instance == null) {
+                    AlarmRepository repository = new AlarmRepository(appContext, sync);
+                    repository.reload();
+                    instance = repository;
+                } else {
+                    instance.refresh();
+                }
+                return instance;
+            }
+        } finally {
+            sync.unlock();
+        }
+    }
+
+    /**
+     * Visits every stored alarm. If the store is already loaded in this
+     * process the index is used; otherwise the file is streamed record by
+     * record without building the index, which keeps cold boot restore to
+     * a single sequential read.
+     */
+    public static void forEach(Context context, RecordVisitor visitor) throws IOException {
+        AlarmRepository loaded;
+        synchronized (AlarmRepository.class) {
+            loaded = instance;
+        }
+        Context appContext = context.getApplicationContext();
+        if (loaded == null) {
+            AlarmStateSync sync = AlarmStateSync.get(appContext);
+            sync.lock();
+            try (FileInputStream fis = new AtomicFile(storeFile(appContext)).openRead()) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fis));
+                if (readHeader(in) == VERSION) {
+                    streamRecords(in, readSounds(in), visitor);
+                    return;
+                }
+            } catch (FileNotFoundException e) {
+                // Fall through so getInstance() runs the legacy migration
+            } finally {
+                sync.unlock();
+            }
+        }
+        loaded = getInstance(appContext);
+        for (AlarmRecord record : loaded.getAll()) {
+            visitor.visit(record);
+        }
+    }
+
+    private static File storeFile(Context appContext) {
+        return new File(appContext.getFilesDir(), FILE_NAME);
+    }
+
+    AlarmRepository(File file) {
+        this.file = new AtomicFile(file);
+        this.context = null;
+        this.sync = null;
+    }
+
+    private AlarmRepository(Context appContext, AlarmStateSync sync) {
+        this.file = new AtomicFile(storeFile(appContext));
+        this.context = appContext;
+        this.sync = sync;
+    }
+
+    private boolean isStale() {
+        return sync != null && generation != sync.generation(AlarmStateSync.STORE);
+    }
+
+    /** Reloads the index if the other process wrote the file since. Call with the state lock held. */
+    private synchronized void refresh() {
+        if (isStale()) {
+            reload();
+        }
+    }
+
+    private synchronized void reload() {
+        index.clear();
+        sounds.clear();
+        soundIds.clear();
+        load(context);
+        generation = sync.generation(AlarmStateSync.STORE);
+        Log.d(TAG, "Reloaded alarm store at generation " + generation);
+    }
+
+    private void lockState() {
+        if (sync != null) {
+            sync.lock();
+            refresh();
+        }
+    }
+
+    /** Releases the state lock, first publishing a write if {@code written}. */
+    private void unlockState(boolean written) {
+        if (sync != null) {
+            if (written) {
+                generation = sync.bump(AlarmStateSync.STORE);
+            }
+            sync.unlock();
+        }
+    }
+
+    public synchronized AlarmRecord get(int id) {
+        return index.get(id);
+    }
+
+    public synchronized List<AlarmRecord> getAll() {
+        return new ArrayList<>(index.values());
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /** Inserts or replaces a record. Unchanged records do not touch the disk. */
+    public void put(AlarmRecord record) throws IOException {
+        boolean written = false;
+        lockState();
+        try {
+            synchronized (this) {
+                AlarmRecord previous = index.put(record.id, internSound(record));
+                if (record.equals(previous)) {
+                    return;
+                }
+                try {
+                    persist();
+                    written = true;
+                } catch (IOException e) {
+                    if (previous != null) {
+                        index.put(record.id, previous);
+                    } else {
+                        index.remove(record.id);
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            unlockState(written);
+        }
+    }
+
+    /** Inserts or replaces several records with a single write. */
+    public void putAll(Collection<AlarmRecord> records) throws IOException {
+        applyBatch(records, Collections.<Integer>emptyList());
+    }
+
+    /** Upserts {@code records} and deletes {@code removedIds} with a single write. */
+    public void applyBatch(Collection<AlarmRecord> records, Collection<Integer> removedIds)
+            throws IOException {
+        boolean written = false;
+        lockState();
+        try {
+            synchronized (this) {
+                LinkedHashMap<Integer, AlarmRecord> snapshot = new LinkedHashMap<>(index);
+                boolean changed = false;
+                for (AlarmRecord record : records) {
+                    changed |= !record.equals(index.put(record.id, internSound(record)));
+                }
+                for (Integer id : removedIds) {
+                    changed |= index.remove(id) != null;
+                }
+                if (!changed) {
+                    return;
+                }
+                try {
+                    persist();
+                    written = true;
+                } catch (IOException e) {
+                    index.clear();
+                    index.putAll(snapshot);
+                    throw e;
+                }
+            }
+        } finally {
+            unlockState(written);
+        }
+    }
+
+    public boolean remove(int id) throws IOException {
+        boolean written = false;
+        lockState();
+        try {
+            synchronized (this) {
+                AlarmRecord previous = index.remove(id);
+                if (previous == null) {
+                    return false;
+                }
+                try {
+                    persist();
+                    written = true;
+                } catch (IOException e) {
+                    index.put(id, previous);
+                    throw e;
+                }
+                return true;
+            }
+        } finally {
+            unlockState(written);
+        }
+    }
+
+    private AlarmRecord internSound(AlarmRecord record) {
+        Integer soundId = soundIds.get(record.sound);
+        if (soundId == null) {
+            soundIds.put(record.sound, sounds.size());
+            sounds.add(record.sound);
+            return record;
+        }
+        String canonical = sounds.get(soundId);
+        return canonical == record.sound ? record : record.withSound(canonical);
+    }
+
+    void load(Context context) {
+        unreadable = false;
+        int version = 0;
+        try (FileInputStream fis = file.openRead()) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fis));
+            version = readHeader(in);
+            for (String sound : readSounds(in)) {
+                soundIds.put(sound, sounds.size());
+                sounds.add(sound);
+            }
+            if (version == VERSION) {
+                streamRecords(in, sounds, record -> index.put(record.id, record));
+            } else {
+                streamRecordsV1(in, sounds, record -> index.put(record.id, record));
+            }
+            Log.d(TAG, "Loaded " + index.size() + " alarms (v" + version + ")");
+        } catch (FileNotFoundException e) {
+            // First run on this install, or first run after upgrading from prefs
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading alarm store", e);
+            index.clear();
+            sounds.clear();
+            soundIds.clear();
+            if (!setAside()) {
+                unreadable = true;
+                return;
+            }
+            version = 0;
+        }
+
+        if (version < VERSION) {
+            migrate(context);
+        }
+    }
+
+    /** Moves the unreadable store out of the way so the next write cannot replace it. */
+    private boolean setAside() {
+        File base = file.getBaseFile();
+        File aside = new File(base.getPath() + CORRUPT_SUFFIX);
+        aside.delete();
+        if (!base.renameTo(aside)) {
+            Log.e(TAG, "Could not move unreadable alarm store aside, refusing writes");
+            return false;
+        }
+        Log.w(TAG, "Moved unreadable alarm store to " + aside.getName());
+        return true;
+    }
+
+    private void migrate(Context context) {
+        List<AlarmRecord> imported = AlarmStoreMigration.readLegacy(context);
+        for (AlarmRecord record : imported) {
+            if (!index.containsKey(record.id)) {
+                index.put(record.id, internSound(record));
+            }
+        }
+        try {
+            persist();
+            if (sync != null) {
+                // The other process may already hold the pre-migration index
+                sync.bump(AlarmStateSync.STORE);
+            }
+            AlarmStoreMigration.clearLegacy(context);
+            Log.d(TAG, "Migrated alarm store to v" + VERSION + " (" + imported.size() + " legacy alarms)");
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing migrated alarm store", e);
+        }
+    }
+
+    private static int readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an alarm store");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported alarm store version " + version);
+        }
+        return version;
+    }
+
+    private static List<String> readSounds(DataInputStream in) throws IOException {
+        int soundCount = in.readUnsignedShort();
+        List<String> fileSounds = new ArrayList<>(soundCount);
+        for (int i = 0; i < soundCount; i++) {
+            fileSounds.add(in.readUTF());
+        }
+        return fileSounds;
+    }
+
+    private static void streamRecords(DataInputStream in, List<String> fileSounds, RecordVisitor visitor)
+            throws IOException {
+        int recordCount = in.readInt();
+        for (int i = 0; i < recordCount; i++) {
+            int id = in.readInt();
+            short minuteOfDay = in.readShort();
+            byte dayMask = in.readByte();
+            byte flags = in.readByte();
+            int soundIndex = in.readUnsignedShort();
+            long triggerAt = in.readLong();
+            String title = in.readUTF();
+            visitor.visit(new AlarmRecord(id, title, minuteOfDay, dayMask,
+                (flags & FLAG_ENABLED) != 0, fileSounds.get(soundIndex), triggerAt, priorityOf(flags)));
+        }
+    }
+
+    private static void streamRecordsV1(DataInputStream in, List<String> fileSounds, RecordVisitor visitor)
+            throws IOException {
+        int recordCount = in.readInt();
+        for (int i = 0; i < recordCount; i++) {
+            int id = in.readInt();
+            short minuteOfDay = in.readShort();
+            byte dayMask = in.readByte();
+            byte flags = in.readByte();
+            int soundIndex = in.readUnsignedShort();
+            String title = in.readUTF();
+            visitor.visit(new AlarmRecord(id, title, minuteOfDay, dayMask,
+                (flags & FLAG_ENABLED) != 0, fileSounds.get(soundIndex), 0L, priorityOf(flags)));
+        }
+    }
+
+    private static int priorityOf(byte flags) {
+        int priority = (flags >> PRIORITY_SHIFT) & PRIORITY_MASK;
+        // Unknown tiers from a newer version still ring as wake-ups
+        return priority <= AlarmRecord.PRIORITY_REMINDER ? priority : AlarmRecord.PRIORITY_CRITICAL;
+    }
+
+    /**
+     * Writes the index with a sound table of only the sounds it uses. The
+     * compacted table replaces the in-memory one once the file is written,
+     * so a failed write leaves it able to serve a rolled-back index.
+     */
+    private void persist() throws IOException {
+        if (unreadable) {
+            throw new IOException("Alarm store is unreadable and was not moved aside");
+        }
+        ArrayList<String> liveSounds = new ArrayList<>();
+        HashMap<String, Integer> liveIds = new HashMap<>();
+        for (AlarmRecord record : index.values()) {
+            if (!liveIds.containsKey(record.sound)) {
+                liveIds.put(record.sound, liveSounds.size());
+                liveSounds.add(record.sound);
+            }
+        }
+        if (liveSounds.size() > 0xFFFF) {
+            throw new IOException("Too many distinct alarm sounds: " + liveSounds.size());
+        }
+
+        FileOutputStream fos = file.startWrite();
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(liveSounds.size());
+            for (String sound : liveSounds) {
+                out.writeUTF(sound);
+            }
+            out.writeInt(index.size());
+            for (AlarmRecord record : index.values()) {
+                out.writeInt(record.id);
+                out.writeShort(record.minuteOfDay);
+                out.writeByte(record.dayMask);
+                out.writeByte((record.enabled ? FLAG_ENABLED : 0) | record.priority << PRIORITY_SHIFT);
+                out.writeShort(liveIds.get(record.sound));
+                out.writeLong(record.triggerAt);
+                out.writeUTF(record.title);
+            }
+            out.flush();
+            file.finishWrite(fos);
+        } catch (IOException e) {
+            file.failWrite(fos);
+            throw e;
+        }
+        if (liveSounds.size() < sounds.size()) {
+            sounds.clear();
+            sounds.addAll(liveSounds);
+            soundIds.clear();
+            soundIds.putAll(liveIds);
+        }
+    }
+}
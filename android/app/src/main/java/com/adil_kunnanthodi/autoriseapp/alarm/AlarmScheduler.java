@@ -0,0 +1,752 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Next-fire scheduling engine.
+ *
+ * All enabled alarms live in an in-memory {@link NextFireQueue} ordered by
+ * their next trigger time. Only the head of the queue is registered with
+ * the system {@link AlarmManager}, through a single {@link PendingIntent};
+ * {@link AlarmReceiver} calls {@link #onFire} when it goes off, which pops
+ * every due alarm, queues their next occurrences and re-arms the head.
+ * Scheduling or cancelling an alarm is a heap operation and only costs an
+ * IPC when the head of the queue changes.
+ *
+ * Snoozes live in the same queue under the key {@code ~alarmId}, so each
+ * alarm has at most one snooze slot: snoozing again moves it, and dismiss
+ * or cancel removes it in O(1) without any extra PendingIntent. Snooze
+ * slots and counts are mirrored to {@code snoozes.bin} so they survive the
+ * process being killed while the alarm is snoozed.
+ *
+ * Every queue change is also written to a {@link FireJournal}, which lets
+ * {@link #rebuild} spot alarms that should have rung while the process
+ * was gone and catch them up.
+ *
+ * When the alarm components run in the {@link AlarmProcess :alarm}
+ * process, the app process has a scheduler of its own. Every call runs
+ * under the {@link AlarmStateSync} lock and first adopts whatever the
+ * other process changed, so both drive the same queue and the same
+ * system alarm.
+ */
+public class AlarmScheduler {
+    private static final String TAG = "AlarmScheduler";
+    static final String ACTION_FIRE = "com.autoriseapp.ALARM_TRIGGER";
+    static final String EXTRA_TRIGGER_TIME = "triggerTime";
+    // Set when the fire was armed as a reminder window, so lateness is expected
+    static final String EXTRA_WINDOWED = "windowed";
+    private static final int REQUEST_CODE_FIRE = 0;
+    private static final int REQUEST_CODE_PREWARM = 1;
+    private static final int REQUEST_CODE_SHOW = 2;
+    // Alarms due within this window of a fire are delivered together
+    private static final long FIRE_SLOP_MS = 1000;
+    private static final String SNOOZE_FILE_NAME = "snoozes.bin";
+    // An expected fire this overdue on rebuild is late, not missed
+    private static final long LATE_GRACE_MS = 60000;
+
+    private static AlarmScheduler instance;
+
+    private final Context context;
+    private final AlarmManager alarmManager;
+    private final NextFireQueue queue = new NextFireQueue();
+    // Snoozes taken since the alarm last rang on schedule, by alarm ID
+    private final HashMap<Integer, Integer> snoozeCounts = new HashMap<>();
+    private final AtomicFile snoozeFile;
+    private final FireJournal journal;
+    private final AlarmStateSync sync;
+    // Generation of the shared schedule this queue reflects
+    private long generation;
+    // Whether the call holding the state lock changed the journal or snoozes
+    private boolean written;
+    private long armedTime = -1;
+    // What arm() asked for, and what the system alarm got after any fallback
+    private int requestedDelivery = -1;
+    private int armedDelivery = -1;
+
+    public static synchronized AlarmScheduler getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            AlarmStateSync sync = AlarmStateSync.get(appContext);
+            sync.lock();
+            try {
+                AlarmScheduler scheduler = new AlarmScheduler(appContext, sync);
+                scheduler.rebuild();
+                instance = scheduler;
+            } finally {
+                sync.unlock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Rebuilds the queue from the store, e.g. after boot or an app update.
+     * Returns the number of alarms queued.
+     */
+    public static synchronized int restore(Context context) {
+        if (instance == null) {
+            return getInstance(context).size();
+        }
+        return instance.rebuild();
+    }
+
+    // Called with the state lock held, so the journal and generation agree
+    private AlarmScheduler(Context context, AlarmStateSync sync) {
+        this.context = context;
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        this.snoozeFile = new AtomicFile(new File(context.getFilesDir(), SNOOZE_FILE_NAME));
+        this.journal = new FireJournal(new File(context.getFilesDir(), FireJournal.FILE_NAME));
+        this.sync = sync;
+        this.generation = sync.generation(AlarmStateSync.SCHEDULE);
+    }
+
+    // Alarm IDs are non-negative, so their complements never collide with them
+    private static int snoozeKey(int alarmId) {
+        return ~alarmId;
+    }
+
+    /** Adds, moves or removes {@code record} depending on whether it is enabled and has a future fire. */
+    public synchronized void schedule(AlarmRecord record) {
+        lockState();
+        try {
+            long next = record.enabled ? nextFireTime(record, System.currentTimeMillis()) : -1;
+            if (next < 0) {
+                unqueue(record.id);
+            } else {
+                queueAt(record.id, next);
+                Log.d(TAG, "Alarm " + record.id + " next fires at " + new java.util.Date(next));
+            }
+            arm();
+        } finally {
+            unlockState();
+        }
+    }
+
+    /** Schedules {@code records} and drops {@code removedIds}, re-arming the system alarm at most once. */
+    public synchronized void applyBatch(Collection<AlarmRecord> records, Collection<Integer> removedIds) {
+        lockState();
+        try {
+            long now = System.currentTimeMillis();
+            for (AlarmRecord record : records) {
+                long next = record.enabled ? nextFireTime(record, now) : -1;
+                if (next < 0) {
+                    unqueue(record.id);
+                } else {
+                    queueAt(record.id, next);
+                }
+            }
+            boolean snoozesChanged = false;
+            for (Integer id : removedIds) {
+                unqueue(id);
+                snoozesChanged |= clearSnooze(id);
+            }
+            if (snoozesChanged) {
+                persistSnoozes();
+            }
+            arm();
+        } finally {
+            unlockState();
+        }
+    }
+
+    public synchronized void cancel(int alarmId) {
+        lockState();
+        try {
+            boolean removed = unqueue(alarmId);
+            if (clearSnooze(alarmId)) {
+                persistSnoozes();
+                removed = true;
+            }
+            if (removed) {
+                arm();
+            }
+        } finally {
+            unlockState();
+        }
+    }
+
+    /**
+     * Queues a re-fire of {@code alarmId} one snooze duration from
+     * {@code now}, reusing the alarm's snooze slot. Returns the re-fire
+     * time, or -1 if the policy's snooze limit has been reached.
+     */
+    public synchronized long snooze(int alarmId, SnoozePolicy policy, long now) {
+        lockState();
+        try {
+            int count = getSnoozeCount(alarmId);
+            if (!policy.canSnooze(count)) {
+                return -1;
+            }
+            long refireAt = now + policy.durationMillis();
+            queueAt(snoozeKey(alarmId), refireAt);
+            snoozeCounts.put(alarmId, count + 1);
+            persistSnoozes();
+            arm();
+            AlarmEvents.snoozed(alarmId, refireAt, count + 1);
+            Log.d(TAG, "Alarm " + alarmId + " snoozed (" + (count + 1) + "/" + policy.maxSnoozes
+                + ") until " + new java.util.Date(refireAt));
+            return refireAt;
+        } finally {
+            unlockState();
+        }
+    }
+
+    /** Ends the current ring of {@code alarmId}, dropping any outstanding snooze. */
+    public synchronized void dismiss(int alarmId) {
+        lockState();
+        try {
+            if (clearSnooze(alarmId)) {
+                persistSnoozes();
+                arm();
+            }
+            AlarmEvents.dismissed(alarmId);
+        } finally {
+            unlockState();
+        }
+    }
+
+    /** Number of times {@code alarmId} has been snoozed since it last rang on schedule. */
+    public synchronized int getSnoozeCount(int alarmId) {
+        refreshIfStale();
+        Integer count = snoozeCounts.get(alarmId);
+        return count != null ? count : 0;
+    }
+
+    private boolean clearSnooze(int alarmId) {
+        boolean queued = unqueue(snoozeKey(alarmId));
+        return snoozeCounts.remove(alarmId) != null || queued;
+    }
+
+    public synchronized int size() {
+        refreshIfStale();
+        return queue.size();
+    }
+
+    /** Returns the earliest queued trigger time, or -1 if nothing is scheduled. */
+    public synchronized long getNextFireTime() {
+        refreshIfStale();
+        return queue.isEmpty() ? -1 : queue.peekTime();
+    }
+
+    /** Returns the ID of the alarm that rings next (a snooze counts as its alarm), or -1 if none. */
+    public synchronized int getNextAlarmId() {
+        refreshIfStale();
+        if (queue.isEmpty()) {
+            return -1;
+        }
+        int key = queue.peekId();
+        return key < 0 ? ~key : key;
+    }
+
+    /** Returns when {@code alarmId} rings next, counting a pending snooze, or -1 if it is not queued. */
+    public synchronized long getNextFireTime(int alarmId) {
+        refreshIfStale();
+        long scheduled = queue.timeOf(alarmId);
+        long snoozed = queue.timeOf(snoozeKey(alarmId));
+        if (scheduled < 0 || snoozed < 0) {
+            return Math.max(scheduled, snoozed);
+        }
+        return Math.min(scheduled, snoozed);
+    }
+
+    /**
+     * Pops every alarm due at {@code now}, queues the next occurrence of the
+     * repeating ones and re-arms the system alarm. Returns the alarms that
+     * should ring.
+     */
+    public synchronized List<AlarmRecord> onFire(long now) {
+        lockState();
+        try {
+            AlarmRepository repository = AlarmRepository.getInstance(context);
+            List<AlarmRecord> due = new ArrayList<>();
+            boolean snoozesChanged = false;
+            while (!queue.isEmpty() && queue.peekTime() <= now + FIRE_SLOP_MS) {
+                long firedAt = queue.peekTime();
+                int key = queue.poll();
+                boolean isSnooze = key < 0;
+                int alarmId = isSnooze ? ~key : key;
+                AlarmRecord record = repository.get(alarmId);
+                if (record == null || !record.enabled) {
+                    written |= journal.cancelled(key);
+                    snoozesChanged |= clearSnooze(alarmId);
+                    continue;
+                }
+                journal.fired(key, firedAt, now, now - firedAt > lateGrace(record));
+                written = true;
+                if (isSnooze) {
+                    // The count stays until dismiss so the next snooze knows how many came before
+                    snoozesChanged = true;
+                } else {
+                    // A scheduled ring starts a fresh snooze sequence
+                    snoozesChanged |= clearSnooze(alarmId);
+                    if (record.isRepeating()) {
+                        long next = nextFireTime(record, Math.max(now, firedAt));
+                        queueAt(record.id, next);
+                        AlarmEvents.rescheduled(record.id, next, 0);
+                    }
+                }
+                due.add(record);
+            }
+            if (snoozesChanged) {
+                persistSnoozes();
+            }
+            armedTime = -1; // the system alarm we were holding has been consumed
+            arm();
+            return due;
+        } finally {
+            unlockState();
+        }
+    }
+
+    /**
+     * Re-evaluates queued repeating alarms after a time zone or wall-clock
+     * change, in one pass over the queue. Only alarms whose next fire time
+     * moved are updated, and the system alarm is re-armed at most once.
+     * One-shot alarms and snoozes are absolute instants and stay put, and
+     * so does anything already due at {@code now}: after the clock jumps
+     * forward the system delivers the overdue fire and {@link #onFire}
+     * rings it late, where moving it would silently skip that ring.
+     * Returns the number of alarms that moved.
+     */
+    public synchronized int onClockChanged(long now) {
+        lockState();
+        try {
+            RecurrenceCalculator.invalidate();
+            AlarmRepository repository = AlarmRepository.getInstance(context);
+
+            int size = queue.size();
+            int[] movedIds = new int[size];
+            long[] movedTimes = new long[size];
+            int moved = 0;
+            for (int i = 0; i < size; i++) {
+                int key = queue.idAt(i);
+                AlarmRecord record = key >= 0 ? repository.get(key) : null;
+                if (record == null || !record.isRepeating() || queue.timeAt(i) <= now) {
+                    continue;
+                }
+                long next = nextFireTime(record, now);
+                if (next != queue.timeAt(i)) {
+                    movedIds[moved] = key;
+                    movedTimes[moved] = next;
+                    moved++;
+                }
+            }
+
+            // Apply after the scan so heap moves cannot reorder unvisited slots
+            for (int i = 0; i < moved; i++) {
+                if (movedTimes[i] < 0) {
+                    unqueue(movedIds[i]);
+                } else {
+                    queueAt(movedIds[i], movedTimes[i]);
+                }
+                AlarmEvents.rescheduled(movedIds[i], movedTimes[i], 0);
+            }
+            if (moved > 0) {
+                arm();
+            }
+            Log.d(TAG, "Clock change moved " + moved + " of " + size + " queued alarms");
+            return moved;
+        } finally {
+            unlockState();
+        }
+    }
+
+    /**
+     * Reloads the queue from the repository and re-registers the head.
+     * Returns the number of alarms queued.
+     */
+    public synchronized int rebuild() {
+        lockState();
+        try {
+            long now = System.currentTimeMillis();
+            List<AlarmRecord> enabled = loadEnabled();
+            // Taken before the rebuild replaces what the last process expected
+            Map<Integer, Long> overdue = journal.overdue(now);
+            queue.rebuild(enabled, now);
+            loadSnoozes(idsOf(enabled));
+            catchUp(overdue, enabled, now);
+            journal.reconcile(queue);
+            // The other process adopts the rebuilt queue wholesale
+            written = true;
+            armedTime = -1;
+            arm();
+            AlarmEvents.rescheduled(-1, getNextFireTime(), queue.size());
+            Log.d(TAG, "Scheduler rebuilt with " + queue.size() + " alarms");
+            return queue.size();
+        } finally {
+            unlockState();
+        }
+    }
+
+    /**
+     * Adopts the schedule the other process wrote since this one last
+     * looked. The journal's outstanding expectations are exactly that
+     * process's queue, so they are taken as-is rather than recomputed.
+     * Call with the state lock held.
+     */
+    private void refresh() {
+        long current = sync.generation(AlarmStateSync.SCHEDULE);
+        if (current == generation) {
+            return;
+        }
+        journal.reopen();
+        // Clock and zone changes are only delivered to the alarm process
+        RecurrenceCalculator.invalidate();
+        queue.clear();
+        if (journal.isOpen()) {
+            for (Map.Entry<Integer, Long> entry : journal.outstanding().entrySet()) {
+                queue.upsert(entry.getKey(), entry.getValue());
+            }
+            loadSnoozes(null);
+        } else {
+            List<AlarmRecord> enabled = loadEnabled();
+            queue.rebuild(enabled, System.currentTimeMillis());
+            loadSnoozes(idsOf(enabled));
+        }
+        // Whatever this process armed last may have been replaced since
+        armedTime = -1;
+        generation = current;
+        Log.d(TAG, "Adopted schedule generation " + current + " with " + queue.size() + " alarms");
+    }
+
+    /** Takes the state lock and catches up with the other process; pair with {@link #unlockState}. */
+    private void lockState() {
+        sync.lock();
+        refresh();
+        written = false;
+    }
+
+    /**
+     * Publishes this call's changes to the other process, if it made any,
+     * and releases the state lock. Calls that only re-armed the system
+     * alarm leave the generation alone, so the other process keeps its
+     * queue instead of reloading it.
+     */
+    private void unlockState() {
+        if (written) {
+            generation = sync.bump(AlarmStateSync.SCHEDULE);
+            written = false;
+        }
+        sync.unlock();
+    }
+
+    /** For read-only calls: catches up with the other process, locking only if it wrote. */
+    private void refreshIfStale() {
+        if (generation != sync.generation(AlarmStateSync.SCHEDULE)) {
+            sync.lock();
+            try {
+                refresh();
+            } finally {
+                sync.unlock();
+            }
+        }
+    }
+
+    private List<AlarmRecord> loadEnabled() {
+        List<AlarmRecord> enabled = new ArrayList<>();
+        try {
+            AlarmRepository.forEach(context, record -> {
+                if (record.enabled) {
+                    enabled.add(record);
+                }
+            });
+        } catch (IOException e) {
+            Log.e(TAG, "Error loading alarms for scheduling", e);
+        }
+        return enabled;
+    }
+
+    private static Set<Integer> idsOf(List<AlarmRecord> records) {
+        HashSet<Integer> ids = new HashSet<>();
+        for (AlarmRecord record : records) {
+            ids.add(record.id);
+        }
+        return ids;
+    }
+
+    /** How late {@code record} may ring before it counts as missed; reminders have their window on top. */
+    private static long lateGrace(AlarmRecord record) {
+        return record.priority == AlarmRecord.PRIORITY_REMINDER
+            ? LATE_GRACE_MS + DeliveryPolicy.REMINDER_WINDOW_MS
+            : LATE_GRACE_MS;
+    }
+
+    /**
+     * Fire watchdog: handles alarms the journal expected to ring before
+     * {@code now} that never did, because the device was off, the process
+     * was killed or force-stopped, or this process was started by the very
+     * broadcast that should ring them. Ones due within
+     * {@link #lateGrace} are simply late and are queued to ring now.
+     * Older ones are misses: {@link CatchUpPolicy} decides whether they
+     * still ring, and either way the miss is journaled and reported to JS.
+     * Snooze slots are already re-queued by {@link #loadSnoozes}.
+     */
+    private void catchUp(Map<Integer, Long> overdue, List<AlarmRecord> enabled, long now) {
+        if (overdue.isEmpty()) {
+            return;
+        }
+        HashMap<Integer, AlarmRecord> enabledById = new HashMap<>();
+        for (AlarmRecord record : enabled) {
+            enabledById.put(record.id, record);
+        }
+        CatchUpPolicy policy = CatchUpPolicy.load(context);
+        int late = 0;
+        int missed = 0;
+        for (Map.Entry<Integer, Long> entry : overdue.entrySet()) {
+            int key = entry.getKey();
+            long scheduledFor = entry.getValue();
+            if (key < 0 || !enabledById.containsKey(key)) {
+                continue;
+            }
+            if (now - scheduledFor <= lateGrace(enabledById.get(key))) {
+                queue.upsert(key, scheduledFor);
+                late++;
+                continue;
+            }
+            boolean ring = policy.shouldRing(scheduledFor, now);
+            if (ring) {
+                queue.upsert(key, scheduledFor);
+            }
+            journal.missed(key, scheduledFor, now, ring);
+            written = true;
+            AlarmEvents.missed(key, scheduledFor, ring);
+            missed++;
+            Log.w(TAG, "Alarm " + key + " missed its fire at " + new java.util.Date(scheduledFor)
+                + (ring ? ", ringing now" : ""));
+        }
+        if (late + missed > 0) {
+            Log.d(TAG, "Watchdog found " + late + " late and " + missed + " missed alarms");
+        }
+    }
+
+    /**
+     * Restores snooze slots for alarms in {@code enabledIds}, or all of
+     * them if null. Snoozes that came due while the process was gone are
+     * queued in the past, so the system alarm fires them straight away.
+     */
+    private void loadSnoozes(Set<Integer> enabledIds) {
+        snoozeCounts.clear();
+        try (FileInputStream fis = snoozeFile.openRead()) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fis));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int alarmId = in.readInt();
+                long refireAt = in.readLong();
+                int snoozes = in.readUnsignedByte();
+                if (enabledIds == null || enabledIds.contains(alarmId)) {
+                    snoozeCounts.put(alarmId, snoozes);
+                    if (refireAt > 0) {
+                        queue.upsert(snoozeKey(alarmId), refireAt);
+                    }
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing snoozed
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading snooze state", e);
+        }
+    }
+
+    private void persistSnoozes() {
+        FileOutputStream fos = null;
+        try {
+            fos = snoozeFile.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(snoozeCounts.size());
+            for (Map.Entry<Integer, Integer> entry : snoozeCounts.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeLong(queue.timeOf(snoozeKey(entry.getKey())));
+                out.writeByte(entry.getValue());
+            }
+            out.flush();
+            snoozeFile.finishWrite(fos);
+            written = true;
+        } catch (IOException e) {
+            if (fos != null) {
+                snoozeFile.failWrite(fos);
+            }
+            Log.e(TAG, "Error writing snooze state", e);
+        }
+    }
+
+    /** Queues {@code key} at {@code time} and journals the expectation. */
+    private void queueAt(int key, long time) {
+        queue.upsert(key, time);
+        written |= journal.scheduled(key, time);
+    }
+
+    /** Drops {@code key} from the queue without it ringing. */
+    private boolean unqueue(int key) {
+        written |= journal.cancelled(key);
+        return queue.remove(key);
+    }
+
+    synchronized FireJournal journal() {
+        refreshIfStale();
+        return journal;
+    }
+
+    private void arm() {
+        if (queue.isEmpty()) {
+            if (armedTime != 0) {
+                alarmManager.cancel(firePendingIntent(0));
+                alarmManager.cancel(prewarmPendingIntent(0));
+                armedTime = 0;
+            }
+            return;
+        }
+        boolean exactAllowed = DeliveryPolicy.canScheduleExact(alarmManager);
+        int key = queue.peekId();
+        long target = queue.peekTime();
+        int delivery = DeliveryPolicy.choose(priorityOf(key), exactAllowed);
+        if (DeliveryPolicy.isWindowed(delivery)) {
+            // A stricter alarm inside the reminder's window is armed instead; the
+            // reminders before it ring with it, still within their window
+            int strict = firstStrictBefore(target + DeliveryPolicy.REMINDER_WINDOW_MS);
+            if (strict >= 0) {
+                key = queue.idAt(strict);
+                target = queue.timeAt(strict);
+                delivery = DeliveryPolicy.choose(priorityOf(key), exactAllowed);
+            }
+        }
+        if (target == armedTime && delivery == requestedDelivery) {
+            return;
+        }
+        requestedDelivery = delivery;
+        armedDelivery = DeliveryPolicy.arm(alarmManager, delivery, target,
+            firePendingIntent(target, delivery), showPendingIntent());
+        armedTime = target;
+        if (DeliveryPolicy.isWindowed(armedDelivery) || !exactAllowed) {
+            // Nothing to get ready for a reminder, and setExact would need the permission
+            alarmManager.cancel(prewarmPendingIntent(0));
+        } else {
+            armPrewarm(target);
+        }
+        Log.d(TAG, "Armed " + (key < 0 ? "snooze of alarm " + ~key : "alarm " + key) + " for "
+            + new java.util.Date(target) + " (" + DeliveryPolicy.name(armedDelivery) + ")");
+    }
+
+    /** Priority of the alarm behind queue {@code key}; snoozes ring with their alarm's priority. */
+    private int priorityOf(int key) {
+        AlarmRecord record = AlarmRepository.getInstance(context).get(key < 0 ? ~key : key);
+        return record != null ? record.priority : AlarmRecord.PRIORITY_CRITICAL;
+    }
+
+    /**
+     * Queue index of the earliest non-reminder due before {@code limit}, or
+     * -1. Only needed when a reminder is at the head, so a linear scan of
+     * the heap is fine.
+     */
+    private int firstStrictBefore(long limit) {
+        int found = -1;
+        for (int i = 0; i < queue.size(); i++) {
+            long time = queue.timeAt(i);
+            if (time < limit && (found < 0 || time < queue.timeAt(found))
+                    && priorityOf(queue.idAt(i)) != AlarmRecord.PRIORITY_REMINDER) {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Re-arms the system alarms from scratch, e.g. after the pre-fire lead
+     * changed or exact alarms were allowed again.
+     */
+    public synchronized void rearm() {
+        lockState();
+        try {
+            armedTime = -1;
+            arm();
+        } finally {
+            unlockState();
+        }
+    }
+
+    /**
+     * Arms the {@link AlarmPrewarm} stage ahead of {@code head}, or cancels
+     * it when there is no room before the fire. Plain {@code setExact}
+     * keeps it out of the Doze allow-while-idle budget the fire itself needs.
+     */
+    private void armPrewarm(long head) {
+        long prewarmAt = head - AlarmPrewarm.leadMillis(context);
+        if (prewarmAt >= head || prewarmAt <= System.currentTimeMillis()) {
+            alarmManager.cancel(prewarmPendingIntent(0));
+            return;
+        }
+        alarmManager.setExact(AlarmManager.RTC_WAKEUP, prewarmAt, prewarmPendingIntent(head));
+    }
+
+    /** What tapping the next-alarm icon in the status bar opens: the app. */
+    private PendingIntent showPendingIntent() {
+        Intent launch = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        if (launch == null) {
+            return null;
+        }
+        return PendingIntent.getActivity(
+            context,
+            REQUEST_CODE_SHOW,
+            launch,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private PendingIntent prewarmPendingIntent(long triggerTime) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(AlarmPrewarm.ACTION_PREWARM);
+        intent.putExtra(AlarmPrewarm.EXTRA_TRIGGER_TIME, triggerTime);
+        return PendingIntent.getBroadcast(
+            context,
+            REQUEST_CODE_PREWARM,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private PendingIntent firePendingIntent(long triggerTime) {
+        return firePendingIntent(triggerTime, DeliveryPolicy.EXACT);
+    }
+
+    private PendingIntent firePendingIntent(long triggerTime, int delivery) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(ACTION_FIRE);
+        intent.putExtra(EXTRA_TRIGGER_TIME, triggerTime);
+        intent.putExtra(EXTRA_WINDOWED, DeliveryPolicy.isWindowed(delivery));
+        return PendingIntent.getBroadcast(
+            context,
+            REQUEST_CODE_FIRE,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    /**
+     * Next time strictly after {@code now} that {@code record} should fire,
+     * or -1 if it never will (a one-shot alarm in the past).
+     */
+    static long nextFireTime(AlarmRecord record, long now) {
+        return record.nextFireTime(now);
+    }
+}
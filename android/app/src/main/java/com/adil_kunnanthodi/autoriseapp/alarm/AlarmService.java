@@ -3,81 +3,163 @@ package com.adil_kunnanthodi.autoriseapp.alarm;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
+import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
-import android.content.res.AssetFileDescriptor;
 import android.media.AudioAttributes;
 import android.media.AudioFocusRequest;
 import android.media.AudioManager;
-import android.media.MediaPlayer;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
-import android.os.PowerManager;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.os.Vibrator;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
 
-public class AlarmService extends Service {
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rings every alarm in {@link RingingSessionManager} through one audio
+ * output, one vibration pattern and one foreground notification.
+ *
+ * Each ringing alarm also gets its own silent notification with dismiss
+ * and snooze actions, grouped under the foreground summary. When many
+ * alarms fire in the same minute the audio switch and notification updates
+ * are coalesced, only {@link #MAX_SESSION_NOTIFICATIONS} per-alarm
+ * notifications are shown at once, and an alarm is only re-posted when it
+ * is new, which keeps well inside the system's notification rate limit.
+ */
+public class AlarmService extends Service implements RingingSessionManager.Listener {
     private static final String TAG = "AlarmService";
     private static final String CHANNEL_ID = "alarm_channel";
+    private static final String NOTIFICATION_GROUP = "autorise_ringing";
     private static final int NOTIFICATION_ID = 1001;
+    private static final int MAX_SESSION_NOTIFICATIONS = 8;
+    // Alarms firing together only switch the sound once
+    private static final long AUDIO_SWITCH_DELAY_MS = 150;
+    // The system drops notification updates beyond about five per second
+    private static final long NOTIFICATION_REFRESH_DELAY_MS = 300;
+    
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable syncAudio = this::syncAudio;
+    private final Runnable refreshNotifications = this::refreshNotifications;
+    private final RingingSessionManager sessions = RingingSessionManager.get();
+    private Set<Integer> postedNotificationIds = new HashSet<>();
     
-    private MediaPlayer mediaPlayer;
     private Vibrator vibrator;
-    private PowerManager.WakeLock wakeLock;
     private AudioManager audioManager;
     private AudioFocusRequest audioFocusRequest;
-    private String currentAlarmId;
+    private AlarmAudioEngine audioEngine;
+    private AlarmPlaybackChain playbackChain;
+    private boolean inForeground;
+    private boolean audioActive;
+    private String playingSound;
+    private float playingVolume;
 
     @Override
     public void onCreate() {
         super.onCreate();
-        createNotificationChannel();
+        ensureNotificationChannel(this);
         
         audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
         vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-        
-        // Acquire wake lock
-        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
-        wakeLock = powerManager.newWakeLock(
-            PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ON_AFTER_RELEASE,
-            "AutoRise:AlarmServiceWakeLock"
-        );
-        wakeLock.acquire(300000); // 5 minutes timeout
+        audioEngine = new AlarmAudioEngine(this, alarmAudioAttributes());
+        sessions.setPolicy(RingingSessionManager.loadPolicy(this));
+        AlarmMetrics.attach(this);
+        sessions.addListener(this);
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        currentAlarmId = intent.getStringExtra("alarmId");
-        String label = intent.getStringExtra("label");
-        
-        Log.d(TAG, "Starting alarm service for: " + currentAlarmId);
-        
-        // Start foreground service
-        Notification notification = createNotification(label);
-        startForeground(NOTIFICATION_ID, notification);
-        
-        // Request audio focus and start playing alarm
-        requestAudioFocusAndPlay();
+        long startCommandAt = SystemClock.elapsedRealtime();
+        // Take over the receiver's hold; the lock now lives as long as playback
+        AlarmWakeLock.acquire(this, AlarmWakeLock.HOLD_PLAYBACK, AlarmWakeLock.PLAYBACK_TIMEOUT_MS);
+        AlarmWakeLock.release(AlarmWakeLock.HOLD_HANDOFF);
+        if (intent == null) {
+            return START_NOT_STICKY;
+        }
         
-        // Start vibration pattern
-        startVibration();
+        Trace.beginSection("AlarmService.onStartCommand");
+        try {
+            RingingSessionManager.Session session = sessionFrom(intent, startCommandAt);
+            Log.d(TAG, "Starting alarm service for: " + session.alarmId);
+            List<RingingSessionManager.Session> replaced = sessions.start(session);
+            if (!replaced.isEmpty()) {
+                AlarmActionReceiver.dismissReplaced(this, replaced);
+            }
+            
+            // Start foreground service; the notification also brings up AlarmActivity
+            if (!inForeground) {
+                startForeground(NOTIFICATION_ID, createSummaryNotification());
+                inForeground = true;
+            }
+        } finally {
+            Trace.endSection();
+        }
         
         return START_NOT_STICKY; // Don't restart if killed
     }
 
+    private RingingSessionManager.Session sessionFrom(Intent intent, long startCommandAt) {
+        String alarmId = intent.getStringExtra("alarmId");
+        String sound = intent.getStringExtra("sound");
+        if (sound == null) {
+            sound = soundFor(alarmId);
+        }
+        int snoozeCount = intent.getIntExtra("snoozeCount", 0);
+        return new RingingSessionManager.Session(
+            alarmId,
+            intent.getStringExtra("label"),
+            sound,
+            SnoozePolicy.load(this).volumeFor(snoozeCount),
+            snoozeCount,
+            intent.getIntExtra(AlarmActivity.EXTRA_SNOOZE_MINUTES, SnoozePolicy.DEFAULT_DURATION_MINUTES),
+            intent.getBooleanExtra(AlarmActivity.EXTRA_CAN_SNOOZE, true),
+            intent.getLongExtra(AlarmActivity.EXTRA_RECEIVED_AT, 0),
+            startCommandAt
+        );
+    }
+
+    @Override
+    public void onSessionsChanged() {
+        if (sessions.isEmpty()) {
+            Log.d(TAG, "No alarms ringing, stopping");
+            stopAlarmPlayback();
+            cancelSessionNotifications();
+            stopForeground(true);
+            inForeground = false;
+            stopSelf();
+            return;
+        }
+        
+        mainHandler.removeCallbacks(syncAudio);
+        if (audioActive) {
+            mainHandler.postDelayed(syncAudio, AUDIO_SWITCH_DELAY_MS);
+        } else {
+            syncAudio();
+        }
+        mainHandler.removeCallbacks(refreshNotifications);
+        mainHandler.postDelayed(refreshNotifications, NOTIFICATION_REFRESH_DELAY_MS);
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
         
         Log.d(TAG, "Destroying alarm service");
         
+        sessions.removeListener(this);
         stopAlarmPlayback();
-        
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-        }
+        cancelSessionNotifications();
+        // Stopped from outside (e.g. the system); let the alarm screen close too
+        sessions.endAll();
     }
 
     @Override
@@ -85,7 +167,8 @@ public class AlarmService extends Service {
         return null; // Not a bound service
     }
 
-    private void createNotificationChannel() {
+    /** Registers the alarm channel; also called by {@link AlarmPrewarm} ahead of the fire. */
+    static void ensureNotificationChannel(Context context) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel channel = new NotificationChannel(
                 CHANNEL_ID,
@@ -96,24 +179,150 @@ public class AlarmService extends Service {
             channel.enableVibration(true);
             channel.setSound(null, null); // We handle sound ourselves
             
-            NotificationManager manager = getSystemService(NotificationManager.class);
+            NotificationManager manager = context.getSystemService(NotificationManager.class);
             manager.createNotificationChannel(channel);
         }
     }
 
-    private Notification createNotification(String label) {
-        return new NotificationCompat.Builder(this, CHANNEL_ID)
+    /**
+     * Foreground notification summarising every ringing alarm. Its
+     * full-screen intent opens {@link AlarmActivity} for the front alarm
+     * over the lock screen (or shows as heads-up while the device is in
+     * use) and its action buttons silence alarms through
+     * {@link AlarmActionReceiver} without opening any activity.
+     */
+    private Notification createSummaryNotification() {
+        RingingSessionManager.Session front = sessions.front();
+        int count = sessions.size();
+        PendingIntent fullScreenIntent = activityIntent(front);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE
+                && !getSystemService(NotificationManager.class).canUseFullScreenIntent()) {
+            Log.w(TAG, "Full-screen intent permission revoked; alarm will show as heads-up only");
+        }
+
+        String text = front.label != null ? front.label : "AutoRise Alarm";
+        if (count > MAX_SESSION_NOTIFICATIONS) {
+            text += " (+" + (count - MAX_SESSION_NOTIFICATIONS) + " more)";
+        }
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
+            .setContentTitle(count > 1 ? count + " alarms ringing" : "Alarm Active")
+            .setContentText(text)
+            .setSmallIcon(android.R.drawable.ic_lock_idle_alarm)
+            .setPriority(NotificationCompat.PRIORITY_MAX)
+            .setCategory(NotificationCompat.CATEGORY_ALARM)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .setFullScreenIntent(fullScreenIntent, true)
+            .setContentIntent(fullScreenIntent)
+            .setGroup(NOTIFICATION_GROUP)
+            .setGroupSummary(true)
+            .setOnlyAlertOnce(true)
+            .setOngoing(true)
+            .setAutoCancel(false);
+        addSessionActions(builder, front);
+        if (count > 1) {
+            builder.addAction(android.R.drawable.ic_menu_close_clear_cancel, "Dismiss all",
+                AlarmActionReceiver.actionIntent(this, AlarmActionReceiver.ACTION_DISMISS_ALL, null));
+        }
+        return builder.build();
+    }
+
+    /** Silent per-alarm notification, grouped under the summary, with that alarm's actions. */
+    private Notification createSessionNotification(RingingSessionManager.Session session) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
             .setContentTitle("Alarm Active")
-            .setContentText(label != null ? label : "AutoRise Alarm")
+            .setContentText(session.label != null ? session.label : "AutoRise Alarm")
             .setSmallIcon(android.R.drawable.ic_lock_idle_alarm)
-            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setPriority(NotificationCompat.PRIORITY_MAX)
             .setCategory(NotificationCompat.CATEGORY_ALARM)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .setContentIntent(activityIntent(session))
+            .setGroup(NOTIFICATION_GROUP)
+            .setSilent(true)
             .setOngoing(true)
-            .setAutoCancel(false)
-            .build();
+            .setAutoCancel(false);
+        addSessionActions(builder, session);
+        return builder.build();
+    }
+
+    private void addSessionActions(NotificationCompat.Builder builder, RingingSessionManager.Session session) {
+        builder.addAction(android.R.drawable.ic_menu_close_clear_cancel, "Dismiss",
+            AlarmActionReceiver.actionIntent(this, AlarmActionReceiver.ACTION_DISMISS, session.alarmId));
+        if (session.canSnooze) {
+            builder.addAction(android.R.drawable.ic_popup_reminder, "Snooze " + session.snoozeMinutes + " min",
+                AlarmActionReceiver.actionIntent(this, AlarmActionReceiver.ACTION_SNOOZE, session.alarmId));
+        }
     }
 
-    private void requestAudioFocusAndPlay() {
+    private PendingIntent activityIntent(RingingSessionManager.Session session) {
+        Intent intent = new Intent(this, AlarmActivity.class);
+        session.putExtras(intent);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
+                        Intent.FLAG_ACTIVITY_CLEAR_TOP |
+                        Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        return PendingIntent.getActivity(
+            this,
+            AlarmActionReceiver.requestCode(session.alarmId),
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    /**
+     * Posts notifications for newly ringing alarms, removes those of ended
+     * ones and updates the summary. Alarms already shown are not re-posted.
+     */
+    private void refreshNotifications() {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        NotificationManagerCompat manager = NotificationManagerCompat.from(this);
+        List<RingingSessionManager.Session> ringing = sessions.sessions();
+        Set<Integer> shown = new HashSet<>();
+        for (int i = 0; i < ringing.size() && i < MAX_SESSION_NOTIFICATIONS; i++) {
+            RingingSessionManager.Session session = ringing.get(i);
+            if (!postedNotificationIds.contains(session.notificationId)) {
+                manager.notify(session.notificationId, createSessionNotification(session));
+            }
+            shown.add(session.notificationId);
+        }
+        for (int id : postedNotificationIds) {
+            if (!shown.contains(id)) {
+                manager.cancel(id);
+            }
+        }
+        postedNotificationIds = shown;
+        manager.notify(NOTIFICATION_ID, createSummaryNotification());
+    }
+
+    private void cancelSessionNotifications() {
+        mainHandler.removeCallbacks(refreshNotifications);
+        NotificationManagerCompat manager = NotificationManagerCompat.from(this);
+        for (int id : postedNotificationIds) {
+            manager.cancel(id);
+        }
+        postedNotificationIds = new HashSet<>();
+    }
+
+    /** Points the shared audio output at the front session, restarting it only if its sound or volume differs. */
+    private void syncAudio() {
+        RingingSessionManager.Session front = sessions.front();
+        if (front == null) {
+            return;
+        }
+        if (!audioActive) {
+            audioActive = true;
+            requestAudioFocus();
+            startVibration();
+        } else if (front.sound.equals(playingSound) && front.volume == playingVolume) {
+            return;
+        }
+        playingSound = front.sound;
+        playingVolume = front.volume;
+        startAlarmPlayback(front);
+    }
+
+    private void requestAudioFocus() {
         try {
             // Request audio focus for alarm
             AudioAttributes audioAttributes = new AudioAttributes.Builder()
@@ -121,111 +330,71 @@ public class AlarmService extends Service {
                 .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
                 .build();
 
+            int result;
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 audioFocusRequest = new AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN_TRANSIENT)
                     .setAudioAttributes(audioAttributes)
                     .setOnAudioFocusChangeListener(focusChangeListener)
                     .build();
-                
-                int result = audioManager.requestAudioFocus(audioFocusRequest);
-                if (result == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
-                    startAlarmPlayback();
-                } else {
-                    Log.w(TAG, "Audio focus not granted, playing anyway");
-                    startAlarmPlayback();
-                }
+                result = audioManager.requestAudioFocus(audioFocusRequest);
             } else {
-                int result = audioManager.requestAudioFocus(
+                result = audioManager.requestAudioFocus(
                     focusChangeListener,
                     AudioManager.STREAM_ALARM,
                     AudioManager.AUDIOFOCUS_GAIN_TRANSIENT
                 );
-                if (result == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
-                    startAlarmPlayback();
-                } else {
-                    startAlarmPlayback(); // Play anyway for alarm
-                }
+            }
+            if (result != AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+                Log.w(TAG, "Audio focus not granted, playing anyway");
             }
         } catch (Exception e) {
+            // Play without focus rather than not at all
             Log.e(TAG, "Error requesting audio focus", e);
-            startAlarmPlayback(); // Fallback to direct playback
         }
     }
 
-    private void startAlarmPlayback() {
-        try {
-            if (mediaPlayer != null) {
-                mediaPlayer.release();
-            }
+    private AudioAttributes alarmAudioAttributes() {
+        return new AudioAttributes.Builder()
+            .setUsage(AudioAttributes.USAGE_ALARM)
+            .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+            .setFlags(AudioAttributes.FLAG_AUDIBILITY_ENFORCED)
+            .build();
+    }
 
-            mediaPlayer = new MediaPlayer();
-            
-            // Set audio attributes for alarm
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .setFlags(AudioAttributes.FLAG_AUDIBILITY_ENFORCED)
-                    .build();
-                mediaPlayer.setAudioAttributes(audioAttributes);
-            } else {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
+    private void startAlarmPlayback(RingingSessionManager.Session session) {
+        Trace.beginSection("AlarmService.startAlarmPlayback");
+        try {
+            // Fast path: stream the pre-decoded tone straight into an AudioTrack
+            if (audioEngine.start(session.sound, session.volume, session.startedAt, session.receivedAt)) {
+                Log.d(TAG, "Alarm audio started from PCM cache");
+                stopPlaybackChain();
+                return;
             }
-
-            // Load alarm sound from assets
-            AssetFileDescriptor afd = getAssets().openFd("alarm_default.mp3");
-            mediaPlayer.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
-            afd.close();
-
-            mediaPlayer.setLooping(true);
-            mediaPlayer.prepare();
-            mediaPlayer.start();
             
-            Log.d(TAG, "Alarm audio started successfully");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error starting alarm playback", e);
-            // Fallback to system alarm sound
-            fallbackToSystemAlarm();
+            // Otherwise fall back to MediaPlayer, starting with the alarm's own sound
+            audioEngine.stop();
+            stopPlaybackChain();
+            playbackChain = new AlarmPlaybackChain(this, alarmAudioAttributes(), session.volume,
+                session.startedAt, session.receivedAt);
+            playbackChain.start(session.sound);
+        } finally {
+            Trace.endSection();
         }
     }
 
-    private void fallbackToSystemAlarm() {
-        try {
-            if (mediaPlayer != null) {
-                mediaPlayer.release();
-            }
-            
-            mediaPlayer = new MediaPlayer();
-            
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .build();
-                mediaPlayer.setAudioAttributes(audioAttributes);
-            } else {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
-            }
-            
-            // Use system default alarm sound
-            android.net.Uri alarmUri = android.media.RingtoneManager.getDefaultUri(android.media.RingtoneManager.TYPE_ALARM);
-            if (alarmUri == null) {
-                alarmUri = android.media.RingtoneManager.getDefaultUri(android.media.RingtoneManager.TYPE_NOTIFICATION);
-            }
-            
-            mediaPlayer.setDataSource(this, alarmUri);
-            mediaPlayer.setLooping(true);
-            mediaPlayer.prepare();
-            mediaPlayer.start();
-            
-            Log.d(TAG, "Fallback system alarm started");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to start fallback alarm", e);
+    private void stopPlaybackChain() {
+        if (playbackChain != null) {
+            playbackChain.stop();
+            playbackChain = null;
         }
     }
 
+    private String soundFor(String alarmId) {
+        int id = AlarmActionReceiver.parseAlarmId(alarmId);
+        AlarmRecord record = id >= 0 ? AlarmRepository.getInstance(this).get(id) : null;
+        return record != null ? record.sound : AlarmAudioEngine.DEFAULT_TONE;
+    }
+
     private void startVibration() {
         try {
             if (vibrator != null && vibrator.hasVibrator()) {
@@ -244,15 +413,15 @@ public class AlarmService extends Service {
     }
 
     private void stopAlarmPlayback() {
+        mainHandler.removeCallbacks(syncAudio);
+        audioActive = false;
+        playingSound = null;
         try {
             // Stop audio playback
-            if (mediaPlayer != null) {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
-                }
-                mediaPlayer.release();
-                mediaPlayer = null;
+            if (audioEngine != null) {
+                audioEngine.stop();
             }
+            stopPlaybackChain();
 
             // Release audio focus
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && audioFocusRequest != null) {
@@ -270,12 +439,14 @@ public class AlarmService extends Service {
             
         } catch (Exception e) {
             Log.e(TAG, "Error stopping alarm playback", e);
+        } finally {
+            AlarmWakeLock.release(AlarmWakeLock.HOLD_PLAYBACK);
         }
     }
 
     public void stopAlarm() {
-        stopAlarmPlayback();
-        stopSelf();
+        // Ending the last session stops playback and the service
+        sessions.endAll();
     }
 
     private AudioManager.OnAudioFocusChangeListener focusChangeListener = 
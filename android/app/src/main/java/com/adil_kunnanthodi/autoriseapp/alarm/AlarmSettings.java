@@ -0,0 +1,254 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Alarm settings that both processes read: snooze, catch-up, pre-fire
+ * lead and ringing policy, each under its own section name.
+ *
+ * They live in {@code alarm_settings.bin} rather than SharedPreferences,
+ * whose cross-process mode is deprecated and unreliable. A write reloads
+ * the file under the {@link AlarmStateSync} lock, applies the edit and
+ * bumps {@link AlarmStateSync#SETTINGS}; readers keep the values in
+ * memory and reload only when that generation moved, so a change in one
+ * process is seen by the next read in the other.
+ *
+ * File layout: {@code int version, int count}, then per entry the
+ * {@code section/key} as modified UTF-8, a type byte and the value.
+ * Sections that were SharedPreferences files are imported once, when the
+ * file does not exist yet.
+ */
+final class AlarmSettings {
+    private static final String TAG = "AlarmSettings";
+    private static final String FILE_NAME = "alarm_settings.bin";
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte TYPE_INT = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_STRING = 2;
+
+    private static AlarmSettings instance;
+
+    private final Context context;
+    private final AtomicFile file;
+    private final AlarmStateSync sync;
+    private final HashMap<String, Object> values = new HashMap<>();
+    // Generation of the settings file the values reflect; read unlocked as a staleness hint
+    private volatile long generation = -1;
+
+    static synchronized AlarmSettings get(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new AlarmSettings(appContext, AlarmStateSync.get(appContext));
+        }
+        return instance;
+    }
+
+    private AlarmSettings(Context context, AlarmStateSync sync) {
+        this.context = context;
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        this.sync = sync;
+    }
+
+    int getInt(String section, String key, int defaultValue) {
+        Object value = read(section, key);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    boolean getBoolean(String section, String key, boolean defaultValue) {
+        Object value = read(section, key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    String getString(String section, String key, String defaultValue) {
+        Object value = read(section, key);
+        return value instanceof String ? (String) value : defaultValue;
+    }
+
+    /** Starts a change to {@code section}; nothing is written until {@link Editor#commit}. */
+    Editor edit(String section) {
+        return new Editor(section);
+    }
+
+    private Object read(String section, String key) {
+        // State lock before this monitor, as in AlarmRepository
+        if (generation != sync.generation(AlarmStateSync.SETTINGS)) {
+            sync.lock();
+            try {
+                synchronized (this) {
+                    if (generation != sync.generation(AlarmStateSync.SETTINGS)) {
+                        reload();
+                    }
+                }
+            } finally {
+                sync.unlock();
+            }
+        }
+        synchronized (this) {
+            return values.get(section + '/' + key);
+        }
+    }
+
+    /** Replaces the in-memory values with the file's. Call with the state lock and this monitor held. */
+    private void reload() {
+        long current = sync.generation(AlarmStateSync.SETTINGS);
+        values.clear();
+        try (FileInputStream fis = file.openRead()) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fis));
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unknown settings version " + version);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                byte type = in.readByte();
+                if (type == TYPE_INT) {
+                    values.put(key, in.readInt());
+                } else if (type == TYPE_BOOLEAN) {
+                    values.put(key, in.readBoolean());
+                } else if (type == TYPE_STRING) {
+                    values.put(key, in.readUTF());
+                } else {
+                    throw new IOException("Unknown settings type " + type);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            importLegacy();
+            current = sync.generation(AlarmStateSync.SETTINGS);
+        } catch (IOException e) {
+            // Every setting has a default, so a bad file costs customisation, not alarms
+            Log.e(TAG, "Error reading alarm settings, using defaults", e);
+            values.clear();
+        }
+        generation = current;
+    }
+
+    /** Copies the sections that used to be SharedPreferences files into a new settings file. */
+    private void importLegacy() {
+        String[] sections = {
+            SnoozePolicy.PREFS_NAME,
+            CatchUpPolicy.PREFS_NAME,
+            AlarmPrewarm.PREFS_NAME,
+            RingingSessionManager.PREFS_NAME,
+        };
+        for (String section : sections) {
+            SharedPreferences prefs = context.getSharedPreferences(section, Context.MODE_PRIVATE);
+            for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Integer || value instanceof Boolean || value instanceof String) {
+                    values.put(section + '/' + entry.getKey(), value);
+                }
+            }
+        }
+        try {
+            persist();
+            sync.bump(AlarmStateSync.SETTINGS);
+            Log.d(TAG, "Imported " + values.size() + " legacy alarm settings");
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing imported alarm settings", e);
+        }
+    }
+
+    private void persist() throws IOException {
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                out.writeUTF(entry.getKey());
+                Object value = entry.getValue();
+                if (value instanceof Integer) {
+                    out.writeByte(TYPE_INT);
+                    out.writeInt((Integer) value);
+                } else if (value instanceof Boolean) {
+                    out.writeByte(TYPE_BOOLEAN);
+                    out.writeBoolean((Boolean) value);
+                } else {
+                    out.writeByte(TYPE_STRING);
+                    out.writeUTF((String) value);
+                }
+            }
+            out.flush();
+            file.finishWrite(fos);
+        } catch (IOException e) {
+            if (fos != null) {
+                file.failWrite(fos);
+            }
+            throw e;
+        }
+    }
+
+    /** A pending change to one section, applied atomically by {@link #commit}. */
+    final class Editor {
+        private final String section;
+        private final HashMap<String, Object> changes = new HashMap<>();
+
+        private Editor(String section) {
+            this.section = section;
+        }
+
+        Editor putInt(String key, int value) {
+            changes.put(section + '/' + key, value);
+            return this;
+        }
+
+        Editor putBoolean(String key, boolean value) {
+            changes.put(section + '/' + key, value);
+            return this;
+        }
+
+        Editor putString(String key, String value) {
+            changes.put(section + '/' + key, value);
+            return this;
+        }
+
+        /**
+         * Writes the changes on top of the latest file and publishes them
+         * to the other process. Returns false, leaving the settings as
+         * they were, if the file could not be written.
+         */
+        boolean commit() {
+            sync.lock();
+            try {
+                synchronized (AlarmSettings.this) {
+                    reload();
+                    HashMap<String, Object> previous = new HashMap<>(values);
+                    values.putAll(changes);
+                    if (values.equals(previous)) {
+                        return true;
+                    }
+                    try {
+                        persist();
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error writing alarm settings", e);
+                        values.clear();
+                        values.putAll(previous);
+                        return false;
+                    }
+                    generation = sync.bump(AlarmStateSync.SETTINGS);
+                    return true;
+                }
+            } finally {
+                sync.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * User-imported alarm sounds.
+ *
+ * Imported audio is copied into {@code files/sounds/<soundId>} so it stays
+ * readable after the picker's URI permission expires, then decoded once
+ * into the PCM tone cache. Sound IDs for imported files start with
+ * {@link #IMPORT_PREFIX}; any other sound ID names a {@code res/raw} tone.
+ */
+final class AlarmSoundLibrary {
+    private static final String TAG = "AlarmSoundLibrary";
+    private static final String SOUNDS_DIR = "sounds";
+    static final String IMPORT_PREFIX = "user_";
+    // Large enough for a long ringtone, small enough that a mistaken pick fails fast
+    private static final long MAX_IMPORT_BYTES = 20L * 1024 * 1024;
+
+    private AlarmSoundLibrary() {}
+
+    /**
+     * Copies {@code source} into app storage and decodes it into the tone
+     * cache. Returns the new sound ID to store on alarms. Blocks on I/O and
+     * decoding, so call it off the main thread.
+     */
+    static String importSound(Context context, Uri source) throws IOException {
+        String soundId = IMPORT_PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        File target = new File(soundsDir(context), soundId);
+        File partial = new File(target.getPath() + ".partial");
+
+        try (InputStream in = context.getContentResolver().openInputStream(source);
+             FileOutputStream out = new FileOutputStream(partial)) {
+            if (in == null) {
+                throw new IOException("Cannot open " + source);
+            }
+            byte[] buffer = new byte[16 * 1024];
+            long total = 0;
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                total += n;
+                if (total > MAX_IMPORT_BYTES) {
+                    throw new IOException("Sound is larger than " + (MAX_IMPORT_BYTES >> 20) + " MB");
+                }
+                out.write(buffer, 0, n);
+            }
+            out.getFD().sync();
+        } catch (IOException e) {
+            partial.delete();
+            throw e;
+        }
+        if (!partial.renameTo(target)) {
+            partial.delete();
+            throw new IOException("Could not store imported sound");
+        }
+
+        try {
+            AlarmAudioEngine.ensureCached(context, soundId);
+        } catch (IOException e) {
+            target.delete();
+            throw new IOException("Unsupported audio file: " + e.getMessage(), e);
+        }
+        Log.d(TAG, "Imported " + source + " as " + soundId + " (" + target.length() + " bytes)");
+        return soundId;
+    }
+
+    /** Returns the stored file for an imported sound ID, or null if {@code soundId} is not one. */
+    static File importedFile(Context context, String soundId) {
+        if (soundId == null || !soundId.startsWith(IMPORT_PREFIX) || soundId.indexOf('/') >= 0) {
+            return null;
+        }
+        File file = new File(soundsDir(context), soundId);
+        return file.isFile() ? file : null;
+    }
+
+    private static File soundsDir(Context context) {
+        File dir = new File(context.getFilesDir(), SOUNDS_DIR);
+        if (!dir.isDirectory()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,109 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the alarm state files coherent between the app process and the
+ * {@link AlarmProcess :alarm} process, which each hold the store and the
+ * schedule in memory.
+ *
+ * Every change to those files is made under {@link #lock}, a reentrant
+ * lock within the process backed by a file lock across processes, and
+ * ends with {@link #bump} of that domain's generation counter in the
+ * memory-mapped {@code alarm_state.lock}. Before using its in-memory copy
+ * a process compares the counter with the one it last saw and reloads if
+ * the other process wrote in between. With a single process the counters
+ * always match, so the check is one mapped read.
+ *
+ * Lock order: take this before the monitor of {@link AlarmRepository}, and
+ * never call into {@link AlarmScheduler} while holding it.
+ */
+final class AlarmStateSync {
+    private static final String TAG = "AlarmStateSync";
+    private static final String FILE_NAME = "alarm_state.lock";
+
+    /** {@code alarms.bin}, written by {@link AlarmRepository}. */
+    static final int STORE = 0;
+    /** Queue, snoozes and fire journal, written by {@link AlarmScheduler}. */
+    static final int SCHEDULE = 1;
+    /** {@code wake_analytics.bin}; bumped only when {@link WakeAnalytics} replaces the file. */
+    static final int ANALYTICS = 2;
+    /** {@code alarm_settings.bin}, written by {@link AlarmSettings}. */
+    static final int SETTINGS = 3;
+    private static final int DOMAINS = 4;
+
+    private static AlarmStateSync instance;
+
+    private final ReentrantLock localLock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer generations;
+    private FileLock fileLock;
+
+    static synchronized AlarmStateSync get(Context context) {
+        if (instance == null) {
+            instance = new AlarmStateSync(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    private AlarmStateSync(File file) {
+        try {
+            // Kept open for the life of the process; the lock is taken on this channel
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            generations = channel.map(FileChannel.MapMode.READ_WRITE, 0, DOMAINS * 8L);
+        } catch (IOException e) {
+            // Falls back to in-process locking only, which is all a single process needs
+            Log.e(TAG, "Error opening " + FILE_NAME + ", alarm state is not shared across processes", e);
+            channel = null;
+            generations = null;
+        }
+    }
+
+    /** Takes the state lock; pair with {@link #unlock} in a finally block. */
+    void lock() {
+        localLock.lock();
+        if (localLock.getHoldCount() == 1 && channel != null) {
+            try {
+                fileLock = channel.lock();
+            } catch (IOException e) {
+                Log.e(TAG, "Error locking " + FILE_NAME, e);
+            }
+        }
+    }
+
+    void unlock() {
+        if (localLock.getHoldCount() == 1 && fileLock != null) {
+            try {
+                fileLock.release();
+            } catch (IOException e) {
+                Log.e(TAG, "Error unlocking " + FILE_NAME, e);
+            }
+            fileLock = null;
+        }
+        localLock.unlock();
+    }
+
+    /** Current generation of {@code domain}; safe to read without the lock as a staleness hint. */
+    long generation(int domain) {
+        return generations != null ? generations.getLong(domain * 8) : 0;
+    }
+
+    /** Publishes a write to {@code domain}. Call with the lock held; returns the new generation. */
+    long bump(int domain) {
+        if (generations == null) {
+            return 0;
+        }
+        long next = generations.getLong(domain * 8) + 1;
+        generations.putLong(domain * 8, next);
+        return next;
+    }
+}
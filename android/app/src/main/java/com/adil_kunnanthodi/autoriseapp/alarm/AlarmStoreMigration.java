@@ -0,0 +1,131 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * One-time import of the two SharedPreferences formats that predate
+ * {@link AlarmRepository}:
+ * <ul>
+ *   <li>{@code AlarmPrefs}: {@code alarm_<id>} pipe strings written by the
+ *       old {@code AlarmModule.saveAlarmToPrefs}</li>
+ *   <li>{@code AlarmPreferences}: a JSON array under {@code alarms} that the
+ *       old boot restore expected ({@code id}, {@code triggerTime},
+ *       {@code label})</li>
+ * </ul>
+ * The JSON array is walked with {@link JsonReader} so no {@code JSONArray}
+ * tree is built for it.
+ */
+final class AlarmStoreMigration {
+    private static final String TAG = "AlarmStoreMigration";
+    static final String JSON_PREFS_NAME = "AlarmPreferences";
+    static final String JSON_KEY = "alarms";
+
+    private AlarmStoreMigration() {}
+
+    static List<AlarmRecord> readLegacy(Context context) {
+        List<AlarmRecord> records = new ArrayList<>();
+        readPipePrefs(context, records);
+        readJsonPrefs(context, records);
+        return records;
+    }
+
+    /** Removes the legacy entries once their contents are safely in the new store. */
+    static void clearLegacy(Context context) {
+        SharedPreferences pipePrefs = context.getSharedPreferences(LegacyPrefsFormat.PREFS_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = pipePrefs.edit();
+        for (String key : pipePrefs.getAll().keySet()) {
+            if (key.startsWith(LegacyPrefsFormat.KEY_PREFIX)) {
+                editor.remove(key);
+            }
+        }
+        editor.apply();
+
+        context.getSharedPreferences(JSON_PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .remove(JSON_KEY)
+            .apply();
+    }
+
+    private static void readPipePrefs(Context context, List<AlarmRecord> out) {
+        SharedPreferences prefs = context.getSharedPreferences(LegacyPrefsFormat.PREFS_NAME, Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(LegacyPrefsFormat.KEY_PREFIX) && entry.getValue() instanceof String) {
+                AlarmRecord record = LegacyPrefsFormat.decode(entry.getKey(), (String) entry.getValue());
+                if (record != null) {
+                    out.add(record);
+                } else {
+                    Log.w(TAG, "Skipping malformed legacy alarm " + entry.getKey());
+                }
+            }
+        }
+    }
+
+    private static void readJsonPrefs(Context context, List<AlarmRecord> out) {
+        SharedPreferences prefs = context.getSharedPreferences(JSON_PREFS_NAME, Context.MODE_PRIVATE);
+        String json = prefs.getString(JSON_KEY, null);
+        if (json == null) {
+            return;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                AlarmRecord record = readJsonAlarm(reader);
+                if (record != null) {
+                    out.add(record);
+                }
+            }
+            reader.endArray();
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error reading legacy JSON alarms", e);
+        }
+    }
+
+    private static AlarmRecord readJsonAlarm(JsonReader reader) throws IOException {
+        String id = null;
+        String label = null;
+        long triggerTime = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if ("id".equals(name)) {
+                id = reader.nextString();
+            } else if ("label".equals(name)) {
+                label = reader.nextString();
+            } else if ("triggerTime".equals(name)) {
+                triggerTime = reader.nextLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (id == null || triggerTime <= 0) {
+            return null;
+        }
+        long localMillis = triggerTime + TimeZone.getDefault().getOffset(triggerTime);
+        int minuteOfDay = (int) Math.floorMod(localMillis / 60000L, 24L * 60);
+        return new AlarmRecord(legacyId(id), label, minuteOfDay, 0, true, null, triggerTime);
+    }
+
+    private static int legacyId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return id.hashCode() & Integer.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk import and export of alarm sets, e.g. prebuilt shift rotas, without
+ * going through JS.
+ *
+ * The file is JSON:
+ * <pre>
+ *   {"version": 1, "alarms": [
+ *     {"id": 1, "title": "Early shift", "time": "05:30",
+ *      "days": [false, true, true, true, true, true, false],
+ *      "sound": "alarm_default", "isEnabled": true, "priority": "critical"},
+ *     ...
+ *   ]}
+ * </pre>
+ * Alarms have the fields of {@code setAlarm} plus {@code triggerAt} for
+ * one-shots; a bare top-level array of alarms is accepted too.
+ *
+ * Both directions stream through {@link JsonReader} / {@link JsonWriter},
+ * so the file is never held in memory; an import only keeps the alarms
+ * that differ from the store. Every record is validated before anything
+ * is written, and the result goes in with one {@link AlarmRepository}
+ * write and one {@link AlarmScheduler} batch, so a bad record anywhere in
+ * the file leaves the store as it was. Progress is posted through
+ * {@link AlarmEvents} every {@link #PROGRESS_EVERY} alarms.
+ */
+final class AlarmTransfer {
+    private static final String TAG = "AlarmTransfer";
+    static final int FORMAT_VERSION = 1;
+    private static final int PROGRESS_EVERY = 500;
+
+    /** Outcome of {@link #importAlarms}. */
+    static final class ImportResult {
+        /** Alarms that were added or changed. */
+        final List<AlarmRecord> changed;
+        final int unchanged;
+        final int removed;
+
+        ImportResult(List<AlarmRecord> changed, int unchanged, int removed) {
+            this.changed = changed;
+            this.unchanged = unchanged;
+            this.removed = removed;
+        }
+    }
+
+    private AlarmTransfer() {}
+
+    /**
+     * Reads alarms from {@code source} into the store and schedules them.
+     * Disabled alarms in the file are removed, as with
+     * {@code setAlarmsBatch}; with {@code replace} so is every stored alarm
+     * the file does not mention. {@code totalBytes} is the size of the
+     * source for progress, or -1 if unknown. Throws without changing
+     * anything if the file or any alarm in it is invalid. Blocks on I/O,
+     * so call it off the main thread.
+     */
+    static ImportResult importAlarms(Context context, InputStream source, long totalBytes, boolean replace)
+            throws IOException {
+        AlarmRepository repository = AlarmRepository.getInstance(context);
+        CountingInputStream counted = new CountingInputStream(source);
+        List<AlarmRecord> changed = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        int unchanged = 0;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(counted, StandardCharsets.UTF_8))) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                boolean found = false;
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("version".equals(name)) {
+                        int version = reader.nextInt();
+                        if (version < 1 || version > FORMAT_VERSION) {
+                            throw new IOException("Unsupported alarm file version " + version);
+                        }
+                    } else if ("alarms".equals(name)) {
+                        if (found) {
+                            throw new IOException("More than one alarms array");
+                        }
+                        found = true;
+                        unchanged = readAlarms(reader, repository, counted, totalBytes, seen, changed, removed);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (!found) {
+                    throw new IOException("No alarms in file");
+                }
+            } else {
+                unchanged = readAlarms(reader, repository, counted, totalBytes, seen, changed, removed);
+            }
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader reports structural mismatches this way
+            throw new IOException("Malformed alarm file: " + e.getMessage(), e);
+        }
+
+        if (replace) {
+            for (AlarmRecord record : repository.getAll()) {
+                if (!seen.contains(record.id)) {
+                    removed.add(record.id);
+                }
+            }
+        }
+        repository.applyBatch(changed, removed);
+        AlarmScheduler.getInstance(context).applyBatch(changed, removed);
+        Log.d(TAG, "Imported " + seen.size() + " alarms: " + changed.size() + " changed, "
+            + unchanged + " unchanged, " + removed.size() + " removed");
+        return new ImportResult(changed, unchanged, removed.size());
+    }
+
+    /** Reads the alarms array; returns how many of its alarms matched the store already. */
+    private static int readAlarms(JsonReader reader, AlarmRepository repository, CountingInputStream counted,
+                                  long totalBytes, Set<Integer> seen, List<AlarmRecord> changed,
+                                  List<Integer> removed) throws IOException {
+        int unchanged = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int position = seen.size();
+            AlarmRecord record;
+            try {
+                record = readAlarm(reader);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                throw new IOException("Alarm " + position + ": " + e.getMessage(), e);
+            }
+            if (!seen.add(record.id)) {
+                throw new IOException("Alarm " + position + ": duplicate id " + record.id);
+            }
+            AlarmRecord existing = repository.get(record.id);
+            if (!record.enabled) {
+                if (existing != null) {
+                    removed.add(record.id);
+                }
+            } else if (record.equals(existing)) {
+                unchanged++;
+            } else {
+                changed.add(record);
+            }
+            if (seen.size() % PROGRESS_EVERY == 0) {
+                AlarmEvents.importProgress(seen.size(), percent(counted.count, totalBytes));
+            }
+        }
+        reader.endArray();
+        AlarmEvents.importProgress(seen.size(), 100);
+        return unchanged;
+    }
+
+    private static AlarmRecord readAlarm(JsonReader reader) throws IOException {
+        int id = -1;
+        String title = null;
+        String time = null;
+        int dayMask = 0;
+        String sound = "alarm_default";
+        boolean enabled = true;
+        long triggerAt = 0;
+        int priority = AlarmRecord.PRIORITY_CRITICAL;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if ("id".equals(name)) {
+                id = reader.nextInt();
+            } else if ("title".equals(name)) {
+                title = reader.nextString();
+            } else if ("time".equals(name)) {
+                time = reader.nextString();
+            } else if ("days".equals(name)) {
+                dayMask = readDays(reader);
+            } else if ("sound".equals(name)) {
+                sound = reader.nextString();
+            } else if ("isEnabled".equals(name)) {
+                enabled = reader.nextBoolean();
+            } else if ("triggerAt".equals(name)) {
+                triggerAt = reader.nextLong();
+            } else if ("priority".equals(name)) {
+                priority = AlarmRecord.parsePriority(reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (id < 0) {
+            // Negative keys are reserved for snooze slots in AlarmScheduler
+            throw new IllegalArgumentException("missing or negative id");
+        }
+        if (time == null) {
+            throw new IllegalArgumentException("missing time");
+        }
+        return new AlarmRecord(id, title, AlarmRecord.parseTime(time), dayMask, enabled, sound,
+            triggerAt, priority);
+    }
+
+    /** Reads a Sunday-first array of up to seven booleans into a day mask. */
+    private static int readDays(JsonReader reader) throws IOException {
+        int dayMask = 0;
+        reader.beginArray();
+        for (int day = 0; reader.hasNext(); day++) {
+            if (day >= 7) {
+                throw new IllegalArgumentException("more than 7 days");
+            }
+            if (reader.nextBoolean()) {
+                dayMask |= 1 << day;
+            }
+        }
+        reader.endArray();
+        return dayMask;
+    }
+
+    /**
+     * Writes every stored alarm to {@code target} in the import format and
+     * returns how many were written. Blocks on I/O, so call it off the
+     * main thread.
+     */
+    static int exportAlarms(Context context, OutputStream target) throws IOException {
+        List<AlarmRecord> records = AlarmRepository.getInstance(context).getAll();
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(target, StandardCharsets.UTF_8)))) {
+            writer.beginObject();
+            writer.name("version").value(FORMAT_VERSION);
+            writer.name("exportedAt").value(System.currentTimeMillis());
+            writer.name("alarms").beginArray();
+            for (int i = 0; i < records.size(); i++) {
+                writeAlarm(writer, records.get(i));
+                if ((i + 1) % PROGRESS_EVERY == 0) {
+                    AlarmEvents.exportProgress(i + 1, percent(i + 1, records.size()));
+                }
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        AlarmEvents.exportProgress(records.size(), 100);
+        Log.d(TAG, "Exported " + records.size() + " alarms");
+        return records.size();
+    }
+
+    private static void writeAlarm(JsonWriter writer, AlarmRecord record) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(record.id);
+        writer.name("title").value(record.title);
+        writer.name("time").value(record.formatTime());
+        writer.name("days").beginArray();
+        for (int day = 0; day < 7; day++) {
+            writer.value(record.isDayEnabled(day));
+        }
+        writer.endArray();
+        writer.name("sound").value(record.sound);
+        writer.name("isEnabled").value(record.enabled);
+        writer.name("priority").value(record.priorityName());
+        if (record.triggerAt > 0) {
+            writer.name("triggerAt").value(record.triggerAt);
+        }
+        writer.endObject();
+    }
+
+    private static int percent(long done, long total) {
+        return total > 0 ? (int) Math.min(100, done * 100 / total) : -1;
+    }
+
+    /** Tracks how far into the source the reader is, for progress. */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
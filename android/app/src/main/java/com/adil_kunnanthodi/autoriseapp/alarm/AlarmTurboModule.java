@@ -0,0 +1,142 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * TurboModule implementation of the alarm API ({@code AutoRiseAlarm}).
+ *
+ * {@link NativeAutoRiseAlarmSpec} is generated by React Native codegen from
+ * {@code src/native/specs/NativeAutoRiseAlarm.ts}. Calls are dispatched over JSI,
+ * so the synchronous reads return straight into JS without a bridge round
+ * trip. The implementation, {@link AlarmModuleImpl}, is shared with the
+ * classic {@link AlarmModule}, which stays registered for JS that still
+ * goes through {@code NativeModules.AlarmModule}.
+ */
+public class AlarmTurboModule extends NativeAutoRiseAlarmSpec {
+    private final AlarmModuleImpl impl;
+
+    public AlarmTurboModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.impl = new AlarmModuleImpl(reactContext);
+        impl.initialize();
+    }
+
+    @Override
+    public double getAlarmCount() {
+        return impl.getAlarmCount();
+    }
+
+    @Override
+    public double getNextFireTime() {
+        return impl.getNextFireTime();
+    }
+
+    @Override
+    public WritableMap getAlarmSnapshot() {
+        return impl.getAlarmSnapshot();
+    }
+
+    @Override
+    public void setAlarm(ReadableMap alarm, Promise promise) {
+        impl.setAlarm(alarm, promise);
+    }
+
+    @Override
+    public void setAlarmsBatch(ReadableArray alarms, Promise promise) {
+        impl.setAlarmsBatch(alarms, promise);
+    }
+
+    @Override
+    public void cancelAlarm(double alarmId, Promise promise) {
+        impl.cancelAlarm((int) alarmId, promise);
+    }
+
+    @Override
+    public void cancelAlarmsBatch(ReadableArray alarmIds, Promise promise) {
+        impl.cancelAlarmsBatch(alarmIds, promise);
+    }
+
+    @Override
+    public void getAllAlarms(Promise promise) {
+        impl.getAllAlarms(promise);
+    }
+
+    @Override
+    public void importSound(String uri, Promise promise) {
+        impl.importSound(uri, promise);
+    }
+
+    @Override
+    public void importAlarms(String uri, boolean replace, Promise promise) {
+        impl.importAlarms(uri, replace, promise);
+    }
+
+    @Override
+    public void exportAlarms(String uri, Promise promise) {
+        impl.exportAlarms(uri, promise);
+    }
+
+    @Override
+    public void setSnoozeSettings(ReadableMap settings, Promise promise) {
+        impl.setSnoozeSettings(settings, promise);
+    }
+
+    @Override
+    public void getSnoozeSettings(Promise promise) {
+        impl.getSnoozeSettings(promise);
+    }
+
+    @Override
+    public void setCatchUpSettings(ReadableMap settings, Promise promise) {
+        impl.setCatchUpSettings(settings, promise);
+    }
+
+    @Override
+    public void getCatchUpSettings(Promise promise) {
+        impl.getCatchUpSettings(promise);
+    }
+
+    @Override
+    public void getFireReliability(Promise promise) {
+        impl.getFireReliability(promise);
+    }
+
+    @Override
+    public void getWakeStats(double days, Promise promise) {
+        impl.getWakeStats((int) days, promise);
+    }
+
+    @Override
+    public void getSnoozeHistogram(double days, double alarmId, Promise promise) {
+        impl.getSnoozeHistogram((int) days, (int) alarmId, promise);
+    }
+
+    @Override
+    public void setPrewarmLeadSeconds(double seconds, Promise promise) {
+        impl.setPrewarmLeadSeconds((int) seconds, promise);
+    }
+
+    @Override
+    public void setRingingPolicy(String policy, Promise promise) {
+        impl.setRingingPolicy(policy, promise);
+    }
+
+    @Override
+    public void getAlarmMetrics(Promise promise) {
+        impl.getAlarmMetrics(promise);
+    }
+
+    @Override
+    public void addListener(String eventName) {
+        impl.addListener(eventName);
+    }
+
+    @Override
+    public void removeListeners(double count) {
+        impl.removeListeners(count);
+    }
+}
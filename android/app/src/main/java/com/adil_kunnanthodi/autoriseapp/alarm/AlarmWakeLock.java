@@ -0,0 +1,124 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+
+/**
+ * The single partial wake lock that keeps the CPU up from the fire
+ * broadcast until the alarm stops ringing.
+ *
+ * Components take named holds instead of their own locks:
+ * {@link AlarmReceiver} takes {@link #HOLD_HANDOFF} before starting
+ * {@link AlarmService}, and the service swaps it for {@link #HOLD_PLAYBACK}
+ * once it is running, so there is no gap between the two.
+ * {@link AlarmPrewarm} takes {@link #HOLD_PREWARM} from shortly before the
+ * fire until the receiver's handoff hold replaces it. Every hold has
+ * its own timeout and the underlying lock is held until the latest one, so
+ * a missed release is bounded. Hold and total held times are reported
+ * through {@link AlarmMetrics}.
+ */
+final class AlarmWakeLock {
+    private static final String TAG = "AlarmWakeLock";
+    private static final String LOCK_TAG = "AutoRise:AlarmWakeLock";
+
+    static final String HOLD_HANDOFF = "handoff";
+    static final String HOLD_PLAYBACK = "playback";
+    static final String HOLD_PREWARM = "prewarm";
+    // startForegroundService must reach onStartCommand well within this
+    static final long HANDOFF_TIMEOUT_MS = 10000;
+    // Same bound the service used for its own lock before
+    static final long PLAYBACK_TIMEOUT_MS = 5 * 60000;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final HashMap<String, Hold> holds = new HashMap<>();
+    private static PowerManager.WakeLock wakeLock;
+    private static long heldSince;
+    private static long lockDeadline;
+
+    private static final class Hold {
+        final long acquiredAt;
+        final Runnable expiry;
+
+        Hold(long acquiredAt, Runnable expiry) {
+            this.acquiredAt = acquiredAt;
+            this.expiry = expiry;
+        }
+    }
+
+    private AlarmWakeLock() {}
+
+    /**
+     * Takes or renews {@code holder}'s hold for at most {@code timeoutMs}.
+     * Renewing keeps the original acquire time for the held-time metric.
+     */
+    static synchronized void acquire(Context context, String holder, long timeoutMs) {
+        long now = SystemClock.elapsedRealtime();
+        Hold previous = holds.remove(holder);
+        if (previous != null) {
+            mainHandler.removeCallbacks(previous.expiry);
+        }
+        Hold hold = new Hold(previous != null ? previous.acquiredAt : now, () -> expire(holder));
+        holds.put(holder, hold);
+        mainHandler.postDelayed(hold.expiry, timeoutMs);
+
+        if (wakeLock == null) {
+            PowerManager powerManager = (PowerManager) context.getApplicationContext()
+                .getSystemService(Context.POWER_SERVICE);
+            wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, LOCK_TAG);
+            // Holds are counted here; the lock itself is either on or off
+            wakeLock.setReferenceCounted(false);
+        }
+        if (!wakeLock.isHeld()) {
+            heldSince = now;
+            lockDeadline = 0;
+        }
+        long deadline = now + timeoutMs;
+        if (deadline > lockDeadline) {
+            // Re-acquiring an unreferenced lock just moves its timeout
+            wakeLock.acquire(timeoutMs);
+            lockDeadline = deadline;
+        }
+    }
+
+    /** Drops {@code holder}'s hold; the lock is released when no holds remain. */
+    static synchronized void release(String holder) {
+        Hold hold = holds.remove(holder);
+        if (hold == null) {
+            return;
+        }
+        mainHandler.removeCallbacks(hold.expiry);
+        finishHold(holder, hold, false);
+    }
+
+    static synchronized boolean isHeld(String holder) {
+        return holds.containsKey(holder);
+    }
+
+    private static synchronized void expire(String holder) {
+        Hold hold = holds.remove(holder);
+        if (hold != null) {
+            Log.w(TAG, "Wake lock hold " + holder + " timed out");
+            finishHold(holder, hold, true);
+        }
+    }
+
+    private static void finishHold(String holder, Hold hold, boolean expired) {
+        long now = SystemClock.elapsedRealtime();
+        AlarmMetrics.record(AlarmMetrics.WAKELOCK_HOLD_MS, now - hold.acquiredAt,
+            "holder=" + holder + " expired=" + expired);
+        if (!holds.isEmpty() || wakeLock == null) {
+            return;
+        }
+        if (wakeLock.isHeld()) {
+            wakeLock.release();
+        }
+        lockDeadline = 0;
+        AlarmMetrics.record(AlarmMetrics.WAKELOCK_HELD_MS, now - heldSince);
+    }
+}
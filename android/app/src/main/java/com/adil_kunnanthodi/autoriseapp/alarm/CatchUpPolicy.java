@@ -0,0 +1,49 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+
+/**
+ * What the fire watchdog does about alarms that never rang, e.g. because
+ * the device was off or the app was force-stopped at the time: ring them
+ * late if they were missed within the last {@link #windowMinutes}, or only
+ * record the miss.
+ */
+final class CatchUpPolicy {
+    static final String PREFS_NAME = "AlarmCatchUpSettings";
+    private static final String KEY_RING_MISSED = "ringMissed";
+    private static final String KEY_WINDOW_MINUTES = "windowMinutes";
+
+    static final int DEFAULT_WINDOW_MINUTES = 30;
+
+    final boolean ringMissed;
+    final int windowMinutes;
+
+    CatchUpPolicy(boolean ringMissed, int windowMinutes) {
+        if (windowMinutes < 1 || windowMinutes > 12 * 60) {
+            throw new IllegalArgumentException("Catch-up window must be 1-720 minutes");
+        }
+        this.ringMissed = ringMissed;
+        this.windowMinutes = windowMinutes;
+    }
+
+    static CatchUpPolicy load(Context context) {
+        AlarmSettings settings = AlarmSettings.get(context);
+        return new CatchUpPolicy(
+            settings.getBoolean(PREFS_NAME, KEY_RING_MISSED, true),
+            settings.getInt(PREFS_NAME, KEY_WINDOW_MINUTES, DEFAULT_WINDOW_MINUTES)
+        );
+    }
+
+    void save(Context context) {
+        AlarmSettings.get(context)
+            .edit(PREFS_NAME)
+            .putBoolean(KEY_RING_MISSED, ringMissed)
+            .putInt(KEY_WINDOW_MINUTES, windowMinutes)
+            .commit();
+    }
+
+    /** Whether an alarm due at {@code scheduledFor} should still ring at {@code now}. */
+    boolean shouldRing(long scheduledFor, long now) {
+        return ringMissed && now - scheduledFor <= windowMinutes * 60000L;
+    }
+}
@@ -0,0 +1,92 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * Picks the AlarmManager call for {@link AlarmScheduler}'s next fire from
+ * the alarm's {@link AlarmRecord#priority} and what the app may schedule.
+ *
+ * <ul>
+ *   <li>{@link #ALARM_CLOCK} ({@code setAlarmClock}) for critical wake-ups:
+ *       exempt from Doze and its rate limit, and shown as the next alarm.
+ *   <li>{@link #EXACT} ({@code setExactAndAllowWhileIdle}) for normal
+ *       alarms: on time, but limited to about one per nine minutes in Doze.
+ *   <li>{@link #WINDOW} ({@code setWindow}) for reminders: delivered within
+ *       {@link #REMINDER_WINDOW_MS}, so the system can batch the wakeup.
+ *   <li>{@link #INEXACT} ({@code setAndAllowWhileIdle}) when exact alarms
+ *       are not allowed (Android 12+ with the permission revoked); the
+ *       alarm still fires in Doze, only not to the minute.
+ * </ul>
+ */
+final class DeliveryPolicy {
+    private static final String TAG = "DeliveryPolicy";
+
+    static final int ALARM_CLOCK = 0;
+    static final int EXACT = 1;
+    static final int WINDOW = 2;
+    static final int INEXACT = 3;
+    private static final String[] NAMES = {"alarmClock", "exact", "window", "inexact"};
+
+    // Android 12+ extends shorter windows to ten minutes anyway
+    static final long REMINDER_WINDOW_MS = 10 * 60000L;
+
+    private DeliveryPolicy() {}
+
+    /** Whether exact alarms (including {@code setAlarmClock}) may be scheduled right now. */
+    static boolean canScheduleExact(AlarmManager alarmManager) {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms();
+    }
+
+    /** Delivery for an alarm of {@code priority}. */
+    static int choose(int priority, boolean exactAllowed) {
+        if (priority == AlarmRecord.PRIORITY_REMINDER) {
+            return WINDOW;
+        }
+        if (!exactAllowed) {
+            return INEXACT;
+        }
+        return priority == AlarmRecord.PRIORITY_NORMAL ? EXACT : ALARM_CLOCK;
+    }
+
+    /** Whether an alarm delivered this way may arrive up to a window late. */
+    static boolean isWindowed(int delivery) {
+        return delivery == WINDOW;
+    }
+
+    static String name(int delivery) {
+        return NAMES[delivery];
+    }
+
+    /**
+     * Registers {@code operation} for {@code triggerTime} with {@code delivery}.
+     * {@code showIntent} is what tapping the status bar alarm opens.
+     * Returns the delivery actually used: if the exact permission was
+     * revoked since {@link #canScheduleExact} was checked, this falls back
+     * to {@link #INEXACT}.
+     */
+    static int arm(AlarmManager alarmManager, int delivery, long triggerTime,
+                   PendingIntent operation, PendingIntent showIntent) {
+        try {
+            switch (delivery) {
+                case ALARM_CLOCK:
+                    alarmManager.setAlarmClock(new AlarmManager.AlarmClockInfo(triggerTime, showIntent), operation);
+                    return delivery;
+                case EXACT:
+                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, operation);
+                    return delivery;
+                case WINDOW:
+                    alarmManager.setWindow(AlarmManager.RTC_WAKEUP, triggerTime, REMINDER_WINDOW_MS, operation);
+                    return delivery;
+                default:
+                    break;
+            }
+        } catch (SecurityException e) {
+            Log.w(TAG, "Exact alarms not allowed, falling back to inexact delivery", e);
+        }
+        alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, operation);
+        return INEXACT;
+    }
+}
@@ -0,0 +1,342 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only, memory-mapped log of what the scheduler expected to fire
+ * and what actually did.
+ *
+ * {@link AlarmScheduler} appends an {@link #SCHEDULED} entry whenever a
+ * queue key gets a new trigger time, {@link #CANCELLED} when it leaves the
+ * queue without ringing and {@link #FIRED} when it rings. Keys are alarm
+ * IDs, or their complement for snooze slots, as in the scheduler. An
+ * expectation with no matching fire that is still outstanding when a new
+ * process rebuilds the schedule is a candidate miss; the scheduler decides
+ * and records the outcome with {@link #MISSED} or {@link #CAUGHT_UP}.
+ *
+ * Writes go straight into the mapping, so a killed process loses nothing.
+ * Lifetime counters live in the header; when the log fills up it is
+ * compacted to the outstanding expectations and the most recent misses.
+ *
+ * The outstanding expectations always equal the writer's queue, so the
+ * scheduler in another process can {@link #reopen} the log and adopt them.
+ * Writers from several processes must hold the {@link AlarmStateSync}
+ * lock and reopen first if the other process wrote since.
+ */
+final class FireJournal {
+    private static final String TAG = "FireJournal";
+    static final String FILE_NAME = "fire_journal.bin";
+
+    static final int SCHEDULED = 1;
+    static final int FIRED = 2;
+    static final int CANCELLED = 3;
+    static final int MISSED = 4;
+    static final int CAUGHT_UP = 5;
+
+    private static final int MAGIC = 0x46524a4c; // "FRJL"
+    private static final int VERSION = 1;
+    // magic, version, capacity, count, then fired, late, missed, caught-up counters
+    private static final int HEADER_BYTES = 48;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_COUNT = 12;
+    private static final int OFFSET_FIRED = 16;
+    private static final int OFFSET_LATE = 24;
+    private static final int OFFSET_MISSED = 32;
+    private static final int OFFSET_CAUGHT_UP = 40;
+    // type (4), key (4), scheduled-for (8), recorded-at (8)
+    private static final int ENTRY_BYTES = 24;
+    private static final int MIN_CAPACITY = 4096;
+    private static final int KEPT_MISSES = 64;
+
+    /** One logged miss, for reporting. */
+    static final class Miss {
+        final int alarmId;
+        final long scheduledFor;
+        final long detectedAt;
+        final boolean caughtUp;
+
+        Miss(int alarmId, long scheduledFor, long detectedAt, boolean caughtUp) {
+            this.alarmId = alarmId;
+            this.scheduledFor = scheduledFor;
+            this.detectedAt = detectedAt;
+            this.caughtUp = caughtUp;
+        }
+    }
+
+    private final File file;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int count;
+    // Latest trigger time expected for each queue key that has not rung or been cancelled
+    private final HashMap<Integer, Long> outstanding = new HashMap<>();
+
+    FireJournal(File file) {
+        this.file = file;
+        try {
+            open();
+        } catch (IOException e) {
+            // Scheduling must not depend on the journal; run without it
+            Log.e(TAG, "Error opening fire journal, watchdog disabled", e);
+            map = null;
+        }
+    }
+
+    /**
+     * Records that {@code key} is expected to fire at {@code time}; repeats
+     * of the current expectation are not logged. Returns whether anything
+     * changed.
+     */
+    synchronized boolean scheduled(int key, long time) {
+        Long current = outstanding.put(key, time);
+        if (current != null && current == time) {
+            return false;
+        }
+        append(SCHEDULED, key, time, System.currentTimeMillis());
+        return true;
+    }
+
+    /** Drops the expectation for {@code key}; returns whether there was one. */
+    synchronized boolean cancelled(int key) {
+        Long time = outstanding.remove(key);
+        if (time == null) {
+            return false;
+        }
+        append(CANCELLED, key, time, System.currentTimeMillis());
+        return true;
+    }
+
+    /** {@code key} rang for its trigger at {@code scheduledFor}; {@code late} if only after a restart. */
+    synchronized void fired(int key, long scheduledFor, long now, boolean late) {
+        Long expected = outstanding.get(key);
+        if (expected != null && expected == scheduledFor) {
+            outstanding.remove(key);
+        }
+        append(FIRED, key, scheduledFor, now);
+        bump(OFFSET_FIRED);
+        if (late) {
+            bump(OFFSET_LATE);
+        }
+    }
+
+    /** The expectation for {@code key} at {@code scheduledFor} was never met; {@code caughtUp} if it rings now instead. */
+    synchronized void missed(int key, long scheduledFor, long now, boolean caughtUp) {
+        outstanding.remove(key);
+        append(caughtUp ? CAUGHT_UP : MISSED, key, scheduledFor, now);
+        bump(OFFSET_MISSED);
+        if (caughtUp) {
+            bump(OFFSET_CAUGHT_UP);
+        }
+    }
+
+    /**
+     * Makes the outstanding expectations match {@code queue} after it was
+     * rebuilt wholesale: keys that left it are cancelled and new or moved
+     * ones are scheduled.
+     */
+    synchronized void reconcile(NextFireQueue queue) {
+        for (Integer key : new ArrayList<>(outstanding.keySet())) {
+            if (!queue.contains(key)) {
+                cancelled(key);
+            }
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            scheduled(queue.idAt(i), queue.timeAt(i));
+        }
+    }
+
+    /** Outstanding expectations due at or before {@code time}, by key. */
+    synchronized Map<Integer, Long> overdue(long time) {
+        Map<Integer, Long> result = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : outstanding.entrySet()) {
+            if (entry.getValue() <= time) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /** Re-reads the log after another process appended to or compacted it. */
+    synchronized void reopen() {
+        try {
+            open();
+        } catch (IOException e) {
+            Log.e(TAG, "Error reopening fire journal, watchdog disabled", e);
+            map = null;
+        }
+    }
+
+    /** Whether entries are being persisted; false once the journal has been disabled by an I/O error. */
+    synchronized boolean isOpen() {
+        return map != null;
+    }
+
+    /** Every outstanding expectation, by key. */
+    synchronized Map<Integer, Long> outstanding() {
+        return new HashMap<>(outstanding);
+    }
+
+    /** Lifetime {@code fired, late, missed, caughtUp} counts. */
+    synchronized long[] counters() {
+        if (map == null) {
+            return new long[4];
+        }
+        return new long[] {
+            map.getLong(OFFSET_FIRED), map.getLong(OFFSET_LATE),
+            map.getLong(OFFSET_MISSED), map.getLong(OFFSET_CAUGHT_UP),
+        };
+    }
+
+    /** Up to {@code limit} most recent misses, newest first. */
+    synchronized List<Miss> recentMisses(int limit) {
+        List<Miss> result = new ArrayList<>();
+        if (map == null) {
+            return result;
+        }
+        for (int i = count - 1; i >= 0 && result.size() < limit; i--) {
+            int offset = entryOffset(i);
+            int type = map.getInt(offset);
+            if (type == MISSED || type == CAUGHT_UP) {
+                result.add(new Miss(map.getInt(offset + 4), map.getLong(offset + 8),
+                    map.getLong(offset + 16), type == CAUGHT_UP));
+            }
+        }
+        return result;
+    }
+
+    private void open() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            boolean valid = raf.length() >= HEADER_BYTES && raf.readInt() == MAGIC && raf.readInt() == VERSION;
+            capacity = valid ? raf.readInt() : MIN_CAPACITY;
+            count = valid ? raf.readInt() : 0;
+            if (!valid || capacity < MIN_CAPACITY || count < 0 || count > capacity
+                    || raf.length() < HEADER_BYTES + (long) capacity * ENTRY_BYTES) {
+                if (raf.length() > 0) {
+                    Log.w(TAG, "Discarding unreadable fire journal");
+                }
+                capacity = MIN_CAPACITY;
+                count = 0;
+                valid = false;
+            }
+            map = mapFile(raf, capacity);
+            if (!valid) {
+                map.putInt(0, MAGIC).putInt(4, VERSION).putInt(OFFSET_CAPACITY, capacity).putInt(OFFSET_COUNT, 0);
+                for (int offset = OFFSET_FIRED; offset < HEADER_BYTES; offset += 8) {
+                    map.putLong(offset, 0);
+                }
+            }
+        }
+        replay();
+    }
+
+    private static MappedByteBuffer mapFile(RandomAccessFile raf, int capacity) throws IOException {
+        long size = HEADER_BYTES + (long) capacity * ENTRY_BYTES;
+        raf.setLength(size);
+        // The mapping stays valid after the file is closed
+        return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void replay() {
+        outstanding.clear();
+        for (int i = 0; i < count; i++) {
+            int offset = entryOffset(i);
+            int key = map.getInt(offset + 4);
+            long time = map.getLong(offset + 8);
+            switch (map.getInt(offset)) {
+                case SCHEDULED:
+                    outstanding.put(key, time);
+                    break;
+                case FIRED:
+                    Long expected = outstanding.get(key);
+                    if (expected != null && expected == time) {
+                        outstanding.remove(key);
+                    }
+                    break;
+                default:
+                    outstanding.remove(key);
+                    break;
+            }
+        }
+        Log.d(TAG, "Replayed " + count + " journal entries, " + outstanding.size() + " outstanding");
+    }
+
+    private void append(int type, int key, long time, long at) {
+        if (map == null) {
+            return;
+        }
+        if (count == capacity) {
+            compact();
+        }
+        int offset = entryOffset(count);
+        map.putInt(offset, type).putInt(offset + 4, key).putLong(offset + 8, time).putLong(offset + 16, at);
+        // Count last, so a torn write is never replayed
+        map.putInt(OFFSET_COUNT, ++count);
+    }
+
+    private void bump(int offset) {
+        if (map != null) {
+            map.putLong(offset, map.getLong(offset) + 1);
+        }
+    }
+
+    /**
+     * Rewrites the log as the outstanding expectations plus the last
+     * {@link #KEPT_MISSES} misses, through a temporary file so a crash
+     * leaves either the old log or the new one.
+     */
+    private void compact() {
+        List<Miss> misses = recentMisses(KEPT_MISSES);
+        int live = outstanding.size() + misses.size();
+        int newCapacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, live * 2)) * 2);
+        long[] counters = counters();
+        long now = System.currentTimeMillis();
+
+        ByteBuffer entries = ByteBuffer.allocate(live * ENTRY_BYTES);
+        for (int i = misses.size() - 1; i >= 0; i--) {
+            Miss miss = misses.get(i);
+            entries.putInt(miss.caughtUp ? CAUGHT_UP : MISSED).putInt(miss.alarmId)
+                .putLong(miss.scheduledFor).putLong(miss.detectedAt);
+        }
+        for (Map.Entry<Integer, Long> entry : outstanding.entrySet()) {
+            entries.putInt(SCHEDULED).putInt(entry.getKey()).putLong(entry.getValue()).putLong(now);
+        }
+        entries.flip();
+
+        File temp = new File(file.getPath() + ".new");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+            raf.setLength(0);
+            MappedByteBuffer next = mapFile(raf, newCapacity);
+            next.putInt(0, MAGIC).putInt(4, VERSION).putInt(OFFSET_CAPACITY, newCapacity).putInt(OFFSET_COUNT, live);
+            next.putLong(OFFSET_FIRED, counters[0]).putLong(OFFSET_LATE, counters[1])
+                .putLong(OFFSET_MISSED, counters[2]).putLong(OFFSET_CAUGHT_UP, counters[3]);
+            next.position(HEADER_BYTES);
+            next.put(entries);
+            next.force();
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+            map = next;
+            capacity = newCapacity;
+            count = live;
+            Log.d(TAG, "Compacted fire journal to " + live + " entries");
+        } catch (IOException e) {
+            Log.e(TAG, "Error compacting fire journal, watchdog disabled", e);
+            temp.delete();
+            map = null;
+        }
+    }
+
+    private static int entryOffset(int index) {
+        return HEADER_BYTES + index * ENTRY_BYTES;
+    }
+}
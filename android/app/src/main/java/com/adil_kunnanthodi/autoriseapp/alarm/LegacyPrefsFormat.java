@@ -0,0 +1,45 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+/**
+ * Codec for the old {@code AlarmPrefs} entries: key {@code alarm_<id>},
+ * value {@code title|time|sound|enabled|days} with days as "1,0,...".
+ * Only used to import existing installs and by the store benchmark.
+ */
+final class LegacyPrefsFormat {
+    static final String PREFS_NAME = "AlarmPrefs";
+    static final String KEY_PREFIX = "alarm_";
+
+    private LegacyPrefsFormat() {}
+
+    static String encode(AlarmRecord record) {
+        StringBuilder daysStr = new StringBuilder();
+        for (int i = 0; i < 7; i++) {
+            daysStr.append(record.isDayEnabled(i) ? "1" : "0");
+            if (i < 6) daysStr.append(",");
+        }
+        return record.title + "|" + record.formatTime() + "|" + record.sound + "|"
+            + record.enabled + "|" + daysStr;
+    }
+
+    /** Returns null when the entry is malformed. */
+    static AlarmRecord decode(String key, String data) {
+        try {
+            int id = Integer.parseInt(key.substring(KEY_PREFIX.length()));
+            String[] parts = data.split("\\|");
+            if (parts.length < 5) {
+                return null;
+            }
+            int dayMask = 0;
+            String[] dayParts = parts[4].split(",");
+            for (int i = 0; i < dayParts.length && i < 7; i++) {
+                if ("1".equals(dayParts[i])) {
+                    dayMask |= 1 << i;
+                }
+            }
+            return new AlarmRecord(id, parts[0], AlarmRecord.parseTime(parts[1]), dayMask,
+                Boolean.parseBoolean(parts[3]), parts[2]);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Indexed binary min-heap of (alarm ID, next trigger time).
+ *
+ * Each alarm ID has at most one entry. The position map lets
+ * {@link #upsert} and {@link #remove} find an entry in O(1) and restore
+ * heap order in O(log n). Ties on time are broken by ID so iteration order
+ * is deterministic.
+ */
+final class NextFireQueue {
+    private static final int PARALLEL_REBUILD_THRESHOLD = 512;
+
+    private long[] times = new long[16];
+    private int[] ids = new int[16];
+    private final HashMap<Integer, Integer> positions = new HashMap<>();
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return positions.containsKey(id);
+    }
+
+    /** Returns the scheduled time for {@code id}, or -1 if it is not queued. */
+    long timeOf(int id) {
+        Integer pos = positions.get(id);
+        return pos != null ? times[pos] : -1L;
+    }
+
+    long peekTime() {
+        if (size == 0) throw new IllegalStateException("queue is empty");
+        return times[0];
+    }
+
+    int peekId() {
+        if (size == 0) throw new IllegalStateException("queue is empty");
+        return ids[0];
+    }
+
+    /** ID at heap slot {@code index} (0 to size - 1, heap order); for bulk scans. */
+    int idAt(int index) {
+        return ids[index];
+    }
+
+    /** Time at heap slot {@code index}; see {@link #idAt}. */
+    long timeAt(int index) {
+        return times[index];
+    }
+
+    /** Inserts {@code id} or moves its existing entry to {@code time}. */
+    void upsert(int id, long time) {
+        Integer pos = positions.get(id);
+        if (pos == null) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            times[size] = time;
+            ids[size] = id;
+            positions.put(id, size);
+            siftUp(size++);
+            return;
+        }
+        long old = times[pos];
+        times[pos] = time;
+        if (time < old) {
+            siftUp(pos);
+        } else if (time > old) {
+            siftDown(pos);
+        }
+    }
+
+    boolean remove(int id) {
+        Integer pos = positions.remove(id);
+        if (pos == null) {
+            return false;
+        }
+        int last = --size;
+        if (pos != last) {
+            move(last, pos);
+            if (!siftUp(pos)) {
+                siftDown(pos);
+            }
+        }
+        return true;
+    }
+
+    /** Removes the head entry and returns its ID. */
+    int poll() {
+        int id = peekId();
+        remove(id);
+        return id;
+    }
+
+    void clear() {
+        positions.clear();
+        size = 0;
+    }
+
+    /** Replaces the contents with the next occurrence after {@code now} of each of {@code records}. */
+    void rebuild(List<AlarmRecord> records, long now) {
+        clear();
+        // Next-fire computation is independent per alarm, so large sets are
+        // split across cores; the heap itself is only touched from this thread.
+        long[] next = new long[records.size()];
+        IntStream indices = IntStream.range(0, next.length);
+        if (next.length >= PARALLEL_REBUILD_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> next[i] = records.get(i).nextFireTime(now));
+
+        for (int i = 0; i < next.length; i++) {
+            if (next[i] > 0) {
+                upsert(records.get(i).id, next[i]);
+            }
+        }
+    }
+
+    private boolean less(int a, int b) {
+        return times[a] < times[b] || (times[a] == times[b] && ids[a] < ids[b]);
+    }
+
+    private boolean siftUp(int pos) {
+        boolean moved = false;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!less(pos, parent)) {
+                break;
+            }
+            swap(pos, parent);
+            pos = parent;
+            moved = true;
+        }
+        return moved;
+    }
+
+    private void siftDown(int pos) {
+        while (true) {
+            int left = 2 * pos + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && less(right, left)) {
+                smallest = right;
+            }
+            if (!less(smallest, pos)) {
+                return;
+            }
+            swap(pos, smallest);
+            pos = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long t = times[a];
+        times[a] = times[b];
+        times[b] = t;
+        int i = ids[a];
+        ids[a] = ids[b];
+        ids[b] = i;
+        positions.put(ids[a], a);
+        positions.put(ids[b], b);
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        ids[to] = ids[from];
+        positions.put(ids[to], to);
+    }
+}
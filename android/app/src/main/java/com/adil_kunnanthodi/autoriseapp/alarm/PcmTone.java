@@ -0,0 +1,97 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.util.AtomicFile;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A decoded alarm tone: interleaved 16-bit little-endian PCM plus its
+ * format. Serialised to the tone cache as a small header followed by the
+ * raw samples, so a cached tone is memory-mapped and handed to AudioTrack
+ * without copying it onto the heap.
+ */
+final class PcmTone {
+    private static final int MAGIC = 0x50434D31; // "PCM1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 4;
+
+    final int sampleRate;
+    final int channelCount;
+    /** Length of the compressed source this was decoded from; used to detect a changed source. */
+    final long sourceLength;
+    final ByteBuffer pcm;
+
+    PcmTone(int sampleRate, int channelCount, long sourceLength, ByteBuffer pcm) {
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        this.sourceLength = sourceLength;
+        this.pcm = pcm.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Faults the mapped samples into memory now, so the first AudioTrack writes do not wait on disk. */
+    void prefault() {
+        if (pcm instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) pcm).load();
+        }
+    }
+
+    int frameCount() {
+        return pcm.limit() / (2 * channelCount);
+    }
+
+    void writeTo(File file) throws IOException {
+        AtomicFile atomicFile = new AtomicFile(file);
+        FileOutputStream fos = atomicFile.startWrite();
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(sampleRate);
+            out.writeInt(channelCount);
+            out.writeLong(sourceLength);
+            out.writeInt(pcm.limit());
+            ByteBuffer data = pcm.duplicate();
+            data.clear();
+            byte[] chunk = new byte[8192];
+            while (data.hasRemaining()) {
+                int n = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+            out.flush();
+            atomicFile.finishWrite(fos);
+        } catch (IOException e) {
+            atomicFile.failWrite(fos);
+            throw e;
+        }
+    }
+
+    static PcmTone readFrom(File file) throws IOException {
+        try (FileInputStream fis = new AtomicFile(file).openRead()) {
+            DataInputStream in = new DataInputStream(fis);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a cached tone: " + file);
+            }
+            int sampleRate = in.readInt();
+            int channelCount = in.readInt();
+            long sourceLength = in.readLong();
+            int length = in.readInt();
+
+            FileChannel channel = fis.getChannel();
+            if (channel.size() < HEADER_BYTES + (long) length) {
+                throw new IOException("Truncated tone cache: " + file);
+            }
+            // The mapping stays valid after the channel closes
+            MappedByteBuffer pcm = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, length);
+            return new PcmTone(sampleRate, channelCount, sourceLength, pcm);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Allocation-free next-occurrence math for weekly alarms.
+ *
+ * Works on epoch minutes and a Sunday-first 7-bit day mask. The zone's
+ * UTC offset transitions are read once from {@link TimeZone} for a window
+ * around the creation time and kept in sorted primitive arrays, so
+ * evaluating an alarm is a binary search plus integer arithmetic with no
+ * {@code Calendar} and no allocation.
+ *
+ * Local times that do not exist (DST gap) ring at the same wall-clock
+ * distance past the transition, e.g. 02:30 in a 02:00-03:00 gap rings at
+ * 03:30. Local times that occur twice (DST overlap) ring once, at the
+ * first occurrence.
+ */
+final class RecurrenceCalculator {
+    static final int MINUTES_PER_DAY = 24 * 60;
+    private static final long MILLIS_PER_MINUTE = 60000L;
+    // 1970-01-01 was a Thursday, index 4 counting from Sunday
+    private static final int EPOCH_DAY_OF_WEEK = 4;
+
+    // Transitions are precomputed over [start - LOOKBACK, start + HORIZON]
+    private static final long LOOKBACK_MINUTES = 2L * MINUTES_PER_DAY;
+    private static final long HORIZON_MINUTES = 400L * MINUTES_PER_DAY;
+    // A weekly alarm fires within 8 days, so refresh before that runs off the window
+    private static final long REFRESH_MARGIN_MINUTES = 9L * MINUTES_PER_DAY;
+    private static final long SCAN_STEP_MINUTES = 12 * 60;
+
+    private static volatile RecurrenceCalculator current;
+
+    final String zoneId;
+    private final long validFrom;
+    private final long validUntil;
+    /** UTC epoch minute at which each transition takes effect. */
+    private final long[] transitions;
+    /** offsets[i] is the offset in minutes before transitions[i]; the last entry applies after all of them. */
+    private final int[] offsets;
+    /** Local minute at which each transition's gap or overlap ends. */
+    private final long[] localEnds;
+
+    private RecurrenceCalculator(String zoneId, long validFrom, long validUntil,
+                                 long[] transitions, int[] offsets) {
+        this.zoneId = zoneId;
+        this.validFrom = validFrom;
+        this.validUntil = validUntil;
+        this.transitions = transitions;
+        this.offsets = offsets;
+        this.localEnds = new long[transitions.length];
+        for (int i = 0; i < transitions.length; i++) {
+            localEnds[i] = transitions[i] + Math.max(offsets[i], offsets[i + 1]);
+        }
+    }
+
+    /**
+     * Returns the calculator for the default zone, rebuilding it if
+     * {@code nowMillis} is near the edge of its precomputed window.
+     */
+    static RecurrenceCalculator current(long nowMillis) {
+        RecurrenceCalculator calculator = current;
+        long nowMinute = Math.floorDiv(nowMillis, MILLIS_PER_MINUTE);
+        if (calculator == null || !calculator.covers(nowMinute)) {
+            calculator = forZone(TimeZone.getDefault(), nowMillis);
+            current = calculator;
+        }
+        return calculator;
+    }
+
+    /** Drops the cached calculator, e.g. after the default zone changed. */
+    static void invalidate() {
+        current = null;
+    }
+
+    /** Builds a calculator for {@code zone} valid for about a year from {@code nowMillis}. */
+    static RecurrenceCalculator forZone(TimeZone zone, long nowMillis) {
+        long nowMinute = Math.floorDiv(nowMillis, MILLIS_PER_MINUTE);
+        long from = nowMinute - LOOKBACK_MINUTES;
+        long until = nowMinute + HORIZON_MINUTES;
+
+        long[] transitions = new long[8];
+        int[] offsets = new int[9];
+        int count = 0;
+        int offset = offsetMinutes(zone, from);
+        offsets[0] = offset;
+
+        long minute = from;
+        while (minute < until) {
+            long next = Math.min(minute + SCAN_STEP_MINUTES, until);
+            int nextOffset = offsetMinutes(zone, next);
+            if (nextOffset == offset) {
+                minute = next;
+                continue;
+            }
+            // Bisect to the first minute with the new offset
+            long lo = minute;
+            long hi = next;
+            while (hi - lo > 1) {
+                long mid = (lo + hi) >>> 1;
+                if (offsetMinutes(zone, mid) == offset) {
+                    lo = mid;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (count == transitions.length) {
+                transitions = Arrays.copyOf(transitions, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            offset = offsetMinutes(zone, hi);
+            transitions[count] = hi;
+            offsets[++count] = offset;
+            minute = hi;
+        }
+        return new RecurrenceCalculator(zone.getID(), from, until,
+            Arrays.copyOf(transitions, count), Arrays.copyOf(offsets, count + 1));
+    }
+
+    private static int offsetMinutes(TimeZone zone, long epochMinute) {
+        return zone.getOffset(epochMinute * MILLIS_PER_MINUTE) / (int) MILLIS_PER_MINUTE;
+    }
+
+    boolean covers(long nowMinute) {
+        return nowMinute >= validFrom + LOOKBACK_MINUTES / 2
+            && nowMinute <= validUntil - REFRESH_MARGIN_MINUTES;
+    }
+
+    int transitionCount() {
+        return transitions.length;
+    }
+
+    /** UTC offset in minutes in effect at {@code utcMinute}. */
+    int offsetAtUtc(long utcMinute) {
+        int lo = 0;
+        int hi = transitions.length;
+        // First transition strictly after utcMinute
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (transitions[mid] <= utcMinute) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return offsets[lo];
+    }
+
+    /**
+     * UTC epoch minute for local minute {@code localMinute}, resolving gaps
+     * forward and overlaps to the earlier instant.
+     */
+    long localToUtc(long localMinute) {
+        int lo = 0;
+        int hi = localEnds.length;
+        // First transition whose gap/overlap window has not ended at localMinute
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (localEnds[mid] <= localMinute) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        // Before or inside that window the pre-transition offset applies
+        return localMinute - offsets[lo];
+    }
+
+    /**
+     * Next UTC epoch minute strictly after {@code nowMinute} at which an
+     * alarm set for {@code minuteOfDay} on the days in {@code dayMask}
+     * rings, or -1 if the mask is empty.
+     */
+    long nextFireMinute(int minuteOfDay, int dayMask, long nowMinute) {
+        if ((dayMask & AlarmRecord.ALL_DAYS) == 0) {
+            return -1;
+        }
+        long localNow = nowMinute + offsetAtUtc(nowMinute);
+        long localDay = Math.floorDiv(localNow, (long) MINUTES_PER_DAY);
+        int dayOfWeek = (int) Math.floorMod(localDay + EPOCH_DAY_OF_WEEK, 7L);
+
+        // Day 7 repeats today's weekday for when today's time has passed
+        for (int d = 0; d <= 7; d++) {
+            if ((dayMask & (1 << ((dayOfWeek + d) % 7))) == 0) {
+                continue;
+            }
+            long fire = localToUtc((localDay + d) * MINUTES_PER_DAY + minuteOfDay);
+            if (fire > nowMinute) {
+                return fire;
+            }
+        }
+        return -1;
+    }
+
+    /** {@link #nextFireMinute} in epoch milliseconds, with {@code nowMillis} in milliseconds. */
+    long nextFireMillis(int minuteOfDay, int dayMask, long nowMillis) {
+        long fire = nextFireMinute(minuteOfDay, dayMask, Math.floorDiv(nowMillis, MILLIS_PER_MINUTE));
+        return fire < 0 ? -1 : fire * MILLIS_PER_MINUTE;
+    }
+}
@@ -0,0 +1,224 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The alarms that are ringing right now, keyed by alarm ID.
+ *
+ * {@link AlarmService} owns the single audio output and plays the
+ * {@link #front()} session's sound; the {@link Policy} decides which
+ * session that is when another alarm fires while one is ringing. Ending a
+ * session only affects that alarm; the service stops once none are left.
+ *
+ * State is confined to the main thread, where the service, the alarm
+ * screen and {@link AlarmActionReceiver} all run.
+ */
+final class RingingSessionManager {
+    private static final String TAG = "RingingSessions";
+    static final String PREFS_NAME = "AlarmRingingSettings";
+    private static final String KEY_POLICY = "policy";
+    // Per-alarm notification IDs start above AlarmService's own
+    private static final int FIRST_NOTIFICATION_ID = 2000;
+
+    /** What happens when an alarm fires while others are ringing. */
+    enum Policy {
+        /** The newest alarm's sound plays; ending it resumes the one below. */
+        STACK,
+        /** The first alarm keeps playing; later ones only join the list. */
+        MERGE,
+        /** The newest alarm ends every other session. */
+        REPLACE
+    }
+
+    /** Notified on the main thread whenever sessions start or end. */
+    interface Listener {
+        void onSessionsChanged();
+    }
+
+    static final class Session {
+        final String alarmId;
+        final String label;
+        final String sound;
+        final float volume;
+        final int snoozeCount;
+        final int snoozeMinutes;
+        final boolean canSnooze;
+        /** {@code elapsedRealtime} the fire broadcast arrived, or 0 if unknown. */
+        final long receivedAt;
+        final long startedAt;
+        int notificationId;
+
+        Session(String alarmId, String label, String sound, float volume, int snoozeCount,
+                int snoozeMinutes, boolean canSnooze, long receivedAt, long startedAt) {
+            this.alarmId = alarmId;
+            this.label = label;
+            this.sound = sound;
+            this.volume = volume;
+            this.snoozeCount = snoozeCount;
+            this.snoozeMinutes = snoozeMinutes;
+            this.canSnooze = canSnooze;
+            this.receivedAt = receivedAt;
+            this.startedAt = startedAt;
+        }
+
+        /** Writes the extras {@link AlarmActivity} and {@link AlarmService} read a session from. */
+        void putExtras(Intent intent) {
+            intent.putExtra("alarmId", alarmId);
+            intent.putExtra("label", label);
+            intent.putExtra("sound", sound);
+            intent.putExtra("snoozeCount", snoozeCount);
+            intent.putExtra(AlarmActivity.EXTRA_SNOOZE_MINUTES, snoozeMinutes);
+            intent.putExtra(AlarmActivity.EXTRA_CAN_SNOOZE, canSnooze);
+            intent.putExtra(AlarmActivity.EXTRA_RECEIVED_AT, receivedAt);
+        }
+    }
+
+    private static final RingingSessionManager instance = new RingingSessionManager();
+
+    // Oldest first
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private Policy policy = Policy.STACK;
+    private int nextNotificationId = FIRST_NOTIFICATION_ID;
+
+    private RingingSessionManager() {}
+
+    static RingingSessionManager get() {
+        return instance;
+    }
+
+    void setPolicy(Policy policy) {
+        checkThread();
+        this.policy = policy;
+    }
+
+    /** The saved queue policy, {@link Policy#STACK} if none was set. */
+    static Policy loadPolicy(Context context) {
+        String name = AlarmSettings.get(context)
+            .getString(PREFS_NAME, KEY_POLICY, null);
+        try {
+            return name != null ? Policy.valueOf(name) : Policy.STACK;
+        } catch (IllegalArgumentException e) {
+            return Policy.STACK;
+        }
+    }
+
+    static void savePolicy(Context context, Policy policy) {
+        AlarmSettings.get(context)
+            .edit(PREFS_NAME)
+            .putString(KEY_POLICY, policy.name())
+            .commit();
+    }
+
+    /**
+     * Adds {@code session}, or refreshes it if its alarm is already ringing
+     * (e.g. a snooze re-fire), applying the queue policy to the others.
+     * Returns the sessions {@link Policy#REPLACE} ended, which the caller
+     * dismisses like any other; empty under the other policies.
+     */
+    List<Session> start(Session session) {
+        checkThread();
+        Session previous = sessions.remove(session.alarmId);
+        session.notificationId = previous != null ? previous.notificationId : nextNotificationId++;
+        List<Session> replaced = Collections.emptyList();
+        if (policy == Policy.REPLACE && !sessions.isEmpty()) {
+            Log.d(TAG, "Alarm " + session.alarmId + " replaces " + sessions.size() + " ringing alarms");
+            replaced = new ArrayList<>(sessions.values());
+            sessions.clear();
+        }
+        sessions.put(session.alarmId, session);
+        Log.d(TAG, "Ringing " + session.alarmId + " (" + sessions.size() + " active, " + policy + ")");
+        notifyListeners();
+        return replaced;
+    }
+
+    /** Ends {@code alarmId}'s session; returns false if it was not ringing. */
+    boolean end(String alarmId) {
+        checkThread();
+        if (alarmId == null || sessions.remove(alarmId) == null) {
+            return false;
+        }
+        Log.d(TAG, "Ended " + alarmId + " (" + sessions.size() + " active)");
+        notifyListeners();
+        return true;
+    }
+
+    /** Ends every session, e.g. when the service is being torn down. */
+    void endAll() {
+        checkThread();
+        if (!sessions.isEmpty()) {
+            sessions.clear();
+            notifyListeners();
+        }
+    }
+
+    /** The session whose sound plays and whose alarm the screen shows, or null if none. */
+    Session front() {
+        checkThread();
+        if (sessions.isEmpty()) {
+            return null;
+        }
+        Iterator<Session> it = sessions.values().iterator();
+        Session session = it.next();
+        if (policy == Policy.MERGE) {
+            return session;
+        }
+        while (it.hasNext()) {
+            session = it.next();
+        }
+        return session;
+    }
+
+    Session find(String alarmId) {
+        checkThread();
+        return alarmId != null ? sessions.get(alarmId) : null;
+    }
+
+    /** Snapshot of the ringing sessions, newest first. */
+    List<Session> sessions() {
+        checkThread();
+        List<Session> result = new ArrayList<>(sessions.values());
+        Collections.reverse(result);
+        return result;
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    boolean isEmpty() {
+        return sessions.isEmpty();
+    }
+
+    void addListener(Listener listener) {
+        checkThread();
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        checkThread();
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        // Copy so listeners may unregister while being notified
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onSessionsChanged();
+        }
+    }
+
+    private static void checkThread() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("Ringing sessions are main-thread only");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+
+/**
+ * User-configurable snooze behaviour: how long a snooze lasts, how many
+ * times an alarm may be snoozed before only dismiss is offered, and whether
+ * each re-fire rings louder than the last.
+ */
+final class SnoozePolicy {
+    static final String PREFS_NAME = "AlarmSnoozeSettings";
+    private static final String KEY_DURATION_MINUTES = "durationMinutes";
+    private static final String KEY_MAX_SNOOZES = "maxSnoozes";
+    private static final String KEY_ESCALATE_VOLUME = "escalateVolume";
+
+    static final int DEFAULT_DURATION_MINUTES = 5;
+    static final int DEFAULT_MAX_SNOOZES = 3;
+
+    // With escalation on, the first ring starts here and each snooze adds a step
+    private static final float ESCALATION_START_VOLUME = 0.4f;
+    private static final float ESCALATION_STEP = 0.2f;
+
+    final int durationMinutes;
+    final int maxSnoozes;
+    final boolean escalateVolume;
+
+    SnoozePolicy(int durationMinutes, int maxSnoozes, boolean escalateVolume) {
+        if (durationMinutes < 1 || durationMinutes > 60) {
+            throw new IllegalArgumentException("Snooze duration must be 1-60 minutes");
+        }
+        if (maxSnoozes < 0 || maxSnoozes > 20) {
+            throw new IllegalArgumentException("Max snoozes must be 0-20");
+        }
+        this.durationMinutes = durationMinutes;
+        this.maxSnoozes = maxSnoozes;
+        this.escalateVolume = escalateVolume;
+    }
+
+    static SnoozePolicy load(Context context) {
+        AlarmSettings settings = AlarmSettings.get(context);
+        return new SnoozePolicy(
+            settings.getInt(PREFS_NAME, KEY_DURATION_MINUTES, DEFAULT_DURATION_MINUTES),
+            settings.getInt(PREFS_NAME, KEY_MAX_SNOOZES, DEFAULT_MAX_SNOOZES),
+            settings.getBoolean(PREFS_NAME, KEY_ESCALATE_VOLUME, false)
+        );
+    }
+
+    void save(Context context) {
+        AlarmSettings.get(context)
+            .edit(PREFS_NAME)
+            .putInt(KEY_DURATION_MINUTES, durationMinutes)
+            .putInt(KEY_MAX_SNOOZES, maxSnoozes)
+            .putBoolean(KEY_ESCALATE_VOLUME, escalateVolume)
+            .commit();
+    }
+
+    long durationMillis() {
+        return durationMinutes * 60000L;
+    }
+
+    boolean canSnooze(int snoozeCount) {
+        return snoozeCount < maxSnoozes;
+    }
+
+    /** Playback volume (0-1) for a ring that follows {@code snoozeCount} snoozes. */
+    float volumeFor(int snoozeCount) {
+        if (!escalateVolume) {
+            return 1f;
+        }
+        return Math.min(1f, ESCALATION_START_VOLUME + snoozeCount * ESCALATION_STEP);
+    }
+}
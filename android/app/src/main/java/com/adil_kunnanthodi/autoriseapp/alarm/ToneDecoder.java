@@ -0,0 +1,117 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes a compressed audio file to 16-bit PCM with MediaExtractor and
+ * MediaCodec. Only used off the fire path, to fill the tone cache.
+ */
+final class ToneDecoder {
+    private static final String TAG = "ToneDecoder";
+    private static final long TIMEOUT_US = 10000;
+    // Alarm tones loop, so anything longer than this is truncated
+    private static final int MAX_PCM_BYTES = 8 * 1024 * 1024;
+    private static final int ENCODING_PCM_16BIT = 2;
+
+    private ToneDecoder() {}
+
+    static PcmTone decode(FileDescriptor fd, long offset, long length) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(fd, offset, length);
+            MediaFormat format = null;
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat candidate = extractor.getTrackFormat(i);
+                String mime = candidate.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    extractor.selectTrack(i);
+                    format = candidate;
+                    break;
+                }
+            }
+            if (format == null) {
+                throw new IOException("No audio track found");
+            }
+
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+            int channelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+            ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            byte[] chunk = new byte[0];
+            boolean inputDone = false;
+            boolean outputDone = false;
+
+            while (!outputDone) {
+                if (!inputDone) {
+                    int inIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (inIndex >= 0) {
+                        ByteBuffer input = codec.getInputBuffer(inIndex);
+                        int size = extractor.readSampleData(input, 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(inIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inIndex, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                int outIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (outIndex >= 0) {
+                    if (info.size > 0 && pcm.size() < MAX_PCM_BYTES) {
+                        ByteBuffer output = codec.getOutputBuffer(outIndex);
+                        if (chunk.length < info.size) {
+                            chunk = new byte[info.size];
+                        }
+                        output.position(info.offset);
+                        output.get(chunk, 0, info.size);
+                        pcm.write(chunk, 0, Math.min(info.size, MAX_PCM_BYTES - pcm.size()));
+                    }
+                    codec.releaseOutputBuffer(outIndex, false);
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0 || pcm.size() >= MAX_PCM_BYTES) {
+                        outputDone = true;
+                    }
+                } else if (outIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    MediaFormat outputFormat = codec.getOutputFormat();
+                    sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                    channelCount = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                    if (outputFormat.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                            && outputFormat.getInteger(MediaFormat.KEY_PCM_ENCODING) != ENCODING_PCM_16BIT) {
+                        throw new IOException("Unsupported PCM encoding");
+                    }
+                }
+            }
+
+            // Keep whole frames only
+            int frameBytes = 2 * channelCount;
+            byte[] samples = pcm.toByteArray();
+            int usable = samples.length - (samples.length % frameBytes);
+            Log.d(TAG, "Decoded " + usable + " bytes of PCM (" + sampleRate + " Hz, " + channelCount + " ch)");
+            return new PcmTone(sampleRate, channelCount, length, ByteBuffer.wrap(samples, 0, usable).slice());
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException e) {
+                    // Codec never started
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+}
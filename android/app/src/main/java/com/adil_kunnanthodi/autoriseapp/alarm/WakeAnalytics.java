@@ -0,0 +1,402 @@
+package com.adil_kunnanthodi.autoriseapp.alarm;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Memory-mapped store of how alarms end: how long each rang before it was
+ * dismissed or snoozed, and how many snoozes came before the dismiss.
+ *
+ * {@link AlarmActionReceiver} records an event per dismiss and snooze.
+ * Each is appended as a fixed-size raw event and, in the same write,
+ * added to the rollup for its local day and alarm, so queries read a
+ * day's totals instead of its events: a year of data is a few thousand
+ * rollups however often the alarms ring.
+ *
+ * Writes go straight into the mapping, so a killed process loses nothing.
+ * When either region fills up the file is compacted: raw events older
+ * than {@link #EVENT_RETENTION_DAYS} and rollups older than
+ * {@link #ROLLUP_RETENTION_DAYS} are dropped. Events are recorded in the
+ * {@link AlarmProcess :alarm} process and read in the app process; both
+ * hold the {@link AlarmStateSync} lock, counts are read from the shared
+ * mapping, and a compaction bumps {@link AlarmStateSync#ANALYTICS} so the
+ * other process maps the new file.
+ */
+final class WakeAnalytics {
+    private static final String TAG = "WakeAnalytics";
+    static final String FILE_NAME = "wake_analytics.bin";
+
+    static final int DISMISSED = 1;
+    static final int SNOOZED = 2;
+
+    /** Snoozes-before-dismiss histogram buckets: 0 to 4, then 5 or more. */
+    static final int HISTOGRAM_BUCKETS = 6;
+
+    static final int EVENT_RETENTION_DAYS = 30;
+    static final int ROLLUP_RETENTION_DAYS = 2 * 366;
+
+    private static final int MAGIC = 0x57414b45; // "WAKE"
+    private static final int VERSION = 1;
+    // magic, version, rollup capacity, rollup count, event capacity, event count
+    private static final int HEADER_BYTES = 32;
+    private static final int OFFSET_ROLLUP_CAPACITY = 8;
+    private static final int OFFSET_ROLLUP_COUNT = 12;
+    private static final int OFFSET_EVENT_CAPACITY = 16;
+    private static final int OFFSET_EVENT_COUNT = 20;
+    // day (4), alarm ID (4), dismissals (4), snoozes (4), dismiss time total (8), histogram (6 x 4)
+    private static final int ROLLUP_BYTES = 48;
+    private static final int ROLLUP_DISMISSALS = 8;
+    private static final int ROLLUP_SNOOZES = 12;
+    private static final int ROLLUP_DISMISS_MS = 16;
+    private static final int ROLLUP_HISTOGRAM = 24;
+    // type (4), alarm ID (4), at (8), ring time (4), snooze count (4)
+    private static final int EVENT_BYTES = 24;
+    private static final int MIN_ROLLUPS = 1024;
+    private static final int MIN_EVENTS = 4096;
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    private static WakeAnalytics instance;
+
+    /** Totals for one alarm over a query range. */
+    static final class Summary {
+        final int alarmId;
+        int dismissals;
+        int snoozes;
+        long dismissMsTotal;
+
+        Summary(int alarmId) {
+            this.alarmId = alarmId;
+        }
+
+        /** Mean time from ringing to dismiss, or -1 if it was never dismissed. */
+        long averageDismissMs() {
+            return dismissals > 0 ? dismissMsTotal / dismissals : -1;
+        }
+    }
+
+    private final File file;
+    private final AlarmStateSync sync;
+    private long generation;
+    private MappedByteBuffer map;
+    private int rollupCapacity;
+    private int eventCapacity;
+
+    static synchronized WakeAnalytics get(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new WakeAnalytics(new File(appContext.getFilesDir(), FILE_NAME),
+                AlarmStateSync.get(appContext));
+        }
+        return instance;
+    }
+
+    WakeAnalytics(File file, AlarmStateSync sync) {
+        this.file = file;
+        this.sync = sync;
+        sync.lock();
+        try {
+            open();
+        } finally {
+            sync.unlock();
+        }
+    }
+
+    /** {@code alarmId} was dismissed after ringing {@code ringMs}, following {@code snoozeCount} snoozes. */
+    void dismissed(int alarmId, long at, long ringMs, int snoozeCount) {
+        record(DISMISSED, alarmId, at, ringMs, snoozeCount);
+    }
+
+    /** {@code alarmId} was snoozed after ringing {@code ringMs}; this was snooze number {@code snoozeCount}. */
+    void snoozed(int alarmId, long at, long ringMs, int snoozeCount) {
+        record(SNOOZED, alarmId, at, ringMs, snoozeCount);
+    }
+
+    /**
+     * Per-alarm totals over the last {@code days} local days including
+     * today, in order of first appearance.
+     */
+    List<Summary> summaries(int days, long now) {
+        LinkedHashMap<Integer, Summary> byAlarm = new LinkedHashMap<>();
+        lock();
+        try {
+            synchronized (this) {
+                int firstDay = localDay(now) - days + 1;
+                int count = rollupCount();
+                for (int i = 0; i < count; i++) {
+                    int offset = rollupOffset(i);
+                    if (map.getInt(offset) < firstDay) {
+                        continue;
+                    }
+                    int alarmId = map.getInt(offset + 4);
+                    Summary summary = byAlarm.get(alarmId);
+                    if (summary == null) {
+                        summary = new Summary(alarmId);
+                        byAlarm.put(alarmId, summary);
+                    }
+                    summary.dismissals += map.getInt(offset + ROLLUP_DISMISSALS);
+                    summary.snoozes += map.getInt(offset + ROLLUP_SNOOZES);
+                    summary.dismissMsTotal += map.getLong(offset + ROLLUP_DISMISS_MS);
+                }
+            }
+        } finally {
+            sync.unlock();
+        }
+        return new ArrayList<>(byAlarm.values());
+    }
+
+    /**
+     * How many dismissals came after 0, 1, ... 4 and 5 or more snoozes
+     * over the last {@code days} local days, for {@code alarmId} or for
+     * every alarm if it is negative.
+     */
+    long[] snoozeHistogram(int days, int alarmId, long now) {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        lock();
+        try {
+            synchronized (this) {
+                int firstDay = localDay(now) - days + 1;
+                int count = rollupCount();
+                for (int i = 0; i < count; i++) {
+                    int offset = rollupOffset(i);
+                    if (map.getInt(offset) < firstDay || (alarmId >= 0 && map.getInt(offset + 4) != alarmId)) {
+                        continue;
+                    }
+                    for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+                        histogram[bucket] += map.getInt(offset + ROLLUP_HISTOGRAM + bucket * 4);
+                    }
+                }
+            }
+        } finally {
+            sync.unlock();
+        }
+        return histogram;
+    }
+
+    private void record(int type, int alarmId, long at, long ringMs, int snoozeCount) {
+        boolean compacted = false;
+        lock();
+        try {
+            synchronized (this) {
+                if (map == null) {
+                    return;
+                }
+                int day = localDay(at);
+                int rollup = findRollup(day, alarmId);
+                if (eventCount() == eventCapacity || (rollup < 0 && rollupCount() == rollupCapacity)) {
+                    compact(at);
+                    compacted = true;
+                    if (map == null) {
+                        return;
+                    }
+                    rollup = findRollup(day, alarmId);
+                }
+                int ringTime = (int) Math.max(0, Math.min(Integer.MAX_VALUE, ringMs));
+                int offset = eventOffset(eventCount());
+                map.putInt(offset, type).putInt(offset + 4, alarmId).putLong(offset + 8, at)
+                    .putInt(offset + 16, ringTime).putInt(offset + 20, snoozeCount);
+                // Count last, so a torn write is never read
+                map.putInt(OFFSET_EVENT_COUNT, eventCount() + 1);
+
+                if (rollup < 0) {
+                    rollup = rollupCount();
+                    offset = rollupOffset(rollup);
+                    map.putInt(offset, day).putInt(offset + 4, alarmId);
+                    for (int field = ROLLUP_DISMISSALS; field < ROLLUP_BYTES; field += 4) {
+                        map.putInt(offset + field, 0);
+                    }
+                    map.putInt(OFFSET_ROLLUP_COUNT, rollup + 1);
+                }
+                offset = rollupOffset(rollup);
+                if (type == DISMISSED) {
+                    increment(offset + ROLLUP_DISMISSALS);
+                    map.putLong(offset + ROLLUP_DISMISS_MS, map.getLong(offset + ROLLUP_DISMISS_MS) + ringTime);
+                    increment(offset + ROLLUP_HISTOGRAM + Math.min(snoozeCount, HISTOGRAM_BUCKETS - 1) * 4);
+                } else {
+                    increment(offset + ROLLUP_SNOOZES);
+                }
+            }
+        } finally {
+            if (compacted) {
+                generation = sync.bump(AlarmStateSync.ANALYTICS);
+            }
+            sync.unlock();
+        }
+    }
+
+    /** Takes the state lock and maps the file again if the other process compacted it. */
+    private void lock() {
+        sync.lock();
+        synchronized (this) {
+            if (generation != sync.generation(AlarmStateSync.ANALYTICS)) {
+                open();
+            }
+        }
+    }
+
+    /** Index of the rollup for {@code day} and {@code alarmId}, or -1; rollups are appended in day order. */
+    private int findRollup(int day, int alarmId) {
+        for (int i = rollupCount() - 1; i >= 0; i--) {
+            int offset = rollupOffset(i);
+            int rollupDay = map.getInt(offset);
+            if (rollupDay < day) {
+                break;
+            }
+            if (rollupDay == day && map.getInt(offset + 4) == alarmId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void increment(int offset) {
+        map.putInt(offset, map.getInt(offset) + 1);
+    }
+
+    private int rollupCount() {
+        return map != null ? map.getInt(OFFSET_ROLLUP_COUNT) : 0;
+    }
+
+    private int eventCount() {
+        return map != null ? map.getInt(OFFSET_EVENT_COUNT) : 0;
+    }
+
+    private void open() {
+        generation = sync.generation(AlarmStateSync.ANALYTICS);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            boolean valid = raf.length() >= HEADER_BYTES && raf.readInt() == MAGIC && raf.readInt() == VERSION;
+            rollupCapacity = valid ? raf.readInt() : MIN_ROLLUPS;
+            int rollups = valid ? raf.readInt() : 0;
+            eventCapacity = valid ? raf.readInt() : MIN_EVENTS;
+            int events = valid ? raf.readInt() : 0;
+            if (!valid || rollupCapacity < MIN_ROLLUPS || rollups < 0 || rollups > rollupCapacity
+                    || eventCapacity < MIN_EVENTS || events < 0 || events > eventCapacity
+                    || raf.length() < fileSize(rollupCapacity, eventCapacity)) {
+                if (raf.length() > 0) {
+                    Log.w(TAG, "Discarding unreadable wake analytics");
+                }
+                rollupCapacity = MIN_ROLLUPS;
+                eventCapacity = MIN_EVENTS;
+                valid = false;
+            }
+            map = mapFile(raf, rollupCapacity, eventCapacity);
+            if (!valid) {
+                writeHeader(map, rollupCapacity, 0, eventCapacity, 0);
+            }
+        } catch (IOException e) {
+            // Ringing must not depend on analytics; run without them
+            Log.e(TAG, "Error opening wake analytics, recording disabled", e);
+            map = null;
+        }
+    }
+
+    private static MappedByteBuffer mapFile(RandomAccessFile raf, int rollupCapacity, int eventCapacity)
+            throws IOException {
+        long size = fileSize(rollupCapacity, eventCapacity);
+        raf.setLength(size);
+        // The mapping stays valid after the file is closed
+        return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static long fileSize(int rollupCapacity, int eventCapacity) {
+        return HEADER_BYTES + (long) rollupCapacity * ROLLUP_BYTES + (long) eventCapacity * EVENT_BYTES;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int rollupCapacity, int rollups,
+                                    int eventCapacity, int events) {
+        buffer.putInt(0, MAGIC).putInt(4, VERSION)
+            .putInt(OFFSET_ROLLUP_CAPACITY, rollupCapacity).putInt(OFFSET_ROLLUP_COUNT, rollups)
+            .putInt(OFFSET_EVENT_CAPACITY, eventCapacity).putInt(OFFSET_EVENT_COUNT, events);
+    }
+
+    /**
+     * Rewrites the file without expired events and rollups, through a
+     * temporary file so a crash leaves either the old store or the new
+     * one. Regions that are still more than half full afterwards grow.
+     */
+    private void compact(long now) {
+        int today = localDay(now);
+        long eventCutoff = now - EVENT_RETENTION_DAYS * DAY_MS;
+        ByteBuffer rollups = keep(rollupCount(), ROLLUP_BYTES, this::rollupOffset,
+            offset -> map.getInt(offset) > today - ROLLUP_RETENTION_DAYS);
+        ByteBuffer events = keep(eventCount(), EVENT_BYTES, this::eventOffset,
+            offset -> map.getLong(offset + 8) >= eventCutoff);
+        int liveRollups = rollups.remaining() / ROLLUP_BYTES;
+        int liveEvents = events.remaining() / EVENT_BYTES;
+        int newRollupCapacity = grow(liveRollups, MIN_ROLLUPS);
+        int newEventCapacity = grow(liveEvents, MIN_EVENTS);
+
+        File temp = new File(file.getPath() + ".new");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+            raf.setLength(0);
+            MappedByteBuffer next = mapFile(raf, newRollupCapacity, newEventCapacity);
+            writeHeader(next, newRollupCapacity, liveRollups, newEventCapacity, liveEvents);
+            next.position(HEADER_BYTES);
+            next.put(rollups);
+            next.position(HEADER_BYTES + newRollupCapacity * ROLLUP_BYTES);
+            next.put(events);
+            next.force();
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+            map = next;
+            rollupCapacity = newRollupCapacity;
+            eventCapacity = newEventCapacity;
+            Log.d(TAG, "Compacted wake analytics to " + liveRollups + " rollups and " + liveEvents + " events");
+        } catch (IOException e) {
+            Log.e(TAG, "Error compacting wake analytics, recording disabled", e);
+            temp.delete();
+            map = null;
+        }
+    }
+
+    private interface Offsets {
+        int of(int index);
+    }
+
+    private interface Filter {
+        boolean keep(int offset);
+    }
+
+    /** Copies the records of a region that pass {@code filter}, in order. */
+    private ByteBuffer keep(int count, int size, Offsets offsets, Filter filter) {
+        ByteBuffer kept = ByteBuffer.allocate(count * size);
+        for (int i = 0; i < count; i++) {
+            int offset = offsets.of(i);
+            if (filter.keep(offset)) {
+                ByteBuffer record = map.duplicate();
+                record.position(offset).limit(offset + size);
+                kept.put(record);
+            }
+        }
+        kept.flip();
+        return kept;
+    }
+
+    private static int grow(int live, int minimum) {
+        return Math.max(minimum, Integer.highestOneBit(Math.max(1, live * 2)) * 2);
+    }
+
+    private int rollupOffset(int index) {
+        return HEADER_BYTES + index * ROLLUP_BYTES;
+    }
+
+    private int eventOffset(int index) {
+        return HEADER_BYTES + rollupCapacity * ROLLUP_BYTES + index * EVENT_BYTES;
+    }
+
+    /** Local calendar day of {@code time}, counted from the epoch. */
+    static int localDay(long time) {
+        return (int) Math.floorDiv(time + TimeZone.getDefault().getOffset(time), DAY_MS);
+    }
+}
@@ -1,4 +1,18 @@
-const { withAndroidManifest, withStringsXml } = require('@expo/config-plugins');
+const {
+  withAndroidManifest,
+  withAppBuildGradle,
+  withGradleProperties,
+  withStringsXml,
+} = require('@expo/config-plugins');
+
+// Filled in by the manifestPlaceholders block added in withAlarmProcess
+const ALARM_PROCESS = '${alarmProcess}';
+const ALARM_COMPONENTS = [
+  '.alarm.AlarmService',
+  '.alarm.AlarmReceiver',
+  '.alarm.AlarmActionReceiver',
+  '.alarm.AlarmActivity',
+];
 
 const withAlarmPermissions = (config) => {
   return withAndroidManifest(config, (config) => {
@@ -23,7 +37,8 @@ const withAlarmPermissions = (config) => {
       'android.permission.VIBRATE',
       'android.permission.RECEIVE_BOOT_COMPLETED',
       'android.permission.REQUEST_IGNORE_BATTERY_OPTIMIZATIONS',
-      'android.permission.ACCESS_NOTIFICATION_POLICY'
+      'android.permission.ACCESS_NOTIFICATION_POLICY',
+      'android.permission.USE_FULL_SCREEN_INTENT'
     ];
 
     permissions.forEach(permission => {
@@ -84,7 +99,11 @@ const withAlarmPermissions = (config) => {
           action: [
             { $: { 'android:name': 'android.intent.action.BOOT_COMPLETED' } },
             { $: { 'android:name': 'android.intent.action.MY_PACKAGE_REPLACED' } },
-            { $: { 'android:name': 'com.autoriseapp.ALARM_TRIGGER' } }
+            { $: { 'android:name': 'com.autoriseapp.ALARM_TRIGGER' } },
+            { $: { 'android:name': 'android.intent.action.TIMEZONE_CHANGED' } },
+            { $: { 'android:name': 'android.intent.action.TIME_SET' } },
+            { $: { 'android:name': 'android.intent.action.DATE_CHANGED' } },
+            { $: { 'android:name': 'android.app.action.SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED' } }
           ]
         }
       ]
@@ -97,6 +116,20 @@ const withAlarmPermissions = (config) => {
       application.receiver.push(alarmReceiver);
     }
 
+    // Add notification action receiver (dismiss/snooze buttons)
+    const actionReceiverExists = application.receiver.find(
+      receiver => receiver.$['android:name'] === '.alarm.AlarmActionReceiver'
+    );
+    if (!actionReceiverExists) {
+      application.receiver.push({
+        $: {
+          'android:name': '.alarm.AlarmActionReceiver',
+          'android:enabled': 'true',
+          'android:exported': 'false'
+        }
+      });
+    }
+
     // Add alarm activity
     const alarmActivity = {
       $: {
@@ -107,7 +140,7 @@ const withAlarmPermissions = (config) => {
         'android:showWhenLocked': 'true',
         'android:turnScreenOn': 'true',
         'android:excludeFromRecents': 'true',
-        'android:theme': '@android:style/Theme.Translucent.NoTitleBar'
+        'android:theme': '@style/Theme.AutoRise.Alarm'
       }
     };
 
@@ -118,6 +151,47 @@ const withAlarmPermissions = (config) => {
       application.activity.push(alarmActivity);
     }
 
+    // Run the alarm components in the lightweight :alarm process
+    [application.service, application.receiver, application.activity].forEach(components => {
+      components
+        .filter(component => ALARM_COMPONENTS.includes(component.$['android:name']))
+        .forEach(component => {
+          component.$['android:process'] = ALARM_PROCESS;
+        });
+    });
+
+    return config;
+  });
+};
+
+/**
+ * Defines the alarmProcess manifest placeholder from the
+ * autorise.alarmProcess Gradle property (default true), as in
+ * android/app/build.gradle.
+ */
+const withAlarmProcess = (config) => {
+  config = withGradleProperties(config, (config) => {
+    if (!config.modResults.find(item => item.type === 'property' && item.key === 'autorise.alarmProcess')) {
+      config.modResults.push(
+        { type: 'comment', value: 'Run the alarm receiver, service and screen in a separate :alarm' },
+        { type: 'comment', value: 'process that starts without React Native, Hermes or the Expo modules.' },
+        { type: 'comment', value: 'Set to false to run them in the main app process.' },
+        { type: 'property', key: 'autorise.alarmProcess', value: 'true' }
+      );
+    }
+    return config;
+  });
+  return withAppBuildGradle(config, (config) => {
+    if (!config.modResults.contents.includes('alarmProcess:')) {
+      config.modResults.contents = config.modResults.contents.replace(
+        // After applicationId, which the disabled case reads
+        /defaultConfig\s*\{[^}]*?applicationId[^\n]*\n/,
+        match => `${match}        // See autorise.alarmProcess in gradle.properties
+        def alarmProcessEnabled = (findProperty('autorise.alarmProcess') ?: 'true').toBoolean()
+        manifestPlaceholders = [alarmProcess: alarmProcessEnabled ? ':alarm' : applicationId]
+`
+      );
+    }
     return config;
   });
 };
@@ -147,12 +221,25 @@ const withAlarmStrings = (config) => {
       });
     }
 
+    // Alarm screen strings used by res/layout/activity_alarm.xml
+    const alarmScreenStrings = [
+      { name: 'alarm_default_label', value: 'Alarm' },
+      { name: 'alarm_dismiss', value: 'DISMISS' },
+      { name: 'alarm_snooze', value: 'SNOOZE (%1$d MIN)' }
+    ];
+    alarmScreenStrings.forEach(({ name, value }) => {
+      if (!strings.resources.string.find(str => str.$.name === name)) {
+        strings.resources.string.push({ $: { name }, _: value });
+      }
+    });
+
     return config;
   });
 };
 
 module.exports = (config) => {
   config = withAlarmPermissions(config);
+  config = withAlarmProcess(config);
   config = withAlarmStrings(config);
   return config;
 };
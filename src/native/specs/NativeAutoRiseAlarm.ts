@@ -0,0 +1,55 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+/**
+ * Columnar view of every stored alarm. Index i of each array describes the
+ * same alarm, so the whole list crosses JSI as a handful of flat arrays
+ * instead of one object per alarm.
+ */
+export type AlarmSnapshot = {
+  ids: number[];
+  titles: string[];
+  minutesOfDay: number[];
+  dayMasks: number[]; // bit 0 = Sunday
+  enabled: boolean[];
+  sounds: string[];
+  priorities: string[]; // 'critical' | 'normal' | 'reminder'
+  nextFireTimes: number[]; // epoch ms, -1 if not queued
+};
+
+/**
+ * TurboModule spec for the native alarm API (codegen input, see
+ * `codegenConfig` in package.json). Hot read paths are synchronous; the
+ * classic `AlarmModule` bridge module stays registered as a fallback.
+ */
+export interface Spec extends TurboModule {
+  // Synchronous reads
+  getAlarmCount(): number;
+  getNextFireTime(): number;
+  getAlarmSnapshot(): AlarmSnapshot;
+
+  setAlarm(alarm: Object): Promise<string>;
+  setAlarmsBatch(alarms: Object[]): Promise<Object[]>;
+  cancelAlarm(alarmId: number): Promise<string>;
+  cancelAlarmsBatch(alarmIds: number[]): Promise<Object[]>;
+  getAllAlarms(): Promise<Object[]>;
+  importSound(uri: string): Promise<Object>;
+  importAlarms(uri: string, replace: boolean): Promise<Object>;
+  exportAlarms(uri: string): Promise<Object>;
+  setSnoozeSettings(settings: Object): Promise<Object>;
+  getSnoozeSettings(): Promise<Object>;
+  setCatchUpSettings(settings: Object): Promise<Object>;
+  getCatchUpSettings(): Promise<Object>;
+  getFireReliability(): Promise<Object>;
+  getWakeStats(days: number): Promise<Object[]>;
+  getSnoozeHistogram(days: number, alarmId: number): Promise<number[]>;
+  setRingingPolicy(policy: string): Promise<string>;
+  setPrewarmLeadSeconds(seconds: number): Promise<number>;
+  getAlarmMetrics(): Promise<Object>;
+
+  // NativeEventEmitter
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+}
+
+export default TurboModuleRegistry.get<Spec>('AutoRiseAlarm');
@@ -1,4 +1,5 @@
-import { NativeModules, Platform } from 'react-native';
+import { EmitterSubscription, NativeEventEmitter, NativeModules, Platform } from 'react-native';
+import NativeAutoRiseAlarm, { AlarmSnapshot } from '../native/specs/NativeAutoRiseAlarm';
 
 interface AlarmData {
   id: string;
@@ -17,6 +18,84 @@ interface AlarmResponse {
   testTime?: number;
 }
 
+interface ScheduleEntry {
+  id: number;
+  title: string;
+  time: string; // "HH:mm"
+  days?: boolean[]; // Sunday first
+  sound?: string; // res/raw tone name or an ID from importAlarmSound
+  isEnabled?: boolean;
+  priority?: AlarmPriority; // defaults to 'critical'
+}
+
+// critical: setAlarmClock, exempt from Doze limits; normal: exact, rate-limited in Doze;
+// reminder: delivered within a 10 minute window. Without the exact alarm permission
+// critical and normal alarms fall back to inexact delivery.
+type AlarmPriority = 'critical' | 'normal' | 'reminder';
+
+interface BatchItemResult {
+  id: number;
+  status: 'scheduled' | 'unchanged' | 'disabled' | 'cancelled' | 'not_found' | 'error';
+  message?: string;
+}
+
+interface SnoozeSettings {
+  durationMinutes: number; // 1-60
+  maxSnoozes: number; // 0-20; 0 hides the snooze button
+  escalateVolume: boolean; // each snoozed re-fire rings louder
+}
+
+interface CatchUpSettings {
+  ringMissed: boolean; // ring alarms that were missed within the window, late
+  windowMinutes: number; // 1-720
+}
+
+interface FireReliability {
+  fired: number;
+  late: number; // rang more than a minute after their time
+  missed: number;
+  caughtUp: number; // missed but rung late under the catch-up policy
+  missRate: number; // missed / expected fires, 0-1
+  recentMisses: { alarmId: number; scheduledFor: number; detectedAt: number; caughtUp: boolean }[];
+}
+
+interface WakeStats {
+  alarmId: number;
+  dismissals: number;
+  snoozes: number;
+  averageDismissMs: number; // mean ringing time before dismiss, -1 if never dismissed
+}
+
+interface MetricSummary {
+  count: number;
+  mean: number; // all values in ms
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+}
+
+type RingingPolicy = 'stack' | 'merge' | 'replace';
+
+interface ImportResult {
+  changed: number; // added or updated
+  unchanged: number;
+  removed: number; // disabled in the file, or missing from it with replace
+  durationMs: number;
+}
+
+type AlarmEvent =
+  | { type: 'fired'; alarmId: number; timestamp: number; snoozeCount: number }
+  | { type: 'snoozed'; alarmId: number; timestamp: number; refireAt: number; snoozeCount: number }
+  | { type: 'dismissed'; alarmId: number; timestamp: number }
+  | { type: 'missed'; alarmId: number; timestamp: number; scheduledFor: number; caughtUp: boolean }
+  // alarmId is -1 when the whole schedule was rebuilt; count is then set
+  | { type: 'rescheduled'; alarmId: number; timestamp: number; nextFireTime: number; count?: number }
+  // alarmId is -1; percent is -1 when the file size is unknown
+  | { type: 'importProgress' | 'exportProgress'; alarmId: number; timestamp: number; processed: number; percent: number };
+
+const ALARM_EVENTS = 'AutoRiseAlarmEvents';
+
 interface PermissionResponse {
   canSchedule: boolean;
   message: string;
@@ -29,10 +108,22 @@ interface PermissionResponse {
  */
 class ProductionAlarmManager {
   private nativeModule: any;
+  private eventEmitter: NativeEventEmitter;
 
   constructor() {
     this.validatePlatform();
-    this.nativeModule = NativeModules.AlarmModule;
+    // Prefer the TurboModule; the classic bridge module is the fallback
+    this.nativeModule = NativeAutoRiseAlarm ?? NativeModules.AlarmModule;
+    this.eventEmitter = new NativeEventEmitter(this.nativeModule);
+  }
+
+  /**
+   * Subscribe to alarm lifecycle events pushed from native code. Events
+   * arrive in coalesced batches; anything that happened while no listener
+   * was attached is delivered on subscribe.
+   */
+  addAlarmEventListener(listener: (events: AlarmEvent[]) => void): EmitterSubscription {
+    return this.eventEmitter.addListener(ALARM_EVENTS, listener);
   }
 
   /**
@@ -43,7 +134,7 @@ class ProductionAlarmManager {
       throw new Error('AutoRise alarm functionality is only available on Android');
     }
 
-    if (!NativeModules.AlarmModule) {
+    if (!NativeAutoRiseAlarm && !NativeModules.AlarmModule) {
       throw new Error(
         'Native alarm module not available. ' +
         'This app requires a custom development build with native code. ' +
@@ -86,20 +177,199 @@ class ProductionAlarmManager {
     }
   }
 
+  /**
+   * Sync a full schedule in one native call. Unchanged alarms are skipped
+   * natively and persistence is committed once for the whole batch.
+   */
+  async scheduleAlarmsBatch(alarms: ScheduleEntry[]): Promise<BatchItemResult[]> {
+    try {
+      const results: BatchItemResult[] = await this.nativeModule.setAlarmsBatch(alarms);
+      const failed = results.filter(result => result.status === 'error');
+      if (failed.length > 0) {
+        console.warn('⚠️ Some alarms failed to schedule:', failed);
+      }
+      return results;
+    } catch (error) {
+      console.error('❌ Error scheduling alarm batch:', error);
+      throw error;
+    }
+  }
+
+  /**
+   * Cancel several alarms in one native call
+   */
+  async cancelAlarmsBatch(alarmIds: number[]): Promise<BatchItemResult[]> {
+    try {
+      return await this.nativeModule.cancelAlarmsBatch(alarmIds);
+    } catch (error) {
+      console.error('❌ Error cancelling alarm batch:', error);
+      throw error;
+    }
+  }
+
+  /**
+   * Import a picked audio file (content:// or file:// URI) as an alarm sound.
+   * Resolves with the sound ID to pass as `sound` on ScheduleEntry.
+   */
+  async importAlarmSound(uri: string): Promise<string> {
+    try {
+      const result: { soundId: string } = await this.nativeModule.importSound(uri);
+      return result.soundId;
+    } catch (error) {
+      console.error('❌ Error importing alarm sound:', error);
+      throw error;
+    }
+  }
+
+  /**
+   * Import an alarm file (content:// or file:// URI), streamed on the native
+   * side without passing through JS. The file is {"version": 1, "alarms": [...]}
+   * with ScheduleEntry items, or a bare array of them. With replace, stored
+   * alarms missing from the file are removed. Nothing changes if any entry is
+   * invalid. Progress arrives as 'importProgress' alarm events.
+   */
+  async importAlarms(uri: string, replace = false): Promise<ImportResult> {
+    return await this.nativeModule.importAlarms(uri, replace);
+  }
+
+  /**
+   * Write every stored alarm to a file in the format importAlarms reads.
+   * Progress arrives as 'exportProgress' alarm events.
+   */
+  async exportAlarms(uri: string): Promise<{ exported: number; durationMs: number }> {
+    return await this.nativeModule.exportAlarms(uri);
+  }
+
+  /**
+   * Update snooze duration, limit and volume escalation. Omitted fields keep
+   * their current value.
+   */
+  async setSnoozeSettings(settings: Partial<SnoozeSettings>): Promise<SnoozeSettings> {
+    try {
+      return await this.nativeModule.setSnoozeSettings(settings);
+    } catch (error) {
+      console.error('❌ Error saving snooze settings:', error);
+      throw error;
+    }
+  }
+
+  async getSnoozeSettings(): Promise<SnoozeSettings> {
+    return await this.nativeModule.getSnoozeSettings();
+  }
+
+  async setCatchUpSettings(settings: Partial<CatchUpSettings>): Promise<CatchUpSettings> {
+    try {
+      return await this.nativeModule.setCatchUpSettings(settings);
+    } catch (error) {
+      console.error('❌ Error saving catch-up settings:', error);
+      throw error;
+    }
+  }
+
+  async getCatchUpSettings(): Promise<CatchUpSettings> {
+    return await this.nativeModule.getCatchUpSettings();
+  }
+
+  /**
+   * How reliably scheduled alarms actually rang, from the native fire
+   * journal. Misses are detected on boot and on the next app start.
+   */
+  async getFireReliability(): Promise<FireReliability> {
+    return await this.nativeModule.getFireReliability();
+  }
+
+  /**
+   * Per-alarm dismiss and snooze stats over the last `days` days, today
+   * included. Read from native daily rollups, so this stays fast however
+   * much history there is.
+   */
+  async getWakeStats(days: number): Promise<WakeStats[]> {
+    return await this.nativeModule.getWakeStats(days);
+  }
+
+  /**
+   * Dismissals over the last `days` days by how many snoozes came first:
+   * index 0-4 for 0-4 snoozes, index 5 for 5 or more. Omit alarmId for all alarms.
+   */
+  async getSnoozeHistogram(days: number, alarmId = -1): Promise<number[]> {
+    return await this.nativeModule.getSnoozeHistogram(days, alarmId);
+  }
+
+  /**
+   * What happens when an alarm fires while others are ringing: 'stack'
+   * plays the newest, 'merge' keeps the first playing, 'replace' silences
+   * the others. Takes effect the next time alarms start ringing.
+   */
+  async setRingingPolicy(policy: RingingPolicy): Promise<RingingPolicy> {
+    return await this.nativeModule.setRingingPolicy(policy);
+  }
+
+  /**
+   * How many seconds before each alarm (0-600, default 60) the native side
+   * loads the alarm's tone and takes a wake lock, so the alarm itself only
+   * has to start playback. 0 turns this off.
+   */
+  async setPrewarmLeadSeconds(seconds: number): Promise<number> {
+    return await this.nativeModule.setPrewarmLeadSeconds(seconds);
+  }
+
+  /**
+   * Native alarm-pipeline latency histograms by metric name, e.g.
+   * fire_lateness_ms (fire time vs requested trigger time) and
+   * receiver_to_sound_ms. Covers recent fires across app restarts.
+   */
+  async getAlarmMetrics(): Promise<Record<string, MetricSummary>> {
+    return await this.nativeModule.getAlarmMetrics();
+  }
+
+  /**
+   * Number of stored alarms. Synchronous.
+   */
+  getAlarmCount(): number {
+    return this.nativeModule.getAlarmCount();
+  }
+
+  /**
+   * Epoch ms of the next alarm to ring, or null if none is scheduled. Synchronous.
+   */
+  getNextFireTime(): number | null {
+    const next: number = this.nativeModule.getNextFireTime();
+    return next >= 0 ? next : null;
+  }
+
+  /**
+   * Every stored alarm, read synchronously from a columnar native snapshot.
+   */
+  listAlarms(): (ScheduleEntry & { nextFireTime: number | null })[] {
+    const snapshot: AlarmSnapshot = this.nativeModule.getAlarmSnapshot();
+    return snapshot.ids.map((id, i) => {
+      const minuteOfDay = snapshot.minutesOfDay[i];
+      return {
+        id,
+        title: snapshot.titles[i],
+        time: `${String(Math.floor(minuteOfDay / 60)).padStart(2, '0')}:${String(minuteOfDay % 60).padStart(2, '0')}`,
+        days: [0, 1, 2, 3, 4, 5, 6].map(day => (snapshot.dayMasks[i] & (1 << day)) !== 0),
+        sound: snapshot.sounds[i],
+        priority: snapshot.priorities[i] as AlarmPriority,
+        isEnabled: snapshot.enabled[i],
+        nextFireTime: snapshot.nextFireTimes[i] >= 0 ? snapshot.nextFireTimes[i] : null,
+      };
+    });
+  }
+
   /**
    * Get all scheduled alarms
    */
   async getAllAlarms(): Promise<AlarmData[]> {
     try {
-      const response = await this.nativeModule.getAllAlarms();
-      
-      if (response.success && response.alarmsJson) {
-        const alarms = JSON.parse(response.alarmsJson);
-        console.log('✅ Retrieved alarms:', alarms);
-        return alarms;
-      }
-      
-      return [];
+      return this.listAlarms().map(alarm => ({
+        id: String(alarm.id),
+        // Unqueued (disabled or past one-shot) alarms report today's occurrence
+        triggerTime: alarm.nextFireTime ?? new Date().setHours(
+          Number(alarm.time.slice(0, 2)), Number(alarm.time.slice(3)), 0, 0),
+        label: alarm.title,
+        enabled: alarm.isEnabled,
+      }));
     } catch (error) {
       console.error('❌ Error getting alarms:', error);
       throw error;
@@ -223,4 +493,4 @@ class ProductionAlarmManager {
 }
 
 export default new ProductionAlarmManager();
-export { AlarmData, AlarmResponse, PermissionResponse };
+export { AlarmData, AlarmResponse, PermissionResponse, ScheduleEntry, BatchItemResult, SnoozeSettings, CatchUpSettings, FireReliability, RingingPolicy, MetricSummary, AlarmEvent, AlarmPriority, ImportResult, WakeStats };